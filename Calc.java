@@ -0,0 +1,25 @@
+package com.mycompany.restaurantsystem;
+
+class Calc {
+    public static final double TAX_RATE = 0.10;
+    /** {@link #TAX_RATE} in basis points, for fixed-point centavo arithmetic. */
+    public static final long TAX_RATE_BP = 1000;
+    public static double add(double a, double b) { return a + b; }
+    public static double add(double a, double b, double c) { return a + b + c; }
+    public static String formatMoney(double v) { return String.format("%.2f", v); }
+
+    public static long toCents(double v) { return Math.round(v * 100); }
+    public static double fromCents(long cents) { return cents / 100.0; }
+
+    /** Tax on a centavo amount, rounded half-up like {@code formatMoney} does. */
+    public static long taxCents(long subTotalCents) {
+        return (subTotalCents * TAX_RATE_BP + 5000) / 10000;
+    }
+
+    /** Same text as {@link #formatMoney(double)}, without going through {@code Formatter}. */
+    public static String formatMoney(long cents) {
+        long abs = Math.abs(cents);
+        long frac = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (frac < 10 ? ".0" : ".") + frac;
+    }
+}
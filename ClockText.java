@@ -0,0 +1,39 @@
+package com.mycompany.restaurantsystem;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats wall-clock times as {@code yyyy-MM-dd HH:mm:ss}, reusing the last
+ * result for calls within the same second.
+ */
+final class ClockText {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final class Entry {
+        final long second;
+        final String text;
+        Entry(long second, String text) { this.second = second; this.text = text; }
+    }
+
+    private static volatile Entry last = new Entry(Long.MIN_VALUE, "");
+
+    private ClockText() {}
+
+    static String now() {
+        return format(System.currentTimeMillis());
+    }
+
+    static String format(long timeMillis) {
+        long second = Math.floorDiv(timeMillis, 1000L);
+        Entry e = last;
+        if (e.second != second) {
+            e = new Entry(second, FORMAT.format(Instant.ofEpochSecond(second).atZone(ZONE)));
+            last = e;
+        }
+        return e.text;
+    }
+}
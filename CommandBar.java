@@ -0,0 +1,170 @@
+package com.mycompany.restaurantsystem;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.Supplier;
+
+/**
+ * Keyboard order entry above the menu grid. Each key press looks the text up
+ * in a {@link MenuIndex} and lists the best matches; Up/Down pick one, Enter
+ * applies it to the table and clears the bar for the next item, Escape just
+ * clears it. The quantity goes in front or at the end: "adobo" adds one,
+ * "+2 adobo" or "adobo x2" adds two, "-1 adobo" takes one away and
+ * "=3 adobo" sets the line to three. The index is only built when the bar
+ * is first typed into, so it costs nothing at startup.
+ */
+class CommandBar extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Applies a line change; returns what to show in the bar's status. */
+    interface Listener {
+        String apply(int item, int qty, boolean relative);
+    }
+
+    private static final int MAX_MATCHES = 8;
+
+    private final Supplier<MenuIndex> indexBuilder;
+    private MenuIndex index;
+    private final Listener listener;
+    private final JTextField field = new JTextField();
+    private final DefaultListModel<String> shown = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(shown);
+    private final JScrollPane listScroll = new JScrollPane(list);
+    private final JLabel status = new JLabel(" ");
+    private int[] matches = new int[0];
+    // parsed from the current text
+    private int qty;
+    private boolean relative;
+
+    CommandBar(Supplier<MenuIndex> index, Color background, Listener listener) {
+        super(new BorderLayout(6, 4));
+        this.indexBuilder = index;
+        this.listener = listener;
+        setBackground(background);
+        setBorder(new EmptyBorder(6, 10, 6, 10));
+
+        JLabel prompt = new JLabel("Quick add (F2):");
+        prompt.setFont(new Font("SansSerif", Font.BOLD, 12));
+        field.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        field.setToolTipText("<html>Type part of a name; Enter adds one of the highlighted item.<br>"
+                + "+2 adobo / adobo x2 adds two, -1 adobo takes one away, =3 adobo sets three.<br>"
+                + "A price picks between items of the same name: rice 25</html>");
+        list.setVisibleRowCount(5);
+        list.setFocusable(false);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        listScroll.setVisible(false);
+        status.setForeground(Color.DARK_GRAY);
+
+        JPanel line = new JPanel(new BorderLayout(6, 0));
+        line.setOpaque(false);
+        line.add(prompt, BorderLayout.WEST);
+        line.add(field, BorderLayout.CENTER);
+        line.add(status, BorderLayout.EAST);
+        add(line, BorderLayout.NORTH);
+        add(listScroll, BorderLayout.CENTER);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { update(); }
+            @Override public void removeUpdate(DocumentEvent e) { update(); }
+            @Override public void changedUpdate(DocumentEvent e) { update(); }
+        });
+        bind(KeyEvent.VK_DOWN, "next", () -> move(1));
+        bind(KeyEvent.VK_UP, "previous", () -> move(-1));
+        bind(KeyEvent.VK_ENTER, "apply", this::apply);
+        bind(KeyEvent.VK_ESCAPE, "clear", () -> field.setText(""));
+        list.addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) apply();
+            }
+        });
+    }
+
+    /** Puts the cursor in the bar, e.g. from a window-wide shortcut. */
+    void focus() {
+        field.requestFocusInWindow();
+        field.selectAll();
+    }
+
+    /** Shows the matches for {@code text} as if it had been typed; nothing is applied. */
+    void preview(String text) {
+        field.setText(text);
+    }
+
+    private void bind(int key, String name, Runnable action) {
+        field.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(key, 0), name);
+        field.getActionMap().put(name, new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { action.run(); }
+        });
+    }
+
+    private void update() {
+        String query = parse(field.getText());
+        if (!query.isEmpty() && index == null) index = indexBuilder.get();
+        matches = query.isEmpty() ? new int[0] : index.search(query, MAX_MATCHES);
+        shown.clear();
+        for (int item : matches) shown.addElement(index.label(item));
+        if (matches.length > 0) list.setSelectedIndex(0);
+        boolean visible = !query.isEmpty();
+        if (visible != listScroll.isVisible()) {
+            listScroll.setVisible(visible);
+            revalidate();
+        }
+        if (visible && matches.length == 0) status.setText("No match");
+        else if (visible) status.setText(describe());
+    }
+
+    /** Takes the quantity off {@code text}, leaving the search terms. */
+    private String parse(String text) {
+        String t = text.trim();
+        qty = 1;
+        relative = true;
+        if (!t.isEmpty() && (t.charAt(0) == '+' || t.charAt(0) == '-' || t.charAt(0) == '=' || Character.isDigit(t.charAt(0)))) {
+            int end = 1;
+            while (end < t.length() && Character.isDigit(t.charAt(end))) end++;
+            // a bare number is a price to search by, not a quantity
+            if (end < t.length() && end <= 4 && t.charAt(end) == ' ' && (end > 1 || Character.isDigit(t.charAt(0)))) {
+                String n = t.substring(t.charAt(0) == '+' || t.charAt(0) == '=' ? 1 : 0, end);
+                qty = Integer.parseInt(n);
+                relative = t.charAt(0) != '=';
+                return t.substring(end).trim();
+            }
+        }
+        int x = Math.max(t.lastIndexOf(" x"), t.lastIndexOf(" *"));
+        if (x > 0 && x + 2 < t.length() && t.length() - x <= 5 && t.substring(x + 2).chars().allMatch(Character::isDigit)) {
+            qty = Integer.parseInt(t.substring(x + 2));
+            return t.substring(0, x).trim();
+        }
+        return t;
+    }
+
+    private String describe() {
+        String what = relative ? (qty >= 0 ? "Enter adds " + qty : "Enter takes " + -qty) : "Enter sets " + qty;
+        return what + "  (" + matches.length + (matches.length == MAX_MATCHES ? "+" : "") + " found)";
+    }
+
+    private void move(int by) {
+        if (matches.length == 0) return;
+        int i = Math.max(0, Math.min(matches.length - 1, list.getSelectedIndex() + by));
+        list.setSelectedIndex(i);
+        list.ensureIndexIsVisible(i);
+    }
+
+    private void apply() {
+        int i = list.getSelectedIndex();
+        if (i < 0 || i >= matches.length) {
+            if (!field.getText().trim().isEmpty()) Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        String result = listener.apply(matches[i], qty, relative);
+        field.setText("");
+        status.setText(result);
+    }
+}
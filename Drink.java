@@ -0,0 +1,5 @@
+package com.mycompany.restaurantsystem;
+
+final class Drink extends Product {
+    public Drink(String name, double price) { super(name, price); }
+}
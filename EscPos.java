@@ -0,0 +1,78 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Encodes receipts and kitchen tickets as ESC/POS byte streams for 80 mm
+ * thermal printers. Text goes out as Latin-1; characters the printer can't
+ * show (such as the peso sign) are replaced.
+ */
+final class EscPos {
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+
+    private EscPos() {
+    }
+
+    /** A customer receipt: the rendered text as is, fed and cut. */
+    static byte[] receipt(CharSequence text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() + 32);
+        init(out);
+        text(out, text);
+        cut(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * A kitchen ticket: station and table in double size, then one line per
+     * item. An amended ticket says so in reverse print under the table, names
+     * the ticket it replaces and marks what changed on each line.
+     */
+    static byte[] ticket(Kitchen.Ticket t) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        init(out);
+        out.write(ESC); out.write('a'); out.write(1); // centre
+        out.write(GS); out.write('!'); out.write(0x11); // double width and height
+        text(out, t.station.label.toUpperCase(Locale.ROOT) + "\n" + t.tableLabel + "\n");
+        if (t.isAmended()) {
+            out.write(GS); out.write('B'); out.write(1); // reverse
+            text(out, t.isCancelled() ? " CANCELLED \n" : " AMENDED \n");
+            out.write(GS); out.write('B'); out.write(0);
+        }
+        out.write(GS); out.write('!'); out.write(0);
+        text(out, "Invoice " + t.invoiceID + "  " + ClockText.now() + "\n");
+        if (t.isAmended()) {
+            String replaces = t.previous == null ? "the earlier ticket"
+                    : t.revision == 2 ? "the first ticket" : "amendment " + (t.revision - 2);
+            text(out, "Amendment " + (t.revision - 1) + ", replaces " + replaces + "\n");
+        }
+        if (t.waiter != null) text(out, "Waiter: " + t.waiter + "\n");
+        out.write(ESC); out.write('a'); out.write(0); // left
+        out.write(ESC); out.write('E'); out.write(1); // bold
+        for (int i = 0; i < t.names.length; i++) {
+            String change = t.change(i);
+            text(out, String.format("%3d x %s%s%n", t.quantities[i], t.names[i], change.isEmpty() ? "" : "  [" + change + "]"));
+        }
+        out.write(ESC); out.write('E'); out.write(0);
+        cut(out);
+        return out.toByteArray();
+    }
+
+    private static void init(ByteArrayOutputStream out) {
+        out.write(ESC);
+        out.write('@');
+    }
+
+    private static void cut(ByteArrayOutputStream out) {
+        // feed 4 lines, then partial cut
+        out.write(GS); out.write('V'); out.write(66); out.write(4);
+    }
+
+    private static void text(ByteArrayOutputStream out, CharSequence s) {
+        byte[] b = s.toString().getBytes(StandardCharsets.ISO_8859_1);
+        out.write(b, 0, b.length);
+    }
+}
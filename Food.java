@@ -0,0 +1,5 @@
+package com.mycompany.restaurantsystem;
+
+final class Food extends Product {
+    public Food(String name, double price) { super(name, price); }
+}
@@ -0,0 +1,354 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock per menu item. Only items listed in the stock file are tracked; the
+ * rest are never short. Each tracked item has an on-hand count and an
+ * available count (on hand minus what open tables hold). DONE moves the
+ * table's purchased lines into its hold by taking units off the available
+ * count with a compare-and-set, all or nothing, so two counters committing
+ * at once can never oversell; an amended DONE only takes (or gives back) the
+ * difference. Reset releases the hold: the units leave on hand for good.
+ *
+ * <p>The counters live in atomic arrays spaced a cache line apart, so
+ * counters working different items don't contend. A table's hold is guarded
+ * by that table's lock here and, like the order's lines, only has entries
+ * for what the table holds. Listeners hear when an item goes low, sells out
+ * or comes back, on the thread that made the change.
+ *
+ * <p>The stock file has one {@code name[@price] | on hand | low at} line per
+ * tracked item.
+ */
+class Inventory {
+
+    static final int OK = 0;
+    static final int LOW = 1;
+    static final int SOLD_OUT = 2;
+
+    /** Notified when an item's {@link #OK}/{@link #LOW}/{@link #SOLD_OUT} level changes. */
+    interface Listener {
+        void stockChanged(int item, long available, int level);
+    }
+
+    /** A DONE asked for more than is available; nothing was taken. */
+    static final class OutOfStockException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        OutOfStockException(String message) {
+            super(message);
+        }
+    }
+
+    // longs per slot: 8 x 8 bytes keeps every item's counter on its own cache line
+    private static final int STRIDE = 8;
+    private static final long UNTRACKED = Long.MIN_VALUE;
+
+    private final MenuCatalog catalog;
+    private final AtomicLongArray available;
+    private final AtomicLongArray onHand;
+    private final long[] lowAt;
+    private final AtomicIntegerArray level;
+    private final String[] keys;
+    private final Hold[] held;
+    private final Object[] tableLocks;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    Inventory(MenuCatalog catalog, int tableCount) {
+        this.catalog = catalog;
+        int n = catalog.size();
+        available = new AtomicLongArray(n * STRIDE);
+        onHand = new AtomicLongArray(n * STRIDE);
+        lowAt = new long[n];
+        level = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            available.set(i * STRIDE, UNTRACKED);
+            onHand.set(i * STRIDE, UNTRACKED);
+        }
+        keys = keys(catalog);
+        held = new Hold[tableCount];
+        tableLocks = new Object[tableCount];
+        for (int t = 0; t < tableCount; t++) tableLocks[t] = new Object();
+    }
+
+    /** Reads tracked items from {@code f}; lines for items not on the menu are an error. */
+    static Inventory load(File f, MenuCatalog catalog, int tableCount) throws IOException {
+        Inventory inv = new Inventory(catalog, tableCount);
+        try (BufferedReader r = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = r.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] cols = line.split("\\|");
+                if (cols.length < 2) throw new IOException(f + ":" + lineNo + ": expected name | on hand | low at");
+                int item = inv.find(cols[0].trim());
+                if (item < 0) throw new IOException(f + ":" + lineNo + ": '" + cols[0].trim() + "' is not on the menu (or matches two items; add @<price>)");
+                try {
+                    inv.track(item, Long.parseLong(cols[1].trim()), cols.length > 2 ? Long.parseLong(cols[2].trim()) : 0);
+                } catch (NumberFormatException e) {
+                    throw new IOException(f + ":" + lineNo + ": bad count");
+                }
+            }
+        }
+        return inv;
+    }
+
+    void addListener(Listener l) { listeners.add(l); }
+    void removeListener(Listener l) { listeners.remove(l); }
+
+    boolean isTracked(int item) { return available.get(item * STRIDE) != UNTRACKED; }
+    /** Units that can still be sold, or {@code Long.MAX_VALUE} for untracked items. */
+    long available(int item) {
+        long a = available.get(item * STRIDE);
+        return a == UNTRACKED ? Long.MAX_VALUE : a;
+    }
+    long onHand(int item) { return onHand.get(item * STRIDE); }
+    long lowAt(int item) { return lowAt[item]; }
+    int level(int item) { return level.get(item); }
+    boolean isSoldOut(int item) { return level.get(item) == SOLD_OUT; }
+
+    /**
+     * Starts tracking {@code item}, or recounts it: {@code count} units on
+     * hand, of which what open tables hold is already spoken for.
+     */
+    void track(int item, long count, long lowThreshold) {
+        lowAt[item] = lowThreshold;
+        int slot = item * STRIDE;
+        synchronized (this) {
+            long was = onHand.getAndSet(slot, count);
+            if (was == UNTRACKED) available.set(slot, count - held(item));
+            else available.addAndGet(slot, count - was);
+        }
+        fire(item);
+    }
+
+    /**
+     * Makes the table's hold match {@code order}'s purchased lines. Throws
+     * {@link OutOfStockException} naming what's short, and changes nothing,
+     * if the extra units aren't available; with {@code force} the counts may
+     * go negative instead (used when restoring open tables at startup).
+     */
+    void hold(int table, TableOrder order, boolean force) {
+        synchronized (tableLocks[table]) {
+            Hold h = held[table];
+            if (h == null) h = held[table] = new Hold();
+            // walk the order's lines and the current hold together, both sorted by item
+            int lines = order.lineCount();
+            int[] items = new int[lines + h.count];
+            int[] delta = new int[lines + h.count];
+            int n = 0;
+            for (int k = 0, j = 0; k < lines || j < h.count; ) {
+                int lineItem = k < lines ? order.lineItem(k) : Integer.MAX_VALUE;
+                int heldItem = j < h.count ? h.items[j] : Integer.MAX_VALUE;
+                int item = Math.min(lineItem, heldItem);
+                int want = 0;
+                int have = 0;
+                if (lineItem == item) {
+                    if (order.isLinePurchased(k)) want = order.lineQuantity(k);
+                    k++;
+                }
+                if (heldItem == item) have = h.units[j++];
+                if (want == have || !isTracked(item)) continue;
+                items[n] = item;
+                delta[n++] = want - have;
+            }
+            StringBuilder shortBy = null;
+            for (int d = 0; d < n; d++) {
+                if (delta[d] <= 0 || take(items[d], delta[d], force)) continue;
+                if (shortBy == null) shortBy = new StringBuilder("Not enough stock: ");
+                else shortBy.append(", ");
+                shortBy.append(catalog.product(items[d]).getName()).append(" (").append(Math.max(0, available(items[d]))).append(" left)");
+                delta[d] = 0;
+            }
+            if (shortBy != null) {
+                // all or nothing: give back what this call did take
+                for (int d = 0; d < n; d++) if (delta[d] > 0) give(items[d], delta[d]);
+                throw new OutOfStockException(shortBy.toString());
+            }
+            for (int d = 0; d < n; d++) {
+                if (delta[d] < 0) give(items[d], -delta[d]);
+                h.add(items[d], delta[d]);
+            }
+        }
+    }
+
+    /** The table was cleared: what it held is gone from on hand. */
+    void release(int table) {
+        synchronized (tableLocks[table]) {
+            Hold h = held[table];
+            if (h == null) return;
+            for (int k = 0; k < h.count; k++) {
+                if (isTracked(h.items[k])) onHand.addAndGet(h.items[k] * STRIDE, -h.units[k]);
+            }
+            held[table] = null;
+        }
+    }
+
+    /** Units of {@code item} held by open tables. */
+    long held(int item) {
+        long sum = 0;
+        for (int t = 0; t < held.length; t++) {
+            synchronized (tableLocks[t]) {
+                if (held[t] != null) sum += held[t].units(item);
+            }
+        }
+        return sum;
+    }
+
+    /** One line per tracked item: available, held, on hand and the low mark. */
+    String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-20s %9s %6s %7s %6s%n", "Item", "Available", "Held", "On hand", "Low at"));
+        for (int i = 0; i < catalog.size(); i++) {
+            if (!isTracked(i)) continue;
+            sb.append(String.format("%-20s %9d %6d %7d %6d%s%n", key(i), available(i), held(i),
+                    onHand(i), lowAt[i], level(i) == SOLD_OUT ? "  SOLD OUT" : level(i) == LOW ? "  low" : ""));
+        }
+        return sb.toString();
+    }
+
+    /** Writes the tracked items' on-hand counts in the stock file format, replacing {@code f} atomically. */
+    void save(File f) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# name | on hand | low at; written " + ClockText.now());
+        for (int i = 0; i < catalog.size(); i++) {
+            if (isTracked(i)) lines.add(key(i) + " | " + onHand(i) + " | " + lowAt[i]);
+        }
+        Path target = f.toPath();
+        Path dir = target.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = target.resolveSibling(f.getName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** The item's name, with its price if another item has the same name. */
+    String key(int item) {
+        return keys[item];
+    }
+
+    private static String[] keys(MenuCatalog catalog) {
+        int n = catalog.size();
+        Map<String, Integer> named = new HashMap<>();
+        for (int i = 0; i < n; i++) named.merge(catalog.product(i).getName().toLowerCase(Locale.ROOT), 1, Integer::sum);
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            Product p = catalog.product(i);
+            keys[i] = named.get(p.getName().toLowerCase(Locale.ROOT)) > 1
+                    ? p.getName() + "@" + Calc.formatMoney(p.getPriceCents()) : p.getName();
+        }
+        return keys;
+    }
+
+    /** The item named {@code name[@price]}, or -1 if there is none or more than one. */
+    int find(String name) {
+        long price = -1;
+        int at = name.lastIndexOf('@');
+        if (at > 0) {
+            try {
+                price = Calc.toCents(Double.parseDouble(name.substring(at + 1).trim()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+            name = name.substring(0, at).trim();
+        }
+        int found = -1;
+        for (int i = 0; i < catalog.size(); i++) {
+            Product p = catalog.product(i);
+            if (!p.getName().equalsIgnoreCase(name) || (price >= 0 && p.getPriceCents() != price)) continue;
+            if (found >= 0) return -1;
+            found = i;
+        }
+        return found;
+    }
+
+    private boolean take(int item, int units, boolean force) {
+        int slot = item * STRIDE;
+        while (true) {
+            long a = available.get(slot);
+            if (a < units && !force) return false;
+            if (available.compareAndSet(slot, a, a - units)) break;
+        }
+        fire(item);
+        return true;
+    }
+
+    private void give(int item, int units) {
+        available.addAndGet(item * STRIDE, units);
+        fire(item);
+    }
+
+    /**
+     * Brings the item's level in line with its available count. A take and a
+     * give racing here may each have read a different count; whoever finds
+     * the count moved after setting the level goes round again, so the last
+     * one out leaves the level of the latest count.
+     */
+    private void fire(int item) {
+        int slot = item * STRIDE;
+        while (true) {
+            long a = available.get(slot);
+            if (a == UNTRACKED) return;
+            int now = a <= 0 ? SOLD_OUT : a <= lowAt[item] ? LOW : OK;
+            int was = level.getAndSet(item, now);
+            if (was != now) {
+                for (Listener l : listeners) l.stockChanged(item, a, now);
+            }
+            if (available.get(slot) == a) return;
+        }
+    }
+
+    /** Units one table holds, by item: item IDs and units in parallel arrays sorted by item, no zero entries. */
+    private static final class Hold {
+        private static final int[] NONE = new int[0];
+
+        int count;
+        int[] items = NONE;
+        int[] units = NONE;
+
+        int units(int item) {
+            int k = Arrays.binarySearch(items, 0, count, item);
+            return k < 0 ? 0 : units[k];
+        }
+
+        void add(int item, int delta) {
+            int k = Arrays.binarySearch(items, 0, count, item);
+            if (k < 0) {
+                k = -k - 1;
+                if (count == items.length) {
+                    int cap = Math.max(4, count * 2);
+                    items = Arrays.copyOf(items, cap);
+                    units = Arrays.copyOf(units, cap);
+                }
+                System.arraycopy(items, k, items, k + 1, count - k);
+                System.arraycopy(units, k, units, k + 1, count - k);
+                items[k] = item;
+                units[k] = 0;
+                count++;
+            }
+            units[k] += delta;
+            if (units[k] == 0) {
+                count--;
+                System.arraycopy(items, k + 1, items, k, count - k);
+                System.arraycopy(units, k + 1, units, k, count - k);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Invoice numbers that stay unique across restarts and across terminals
+ * sharing the same data directory. The store file holds the first number no
+ * one has reserved yet; a terminal reserves a block of numbers at a time
+ * under an exclusive file lock (hi/lo) and then hands them out from memory
+ * with a single atomic increment. Numbers left in a block when the program
+ * exits are skipped, so the sequence has gaps but never repeats.
+ */
+final class InvoiceSequence {
+
+    private static final Logger LOG = Logger.getLogger(InvoiceSequence.class.getName());
+
+    /** Numbers {@code [next, end)} reserved for this process. */
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    private final Path store;
+    private final int blockSize;
+    private volatile Block current;
+
+    private InvoiceSequence(Path store, int blockSize) {
+        this.store = store;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Opens the sequence stored in {@code f}, reserving the first block.
+     * Numbers start at {@code first} if the file doesn't exist yet; a file
+     * that exists but doesn't hold a number is an error, since starting
+     * over would hand out numbers that were already used.
+     */
+    static InvoiceSequence open(File f, int blockSize, int first) throws IOException {
+        InvoiceSequence s = new InvoiceSequence(f.toPath(), Math.max(1, blockSize));
+        Files.createDirectories(s.store.toAbsolutePath().getParent());
+        s.create(first);
+        s.current = s.reserve(first);
+        return s;
+    }
+
+    /** A sequence that lives only in this process, continuing after {@code last}. */
+    static InvoiceSequence inMemory(int last) {
+        InvoiceSequence s = new InvoiceSequence(null, Integer.MAX_VALUE);
+        s.current = new Block(last + 1L, Integer.MAX_VALUE);
+        return s;
+    }
+
+    int next() {
+        while (true) {
+            Block b = current;
+            long v = b.next.getAndIncrement();
+            if (v < b.end) return (int) v;
+            refill(b, b.end);
+        }
+    }
+
+    /** The highest number handed out so far by this process (or the one before the first). */
+    int lastIssued() {
+        Block b = current;
+        return (int) (Math.min(b.next.get(), b.end) - 1);
+    }
+
+    /** Makes sure {@code id} is never handed out again, e.g. after it was replayed from the journal. */
+    void ensureAbove(int id) {
+        Block b = current;
+        if (b.next.get() > id) return;
+        if (id < b.end - 1) {
+            b.next.accumulateAndGet(id + 1L, Math::max);
+            return;
+        }
+        refill(b, id + 1L);
+    }
+
+    private synchronized void refill(Block seen, long atLeast) {
+        if (current != seen) return; // another thread got there first
+        if (store == null) {
+            current = new Block(Math.max(atLeast, seen.end), Integer.MAX_VALUE);
+            return;
+        }
+        try {
+            current = reserve(atLeast);
+        } catch (IOException e) {
+            // keep the till running; numbers may clash with other terminals until the store is writable again
+            LOG.log(Level.SEVERE, "could not reserve invoice numbers from " + store + ", continuing in memory", e);
+            long start = Math.max(atLeast, seen.end);
+            current = new Block(start, start + blockSize);
+        }
+    }
+
+    /** Writes a new store holding {@code first}, unless there already is one. */
+    private void create(long first) throws IOException {
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(store, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (FileAlreadyExistsException e) {
+            return;
+        }
+        try (ch) {
+            // another terminal opening it now waits for this lock, then finds the number
+            ch.lock();
+            ch.write(ByteBuffer.wrap((first + "\n").getBytes(StandardCharsets.US_ASCII)), 0);
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Takes the next block from the store file, starting no lower than
+     * {@code atLeast}. The new high-water mark is written over the old one in
+     * place: it is never shorter, so there is no moment at which the file is
+     * empty or holds less than the last number reserved.
+     */
+    private Block reserve(long atLeast) throws IOException {
+        try (FileChannel ch = FileChannel.open(store, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // released when the channel closes
+            ch.lock();
+            ByteBuffer buf = ByteBuffer.allocate(32);
+            while (ch.read(buf, buf.position()) > 0 && buf.hasRemaining()) {
+                // keep reading
+            }
+            String text = new String(buf.array(), 0, buf.position(), StandardCharsets.US_ASCII).trim();
+            long stored;
+            try {
+                stored = Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw new IOException(store + " does not hold an invoice number: '" + text
+                        + "'; write the next free invoice number into it to continue");
+            }
+            long start = Math.max(stored, atLeast);
+            long end = start + blockSize;
+            if (end > Integer.MAX_VALUE) throw new IOException("invoice numbers exhausted in " + store);
+            byte[] mark = (end + "\n").getBytes(StandardCharsets.US_ASCII);
+            // blank out anything left past the new number, e.g. a longer hand-edited one
+            byte[] out = mark.length >= buf.position() ? mark : pad(mark, buf.position());
+            ch.write(ByteBuffer.wrap(out), 0);
+            ch.force(true);
+            return new Block(start, end);
+        }
+    }
+
+    /** {@code mark} with spaces before its line break, {@code length} bytes in all. */
+    private static byte[] pad(byte[] mark, int length) {
+        byte[] out = new byte[length];
+        Arrays.fill(out, (byte) ' ');
+        System.arraycopy(mark, 0, out, 0, mark.length - 1);
+        out[length - 1] = '\n';
+        return out;
+    }
+}
@@ -0,0 +1,907 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Structured history of committed invoices: who, where, when and what, for
+ * audits, refunds and month-end reports. Like {@link ReceiptArchive},
+ * {@link #submit} only enqueues and a background writer does the IO.
+ *
+ * <p>The current day is kept in memory and appended to a row log
+ * ({@code invoices-yyyy-MM-dd.wal}, fsynced per batch) so nothing is lost on
+ * a crash. Once a later day starts, the day is sealed into an immutable
+ * segment ({@code .seg}): rows sorted by time, cut into groups of up to
+ * {@value #GROUP_ROWS}, each group stored column by column as varints and
+ * deflated. Segments are memory-mapped; the header and the group directory
+ * give each group's time range, and a sorted (invoice, row) index finds any
+ * invoice with a binary search, so a lookup inflates one group and a time
+ * range scan skips every segment and group outside the range. A day that
+ * has to be rewritten gets a new segment file ({@code .1.seg}, ...) rather
+ * than replacing one that may still be mapped.
+ *
+ * <p>A second DONE on the same invoice replaces the earlier row, even one
+ * already sealed into an earlier day: the invoice moves to the day of its
+ * latest DONE, so scans and month reports count it once.
+ *
+ * <p>If the disk refuses a batch, its rows stay in memory and the writer
+ * retries with backoff, taking newer rows along; {@link Listener}s hear
+ * when writing starts failing and when it works again.
+ */
+class InvoiceStore implements AutoCloseable {
+
+    /** Notified on the writer thread. */
+    interface Listener {
+        /** Rows can't be written; {@code waiting} of them are held in memory until they can. */
+        void writeFailed(IOException error, int waiting);
+        /** A write went through after failures. */
+        void writeRecovered();
+    }
+
+    private static final Logger LOG = Logger.getLogger(InvoiceStore.class.getName());
+
+    private static final int MAGIC = 0x494E5653; // "INVS"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int GROUP_ENTRY_BYTES = 36;
+    private static final int GROUP_ROWS = 256;
+    private static final int MAX_BATCH = 512;
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+    private static final String PREFIX = "invoices-";
+
+    /** One committed invoice. Immutable. */
+    static final class Record {
+        final int invoiceID;
+        final int table;
+        final String waiter;
+        final long timeMillis;
+        final long totalCents;
+        final String[] names;
+        final long[] unitCents;
+        final int[] quantities;
+
+        Record(int invoiceID, int table, String waiter, long timeMillis, long totalCents,
+               String[] names, long[] unitCents, int[] quantities) {
+            this.invoiceID = invoiceID;
+            this.table = table;
+            this.waiter = waiter;
+            this.timeMillis = timeMillis;
+            this.totalCents = totalCents;
+            this.names = names;
+            this.unitCents = unitCents;
+            this.quantities = quantities;
+        }
+
+        /** The purchased lines of {@code order}, priced from {@code catalog} as they stand now. */
+        static Record of(TableOrder order, int table, String waiter, long timeMillis, MenuCatalog catalog) {
+            int n = 0;
+            for (int l = 0; l < order.lineCount(); l++) {
+                if (order.lineQuantity(l) > 0 && order.isLinePurchased(l)) n++;
+            }
+            String[] names = new String[n];
+            long[] unit = new long[n];
+            int[] qty = new int[n];
+            int k = 0;
+            for (int l = 0; l < order.lineCount(); l++) {
+                if (order.lineQuantity(l) <= 0 || !order.isLinePurchased(l)) continue;
+                Product p = catalog.product(order.lineItem(l));
+                names[k] = p.getName();
+                unit[k] = p.getPriceCents();
+                qty[k++] = order.lineQuantity(l);
+            }
+            return new Record(order.getInvoiceID(), table, waiter, timeMillis, order.getTotalCents(), names, unit, qty);
+        }
+
+        int lineCount() { return names.length; }
+
+        /** The invoice as text; tables past the first {@code dineInTables} are the Online ones. */
+        String text(int dineInTables) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Invoice ").append(invoiceID).append("  ").append(ClockText.format(timeMillis)).append('\n');
+            sb.append(TableComboModel.name(table, dineInTables));
+            if (waiter != null) sb.append("  Waiter: ").append(waiter);
+            sb.append('\n');
+            for (int i = 0; i < names.length; i++) {
+                sb.append(String.format("%3d x %-24s %10s%n", quantities[i], names[i],
+                        Calc.formatMoney(unitCents[i] * quantities[i])));
+            }
+            sb.append(String.format("%-30s %10s%n", "TOTAL (incl. tax)", Calc.formatMoney(totalCents)));
+            return sb.toString();
+        }
+    }
+
+    // inflaters hold native zlib state that is slow to set up; lookups and scans reuse one per thread
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private static final Record STOP = new Record(0, 0, null, 0, 0, new String[0], new long[0], new int[0]);
+
+    private final Path dir;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>(100_000);
+    /** Rows not sealed into a segment yet, by invoice; written by submitters and the writer. */
+    private final Map<Integer, Record> open = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Thread writer;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile String lastError;
+
+    // writer thread only
+    private final Map<LocalDate, FileChannel> wals = new HashMap<>();
+    private LocalDate latestDay;
+
+    InvoiceStore(File dir) throws IOException {
+        this.dir = dir.toPath();
+        Files.createDirectories(this.dir);
+        load();
+        writer = new Thread(this::writeLoop, "invoice-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "invoice-store-shutdown"));
+    }
+
+    /** Queues a committed invoice; never blocks. Returns false if the queue is full. */
+    boolean submit(Record r) {
+        open.put(r.invoiceID, r);
+        boolean queued = queue.offer(r);
+        if (!queued) LOG.severe("invoice store queue full, invoice " + r.invoiceID + " not stored");
+        return queued;
+    }
+
+    /** The invoice's latest row, or null if it was never stored. */
+    Record lookup(int invoiceID) throws IOException {
+        Record r = open.get(invoiceID);
+        if (r != null) return r;
+        for (Segment s : segments.descendingMap().values()) {
+            r = s.lookup(invoiceID);
+            if (r != null) return r;
+        }
+        return null;
+    }
+
+    /**
+     * Feeds every stored invoice with {@code fromMillis <= time < toMillis}
+     * to {@code sink}, oldest segment first. Returns how many were fed.
+     */
+    int scan(long fromMillis, long toMillis, Consumer<Record> sink) throws IOException {
+        // unsealed rows are the latest for their invoice: a sealed row they amend is skipped,
+        // and so is the sealed copy of a row that gets sealed while this runs
+        Map<Integer, Record> unsealed = new HashMap<>(open);
+        int[] n = new int[1];
+        LocalDate from = dayOf(fromMillis), to = dayOf(toMillis - 1);
+        for (Segment s : segments.subMap(from, true, to, true).values()) {
+            s.scan(fromMillis, toMillis, r -> {
+                if (unsealed.containsKey(r.invoiceID)) return;
+                sink.accept(r);
+                n[0]++;
+            });
+        }
+        List<Record> recent = new ArrayList<>();
+        for (Record r : unsealed.values()) {
+            if (r.timeMillis >= fromMillis && r.timeMillis < toMillis) recent.add(r);
+        }
+        recent.sort(Comparator.comparingLong(r -> r.timeMillis));
+        for (Record r : recent) sink.accept(r);
+        return n[0] + recent.size();
+    }
+
+    /** Invoice count, total and units per item for one calendar month. */
+    String monthReport(int year, int month) throws IOException {
+        LocalDate first = LocalDate.of(year, month, 1);
+        long from = first.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = first.plusMonths(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        long[] total = new long[1];
+        Map<String, long[]> items = new TreeMap<>();
+        long t0 = System.nanoTime();
+        int n = scan(from, to, r -> {
+            total[0] += r.totalCents;
+            for (int i = 0; i < r.names.length; i++) {
+                long[] acc = items.computeIfAbsent(r.names[i], k -> new long[2]);
+                acc[0] += r.quantities[i];
+                acc[1] += r.unitCents[i] * r.quantities[i];
+            }
+        });
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d-%02d: %,d invoices, %s incl. tax (scanned in %.1f ms)%n", year, month, n,
+                Calc.formatMoney(total[0]), (System.nanoTime() - t0) / 1e6));
+        for (Map.Entry<String, long[]> e : items.entrySet()) {
+            sb.append(String.format("  %-24s %6d %12s%n", e.getKey(), e.getValue()[0], Calc.formatMoney(e.getValue()[1])));
+        }
+        return sb.toString();
+    }
+
+    int segmentCount() { return segments.size(); }
+
+    /** Why the last write failed, or null if writing works. */
+    String lastError() { return lastError; }
+
+    void addListener(Listener l) { listeners.add(l); }
+    void removeListener(Listener l) { listeners.remove(l); }
+
+    @Override
+    public void close() {
+        if (!writer.isAlive()) return;
+        queue.offer(STOP);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- writer -----------------------------------------------------------
+
+    private void writeLoop() {
+        List<Record> batch = new ArrayList<>(MAX_BATCH);
+        long backoff = MIN_RETRY_MILLIS;
+        boolean failing = false;
+        boolean stop = false;
+        try {
+            while (!stop) {
+                if (batch.isEmpty()) {
+                    Record first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                }
+                // a batch being retried takes newer rows along
+                queue.drainTo(batch, Math.max(0, MAX_BATCH - batch.size()));
+                stop = batch.remove(STOP);
+                try {
+                    writeBatch(batch);
+                } catch (IOException e) {
+                    lastError = e.getMessage();
+                    if (stop) {
+                        LOG.log(Level.SEVERE, "could not store " + batch.size() + " invoices before shutdown", e);
+                        break;
+                    }
+                    LOG.log(Level.SEVERE, "could not store " + batch.size() + " invoices, retrying in " + backoff + " ms", e);
+                    if (!failing) {
+                        for (Listener l : listeners) l.writeFailed(e, batch.size() + queue.size());
+                    }
+                    failing = true;
+                    stop = waitToRetry(backoff, batch);
+                    backoff = Math.min(MAX_RETRY_MILLIS, backoff * 2);
+                    continue;
+                }
+                batch.clear();
+                backoff = MIN_RETRY_MILLIS;
+                if (failing) {
+                    failing = false;
+                    lastError = null;
+                    LOG.info("invoice store writing again");
+                    for (Listener l : listeners) l.writeRecovered();
+                }
+                try {
+                    sealBefore(latestDay);
+                } catch (IOException e) {
+                    // the rows are safe in the row log; the day is sealed again at the next start
+                    LOG.log(Level.SEVERE, "could not seal invoices", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (FileChannel ch : wals.values()) closeQuietly(ch);
+            wals.clear();
+        }
+    }
+
+    /**
+     * Sleeps {@code millis} before a retry, moving rows that arrive meanwhile
+     * into {@code batch}; returns early, true, if the store is being closed.
+     */
+    private boolean waitToRetry(long millis, List<Record> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long left;
+        while ((left = deadline - System.nanoTime()) > 0) {
+            Record r = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (r == STOP) return true;
+            if (r != null) batch.add(r);
+        }
+        return false;
+    }
+
+    /** Appends the batch to each day's row log with one write and one fsync per day. */
+    private void writeBatch(List<Record> batch) throws IOException {
+        Map<LocalDate, ByteArrayOutputStream> byDay = new LinkedHashMap<>();
+        for (Record r : batch) {
+            LocalDate day = dayOf(r.timeMillis);
+            if (latestDay == null || day.isAfter(latestDay)) latestDay = day;
+            writeRow(byDay.computeIfAbsent(day, d -> new ByteArrayOutputStream()), r);
+        }
+        for (Map.Entry<LocalDate, ByteArrayOutputStream> e : byDay.entrySet()) {
+            FileChannel ch = wals.get(e.getKey());
+            if (ch == null) {
+                ch = FileChannel.open(walFile(e.getKey()), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                wals.put(e.getKey(), ch);
+                // only a log left by a failed write exists already; append after its last whole row
+                if (ch.size() > 0) {
+                    long good = readWal(walFile(e.getKey()), new ArrayList<>());
+                    if (good < ch.size()) ch.truncate(good);
+                }
+            }
+            ByteBuffer buf = ByteBuffer.wrap(e.getValue().toByteArray());
+            long end = ch.size();
+            try {
+                ch.position(end);
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(false);
+            } catch (IOException ex) {
+                // no half row may sit in front of the retry; reopening checks the tail again
+                try {
+                    ch.truncate(end);
+                } catch (IOException ignored) {
+                    // reopening cuts it off
+                }
+                closeQuietly(wals.remove(e.getKey()));
+                throw ex;
+            }
+        }
+    }
+
+    /** Seals every day with a row log that is older than {@code day}. */
+    private void sealBefore(LocalDate day) throws IOException {
+        if (day == null) return;
+        for (LocalDate d : new ArrayList<>(wals.keySet())) {
+            if (d.isBefore(day)) {
+                closeQuietly(wals.remove(d));
+                seal(d);
+            }
+        }
+    }
+
+    /**
+     * Turns a day's row log (merged with its segment, if one exists) into a
+     * new segment. An invoice lives in one day only, the day of its latest
+     * DONE: rows already amended in a later segment are left out, and rows
+     * amended today are first taken out of the older segments that hold them.
+     */
+    private void seal(LocalDate day) throws IOException {
+        Map<Integer, Record> rows = new LinkedHashMap<>();
+        Segment old = segments.get(day);
+        if (old != null) old.scan(Long.MIN_VALUE, Long.MAX_VALUE, r -> rows.put(r.invoiceID, r));
+        List<Record> logged = new ArrayList<>();
+        readWal(walFile(day), logged);
+        for (Record r : logged) rows.put(r.invoiceID, r);
+        for (Segment later : segments.tailMap(day, false).values()) rows.keySet().removeIf(later::contains);
+        for (Map.Entry<LocalDate, Segment> e : segments.headMap(day, false).entrySet()) {
+            Set<Integer> amended = new HashSet<>();
+            for (Integer id : rows.keySet()) {
+                if (e.getValue().contains(id)) amended.add(id);
+            }
+            if (!amended.isEmpty()) {
+                // before this day's segment exists, so a crash in between leaves the rows in the row log only
+                List<Record> kept = new ArrayList<>();
+                e.getValue().scan(Long.MIN_VALUE, Long.MAX_VALUE, r -> {
+                    if (!amended.contains(r.invoiceID)) kept.add(r);
+                });
+                writeSegment(e.getKey(), kept.toArray(new Record[0]));
+                LOG.info("moved " + amended.size() + " invoices amended on " + day + " out of " + e.getKey());
+            }
+        }
+        Record[] sorted = rows.values().toArray(new Record[0]);
+        Arrays.sort(sorted, Comparator.comparingLong((Record r) -> r.timeMillis).thenComparingInt(r -> r.invoiceID));
+
+        writeSegment(day, sorted);
+        Files.deleteIfExists(walFile(day));
+        for (Record r : logged) open.remove(r.invoiceID, r);
+        LOG.info("sealed " + sorted.length + " invoices for " + day);
+    }
+
+    /**
+     * Replaces the day's segment with one holding {@code sorted}, which is in
+     * time order. The new segment goes to a file of its own: the old one may
+     * still be mapped by a running scan, and a mapped file can't be replaced
+     * or deleted on every platform. The old file is deleted if it can be,
+     * else on the next start.
+     */
+    private void writeSegment(LocalDate day, Record[] sorted) throws IOException {
+        Segment old = segments.get(day);
+        int generation = old == null ? 0 : old.generation + 1;
+        while (Files.exists(segmentFile(day, generation))) generation++;
+        Path file = segmentFile(day, generation);
+        Path tmp = dir.resolve(PREFIX + day + ".seg.tmp");
+        Files.write(tmp, encodeSegment(day, sorted));
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        segments.put(day, Segment.map(file, generation));
+        if (old != null) retire(old.file);
+    }
+
+    /** Deletes a superseded segment file; one still mapped (on Windows) stays until the next start. */
+    private static void retire(Path f) {
+        try {
+            Files.deleteIfExists(f);
+        } catch (IOException e) {
+            LOG.fine("superseded invoice segment " + f + " is still in use, deleting it on the next start");
+        }
+    }
+
+    private void load() throws IOException {
+        File[] files = dir.toFile().listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(".seg"));
+        if (files != null) {
+            // newest generation first, so each day maps its latest readable segment and drops the rest
+            Arrays.sort(files, Comparator.comparing((File f) -> dayOf(f.getName()))
+                    .thenComparing(Comparator.comparingInt((File f) -> generationOf(f.getName())).reversed()));
+            for (File f : files) {
+                LocalDate day = dayOf(f.getName());
+                if (segments.containsKey(day)) {
+                    retire(f.toPath());
+                    continue;
+                }
+                try {
+                    segments.put(day, Segment.map(f.toPath(), generationOf(f.getName())));
+                } catch (IOException e) {
+                    LOG.log(Level.SEVERE, "skipping unreadable invoice segment " + f, e);
+                }
+            }
+        }
+        for (LocalDate d : walDays()) {
+            if (latestDay == null || d.isAfter(latestDay)) latestDay = d;
+        }
+        // older days left open by a crash or a restart are sealed now; the latest stays open
+        for (LocalDate d : walDays()) {
+            if (d.isBefore(latestDay)) {
+                seal(d);
+            } else {
+                List<Record> rows = new ArrayList<>();
+                long good = readWal(walFile(d), rows);
+                for (Record r : rows) open.put(r.invoiceID, r);
+                FileChannel ch = FileChannel.open(walFile(d), StandardOpenOption.WRITE);
+                if (good < ch.size()) {
+                    // rows appended after torn bytes would never be read back
+                    ch.truncate(good);
+                    ch.force(false);
+                }
+                wals.put(d, ch);
+            }
+        }
+    }
+
+    private List<LocalDate> walDays() {
+        List<LocalDate> days = new ArrayList<>();
+        File[] files = dir.toFile().listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(".wal"));
+        if (files != null) {
+            for (File f : files) days.add(dayOf(f.getName()));
+        }
+        // oldest first, so an invoice amended on a later day is sealed into that day
+        Collections.sort(days);
+        return days;
+    }
+
+    // ---- row log ----------------------------------------------------------
+
+    private static void writeRow(ByteArrayOutputStream out, Record r) {
+        ByteArrayOutputStream row = new ByteArrayOutputStream(64);
+        writeVarLong(row, r.invoiceID);
+        writeVarLong(row, r.table);
+        writeString(row, r.waiter);
+        writeVarLong(row, r.timeMillis);
+        writeVarLong(row, r.totalCents);
+        writeVarLong(row, r.names.length);
+        for (int i = 0; i < r.names.length; i++) {
+            writeString(row, r.names[i]);
+            writeVarLong(row, r.unitCents[i]);
+            writeVarLong(row, r.quantities[i]);
+        }
+        writeVarLong(out, row.size());
+        out.write(row.toByteArray(), 0, row.size());
+    }
+
+    /** Adds the rows of a row log to {@code rows}, stopping at a torn last row; returns the length of the good part. */
+    private static long readWal(Path f, List<Record> rows) throws IOException {
+        if (!Files.exists(f)) return 0;
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(f));
+        while (in.hasRemaining()) {
+            int start = in.position();
+            try {
+                int len = (int) readVarLong(in);
+                if (len > in.remaining()) throw new IllegalStateException();
+                ByteBuffer row = in.slice();
+                row.limit(len);
+                in.position(in.position() + len);
+                int id = (int) readVarLong(row);
+                int table = (int) readVarLong(row);
+                String waiter = readString(row);
+                long time = readVarLong(row);
+                long total = readVarLong(row);
+                int n = (int) readVarLong(row);
+                String[] names = new String[n];
+                long[] unit = new long[n];
+                int[] qty = new int[n];
+                for (int i = 0; i < n; i++) {
+                    names[i] = readString(row);
+                    unit[i] = readVarLong(row);
+                    qty[i] = (int) readVarLong(row);
+                }
+                rows.add(new Record(id, table, waiter, time, total, names, unit, qty));
+            } catch (RuntimeException e) {
+                LOG.warning(f + ": ignoring " + (in.limit() - start) + " bytes of a torn row at offset " + start);
+                return start;
+            }
+        }
+        return in.position();
+    }
+
+    // ---- segments ---------------------------------------------------------
+
+    /*
+     * Segment layout, all big-endian:
+     *   header (64 bytes): magic, version, day, rows, groups, min/max time, the offsets
+     *                      of the group directory, invoice index and dictionaries, min/max invoice
+     *   group directory:   per group first row, row count, min/max time, data offset,
+     *                      deflated and raw length (36 bytes)
+     *   invoice index:     (invoice, row) pairs sorted by invoice
+     *   dictionaries:      waiter names, then (item name, unit price) pairs, shared by all groups
+     *   group data:        deflated columns: time deltas, invoice deltas, table, waiter,
+     *                      total, line count, then per line item and quantity
+     */
+
+    private static byte[] encodeSegment(LocalDate day, Record[] rows) {
+        Map<String, Integer> waiters = new LinkedHashMap<>();
+        Map<String, Integer> items = new LinkedHashMap<>();
+        for (Record r : rows) {
+            if (r.waiter != null) waiters.putIfAbsent(r.waiter, waiters.size());
+            for (int i = 0; i < r.names.length; i++) {
+                String key = r.names[i] + '\u0000' + r.unitCents[i];
+                items.putIfAbsent(key, items.size());
+            }
+        }
+
+        int groups = (rows.length + GROUP_ROWS - 1) / GROUP_ROWS;
+        ByteArrayOutputStream dict = new ByteArrayOutputStream();
+        writeVarLong(dict, waiters.size());
+        for (String w : waiters.keySet()) writeString(dict, w);
+        writeVarLong(dict, items.size());
+        for (String key : items.keySet()) {
+            int cut = key.lastIndexOf('\u0000');
+            writeString(dict, key.substring(0, cut));
+            writeVarLong(dict, Long.parseLong(key.substring(cut + 1)));
+        }
+        byte[] dictBytes = dict.toByteArray();
+
+        List<byte[]> data = new ArrayList<>(groups);
+        int[] rawLengths = new int[groups];
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        for (int g = 0; g < groups; g++) {
+            int from = g * GROUP_ROWS, to = Math.min(rows.length, from + GROUP_ROWS);
+            byte[] raw = encodeGroup(rows, from, to, waiters, items);
+            rawLengths[g] = raw.length;
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream z = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) z.write(chunk, 0, deflater.deflate(chunk));
+            data.add(z.toByteArray());
+        }
+        deflater.end();
+
+        int groupDir = HEADER_BYTES;
+        int idIndex = groupDir + groups * GROUP_ENTRY_BYTES;
+        int dictOffset = idIndex + rows.length * 8;
+        int dataOffset = dictOffset + dictBytes.length;
+        int size = dataOffset;
+        for (byte[] d : data) size += d.length;
+        long[] byId = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) byId[i] = ((long) rows[i].invoiceID << 32) | i;
+        Arrays.sort(byId);
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+        out.putLong(day.toEpochDay());
+        out.putInt(rows.length).putInt(groups);
+        out.putLong(rows.length == 0 ? 0 : rows[0].timeMillis).putLong(rows.length == 0 ? 0 : rows[rows.length - 1].timeMillis);
+        out.putInt(groupDir).putInt(idIndex).putInt(dictOffset);
+        out.putInt(rows.length == 0 ? 0 : (int) (byId[0] >>> 32)).putInt(rows.length == 0 ? -1 : (int) (byId[rows.length - 1] >>> 32));
+        out.position(HEADER_BYTES);
+        int offset = dataOffset;
+        for (int g = 0; g < groups; g++) {
+            int from = g * GROUP_ROWS, to = Math.min(rows.length, from + GROUP_ROWS);
+            out.putInt(from).putInt(to - from);
+            out.putLong(rows[from].timeMillis).putLong(rows[to - 1].timeMillis);
+            out.putInt(offset).putInt(data.get(g).length).putInt(rawLengths[g]);
+            offset += data.get(g).length;
+        }
+        for (long e : byId) out.putInt((int) (e >>> 32)).putInt((int) e);
+        out.put(dictBytes);
+        for (byte[] d : data) out.put(d);
+        return out.array();
+    }
+
+    private static byte[] encodeGroup(Record[] rows, int from, int to, Map<String, Integer> waiters, Map<String, Integer> items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((to - from) * 16);
+        long prevTime = 0;
+        for (int i = from; i < to; i++) {
+            writeVarLong(out, rows[i].timeMillis - prevTime);
+            prevTime = rows[i].timeMillis;
+        }
+        long prevId = 0;
+        for (int i = from; i < to; i++) {
+            writeVarLong(out, zigzag(rows[i].invoiceID - prevId));
+            prevId = rows[i].invoiceID;
+        }
+        for (int i = from; i < to; i++) writeVarLong(out, rows[i].table);
+        for (int i = from; i < to; i++) writeVarLong(out, rows[i].waiter == null ? 0 : waiters.get(rows[i].waiter) + 1);
+        for (int i = from; i < to; i++) writeVarLong(out, zigzag(rows[i].totalCents));
+        for (int i = from; i < to; i++) writeVarLong(out, rows[i].names.length);
+        for (int i = from; i < to; i++) {
+            Record r = rows[i];
+            for (int k = 0; k < r.names.length; k++) writeVarLong(out, items.get(r.names[k] + '\u0000' + r.unitCents[k]));
+        }
+        for (int i = from; i < to; i++) {
+            for (int q : rows[i].quantities) writeVarLong(out, q);
+        }
+        return out.toByteArray();
+    }
+
+    /** A sealed day, read through a read-only mapping. */
+    private static final class Segment {
+        final Path file;
+        final int generation;
+        final MappedByteBuffer map;
+        final int rows;
+        final int groups;
+        final long minTime;
+        final long maxTime;
+        final int groupDir;
+        final int idIndex;
+        final int minId;
+        final int maxId;
+        final String[] waiters;
+        final String[] itemNames;
+        final long[] itemCents;
+
+        private Segment(Path file, int generation, MappedByteBuffer map) throws IOException {
+            this.file = file;
+            this.generation = generation;
+            this.map = map;
+            if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC || map.getShort(4) != VERSION) {
+                throw new IOException("not an invoice segment");
+            }
+            rows = map.getInt(16);
+            groups = map.getInt(20);
+            minTime = map.getLong(24);
+            maxTime = map.getLong(32);
+            groupDir = map.getInt(40);
+            idIndex = map.getInt(44);
+            minId = map.getInt(52);
+            maxId = map.getInt(56);
+            ByteBuffer dict = map.duplicate();
+            dict.position(map.getInt(48));
+            waiters = new String[(int) readVarLong(dict)];
+            for (int i = 0; i < waiters.length; i++) waiters[i] = readString(dict);
+            int n = (int) readVarLong(dict);
+            itemNames = new String[n];
+            itemCents = new long[n];
+            for (int i = 0; i < n; i++) {
+                itemNames[i] = readString(dict);
+                itemCents[i] = readVarLong(dict);
+            }
+        }
+
+        static Segment map(Path f, int generation) throws IOException {
+            try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+                return new Segment(f, generation, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+            } catch (RuntimeException e) {
+                throw new IOException(f + ": corrupt invoice segment", e);
+            }
+        }
+
+        Record lookup(int invoiceID) throws IOException {
+            int row = rowOf(invoiceID);
+            if (row < 0) return null;
+            int g = row / GROUP_ROWS;
+            return decodeGroup(g, row - g * GROUP_ROWS)[0];
+        }
+
+        boolean contains(int invoiceID) {
+            return rowOf(invoiceID) >= 0;
+        }
+
+        /** The invoice's row, found in the index without inflating anything; -1 if it isn't here. */
+        private int rowOf(int invoiceID) {
+            if (rows == 0 || invoiceID < minId || invoiceID > maxId) return -1;
+            int lo = 0, hi = rows - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int id = map.getInt(idIndex + mid * 8);
+                if (id < invoiceID) {
+                    lo = mid + 1;
+                } else if (id > invoiceID) {
+                    hi = mid - 1;
+                } else {
+                    return map.getInt(idIndex + mid * 8 + 4);
+                }
+            }
+            return -1;
+        }
+
+        int scan(long fromMillis, long toMillis, Consumer<Record> sink) throws IOException {
+            if (rows == 0 || maxTime < fromMillis || minTime >= toMillis) return 0;
+            int n = 0;
+            for (int g = 0; g < groups; g++) {
+                int e = groupDir + g * GROUP_ENTRY_BYTES;
+                if (map.getLong(e + 16) < fromMillis || map.getLong(e + 8) >= toMillis) continue;
+                for (Record r : decodeGroup(g, -1)) {
+                    if (r.timeMillis >= fromMillis && r.timeMillis < toMillis) {
+                        sink.accept(r);
+                        n++;
+                    }
+                }
+            }
+            return n;
+        }
+
+        /** All rows of group {@code g}, or just row {@code only} of it if that isn't -1. */
+        private Record[] decodeGroup(int g, int only) throws IOException {
+            int e = groupDir + g * GROUP_ENTRY_BYTES;
+            int count = map.getInt(e + 4);
+            ByteBuffer z = map.duplicate();
+            z.position(map.getInt(e + 24));
+            z.limit(map.getInt(e + 24) + map.getInt(e + 28));
+            ByteBuffer in = ByteBuffer.allocate(map.getInt(e + 32));
+            Inflater inflater = INFLATER.get();
+            inflater.reset();
+            try {
+                inflater.setInput(z);
+                while (in.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(in) == 0 && inflater.needsInput()) break;
+                }
+            } catch (DataFormatException ex) {
+                throw new IOException("corrupt invoice group " + g, ex);
+            }
+            in.flip();
+
+            long[] time = new long[count];
+            int[] id = new int[count];
+            int[] table = new int[count];
+            int[] waiter = new int[count];
+            long[] total = new long[count];
+            int[] lines = new int[count];
+            long t = 0, prevId = 0;
+            for (int i = 0; i < count; i++) time[i] = t += readVarLong(in);
+            for (int i = 0; i < count; i++) id[i] = (int) (prevId += unzigzag(readVarLong(in)));
+            for (int i = 0; i < count; i++) table[i] = (int) readVarLong(in);
+            for (int i = 0; i < count; i++) waiter[i] = (int) readVarLong(in);
+            for (int i = 0; i < count; i++) total[i] = unzigzag(readVarLong(in));
+            for (int i = 0; i < count; i++) lines[i] = (int) readVarLong(in);
+            int[][] item = new int[count][];
+            for (int i = 0; i < count; i++) {
+                item[i] = new int[lines[i]];
+                for (int k = 0; k < lines[i]; k++) item[i][k] = (int) readVarLong(in);
+            }
+            Record[] out = new Record[only < 0 ? count : 1];
+            for (int i = 0; i < count; i++) {
+                if (only >= 0 && i != only) {
+                    for (int k = 0; k < lines[i]; k++) readVarLong(in);
+                    continue;
+                }
+                String[] names = new String[lines[i]];
+                long[] unit = new long[lines[i]];
+                int[] qty = new int[lines[i]];
+                for (int k = 0; k < lines[i]; k++) {
+                    names[k] = itemNames[item[i][k]];
+                    unit[k] = itemCents[item[i][k]];
+                    qty[k] = (int) readVarLong(in);
+                }
+                out[only < 0 ? i : 0] = new Record(id[i], table[i], waiter[i] == 0 ? null : waiters[waiter[i] - 1], time[i], total[i], names, unit, qty);
+            }
+            return out;
+        }
+    }
+
+    // ---- encoding helpers -------------------------------------------------
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+    private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    /** UTF-8 prefixed with its length plus one; 0 stands for null. */
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        if (s == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, b.length + 1L);
+        out.write(b, 0, b.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = (int) readVarLong(in) - 1;
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        try {
+            if (ch != null) ch.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "could not close invoice row log", e);
+        }
+    }
+
+    private LocalDate dayOf(long timeMillis) {
+        return Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate();
+    }
+
+    private static LocalDate dayOf(String fileName) {
+        return LocalDate.parse(fileName.substring(PREFIX.length(), PREFIX.length() + 10));
+    }
+
+    private Path walFile(LocalDate day) {
+        return dir.resolve(PREFIX + day + ".wal");
+    }
+
+    /** {@code invoices-<day>.seg}, or {@code invoices-<day>.<generation>.seg} once the day was rewritten. */
+    private Path segmentFile(LocalDate day, int generation) {
+        return dir.resolve(PREFIX + day + (generation == 0 ? "" : "." + generation) + ".seg");
+    }
+
+    private static int generationOf(String fileName) {
+        String rest = fileName.substring(PREFIX.length() + 10, fileName.length() - ".seg".length());
+        try {
+            return rest.isEmpty() ? 0 : Integer.parseInt(rest.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Sends DONE orders to the kitchen. Each committed order is split into one
+ * ticket per station that has lines on it; tickets go into that station's
+ * bounded lock-free queue and a consumer thread per station moves them onto
+ * its {@link KitchenDisplay}. Queue wait (publish to pickup) and fulfilment
+ * (publish to bump) are recorded per station.
+ *
+ * <p>An order DONE again after an amendment doesn't go out as a fresh
+ * ticket: a station whose lines didn't change gets nothing, and one whose
+ * lines did gets an amended ticket that replaces its last one, with the full
+ * list and what changed on each line. What was sent per invoice is kept
+ * until its table is cleared.
+ */
+class Kitchen {
+
+    private static final Logger LOG = Logger.getLogger(Kitchen.class.getName());
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    enum Station {
+        MAINS("Mains"), DESSERTS("Desserts"), DRINKS("Drinks");
+
+        final String label;
+
+        Station(String label) { this.label = label; }
+
+        /** Routes a menu item by its catalog category, falling back to its product type. */
+        static Station of(String category, Product p) {
+            String c = category.toLowerCase(Locale.ROOT);
+            if (c.contains("dessert") || c.contains("cake") || c.contains("sweet")) return DESSERTS;
+            if (c.contains("drink") || c.contains("beverage")) return DRINKS;
+            return p instanceof Drink ? DRINKS : MAINS;
+        }
+    }
+
+    /**
+     * One station's share of an order. Immutable once published. Revision 1
+     * is the first ticket for the invoice; a later one replaces the one
+     * before it and lists the whole order for the station again, including
+     * lines cut to 0, with {@code previous} holding what the replaced
+     * ticket said for each line (null if that isn't known, e.g. after a
+     * restart).
+     */
+    static final class Ticket {
+        final int invoiceID;
+        final String tableLabel;
+        final String waiter;
+        final Station station;
+        final String[] names;
+        final int[] quantities;
+        final int revision;
+        final int[] previous;
+        final long createdNanos;
+
+        Ticket(int invoiceID, String tableLabel, String waiter, Station station,
+               String[] names, int[] quantities, int revision, int[] previous, long createdNanos) {
+            this.invoiceID = invoiceID;
+            this.tableLabel = tableLabel;
+            this.waiter = waiter;
+            this.station = station;
+            this.names = names;
+            this.quantities = quantities;
+            this.revision = revision;
+            this.previous = previous;
+            this.createdNanos = createdNanos;
+        }
+
+        int lineCount() { return names.length; }
+
+        boolean isAmended() { return revision > 1; }
+
+        /** An amendment that took every line off the station. */
+        boolean isCancelled() {
+            for (int q : quantities) if (q != 0) return false;
+            return true;
+        }
+
+        /** How line {@code i} changed from the replaced ticket: "", "+2", "-1", "NEW" or "CANCEL". */
+        String change(int i) {
+            if (previous == null || previous[i] == quantities[i]) return "";
+            if (quantities[i] == 0) return "CANCEL";
+            if (previous[i] == 0) return "NEW";
+            int d = quantities[i] - previous[i];
+            return d > 0 ? "+" + d : Integer.toString(d);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append('#').append(invoiceID);
+            if (isAmended()) sb.append(" AMENDED");
+            sb.append(' ').append(tableLabel);
+            for (int i = 0; i < names.length; i++) {
+                sb.append(i == 0 ? ": " : ", ").append(quantities[i]).append("x ").append(names[i]);
+                String c = change(i);
+                if (!c.isEmpty()) sb.append(" (").append(c).append(')');
+            }
+            return sb.toString();
+        }
+    }
+
+    /** The lines last sent for an invoice, item-sorted, and each station's ticket revision. */
+    private static final class Sent {
+        final int[] items;
+        final int[] quantities;
+        final int[] revisions;
+
+        Sent(int[] items, int[] quantities, int[] revisions) {
+            this.items = items;
+            this.quantities = quantities;
+            this.revisions = revisions;
+        }
+
+        int quantity(int item) {
+            int k = Arrays.binarySearch(items, item);
+            return k < 0 ? 0 : quantities[k];
+        }
+    }
+
+    // tables are normally cleared long before this many invoices are open
+    private static final int MAX_SENT = 4096;
+
+    private final MenuCatalog catalog;
+    private final Station[] stationOf;
+    private final RingQueue<Ticket>[] queues;
+    private final KitchenDisplay[] displays;
+    private final LatencyHistogram[] queueWait;
+    private final LatencyHistogram[] fulfilment;
+    private final Thread[] consumers;
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile Consumer<Ticket> printer;
+    private volatile boolean running = true;
+    // guarded by itself
+    private final Map<Integer, Sent> sent = new LinkedHashMap<Integer, Sent>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Sent> eldest) {
+            return size() > MAX_SENT;
+        }
+    };
+
+    Kitchen(MenuCatalog catalog, int queueCapacity) {
+        this.catalog = catalog;
+        this.stationOf = new Station[catalog.size()];
+        for (int i = 0; i < stationOf.length; i++) {
+            stationOf[i] = Station.of(catalog.categories().get(catalog.categoryOf(i)), catalog.product(i));
+        }
+        int n = Station.values().length;
+        queues = newQueues(n);
+        displays = new KitchenDisplay[n];
+        queueWait = new LatencyHistogram[n];
+        fulfilment = new LatencyHistogram[n];
+        consumers = new Thread[n];
+        for (Station s : Station.values()) {
+            int i = s.ordinal();
+            queues[i] = new RingQueue<>(queueCapacity);
+            queueWait[i] = new LatencyHistogram();
+            fulfilment[i] = new LatencyHistogram();
+            displays[i] = new KitchenDisplay(s, fulfilment[i]);
+            consumers[i] = new Thread(() -> drain(s), "kitchen-" + s.name().toLowerCase(Locale.ROOT));
+            consumers[i].setDaemon(true);
+            consumers[i].start();
+        }
+    }
+
+    Station stationOf(int item) { return stationOf[item]; }
+    KitchenDisplay display(Station s) { return displays[s.ordinal()]; }
+    LatencyHistogram queueWait(Station s) { return queueWait[s.ordinal()]; }
+    LatencyHistogram fulfilment(Station s) { return fulfilment[s.ordinal()]; }
+    int queued(Station s) { return queues[s.ordinal()].size(); }
+    long rejected() { return rejected.get(); }
+
+    /** Called on the station's thread for every ticket it picks up, e.g. to print it; must not block. */
+    void setTicketPrinter(Consumer<Ticket> printer) { this.printer = printer; }
+
+    /**
+     * Splits a committed order into station tickets and queues them. Never
+     * blocks: a ticket for a station whose queue is full is counted and
+     * logged instead. {@code amended} says the order had been DONE before;
+     * stations whose lines are unchanged since then get no ticket. Returns
+     * the number of tickets queued.
+     */
+    int publish(TableOrder order, String tableLabel, String waiter, boolean amended) {
+        long now = System.nanoTime();
+        int invoiceID = order.getInvoiceID();
+        int lines = 0;
+        for (int k = 0; k < order.lineCount(); k++) {
+            if (order.lineQuantity(k) > 0 && order.isLinePurchased(k)) lines++;
+        }
+        int[] items = new int[lines];
+        int[] qtys = new int[lines];
+        for (int k = 0, n = 0; k < order.lineCount(); k++) {
+            if (order.lineQuantity(k) > 0 && order.isLinePurchased(k)) {
+                items[n] = order.lineItem(k);
+                qtys[n++] = order.lineQuantity(k);
+            }
+        }
+
+        int n = Station.values().length;
+        Sent before;
+        int[] revisions = new int[n];
+        List<Ticket> tickets = new ArrayList<>(n);
+        synchronized (sent) {
+            before = sent.get(invoiceID);
+            for (Station s : Station.values()) {
+                Ticket t = ticket(s, invoiceID, tableLabel, waiter, items, qtys, before, amended, now);
+                int i = s.ordinal();
+                revisions[i] = t != null ? t.revision : before != null ? before.revisions[i] : 0;
+                if (t != null) tickets.add(t);
+            }
+            sent.put(invoiceID, new Sent(items, qtys, revisions));
+        }
+
+        int published = 0;
+        for (Ticket t : tickets) {
+            int i = t.station.ordinal();
+            if (queues[i].offer(t)) {
+                LockSupport.unpark(consumers[i]);
+                published++;
+            } else {
+                rejected.incrementAndGet();
+                LOG.warning(t.station.label + " queue is full, dropped ticket for invoice " + t.invoiceID);
+            }
+        }
+        return published;
+    }
+
+    /** The invoice's table was cleared; it can't be amended any more. */
+    void settle(int invoiceID) {
+        synchronized (sent) {
+            sent.remove(invoiceID);
+        }
+    }
+
+    /** Station {@code s}'s ticket for the order's lines, or null if it has nothing new to tell the station. */
+    private Ticket ticket(Station s, int invoiceID, String tableLabel, String waiter,
+                          int[] items, int[] qtys, Sent before, boolean amended, long now) {
+        int i = s.ordinal();
+        int[] was = before == null ? null : before.items;
+        // the station's lines now and in the last ticket, merged in item order
+        List<Integer> merged = new ArrayList<>();
+        int a = 0, b = 0;
+        while (a < items.length || (was != null && b < was.length)) {
+            int next;
+            if (was == null || b >= was.length) next = items[a++];
+            else if (a >= items.length) next = was[b++];
+            else if (items[a] < was[b]) next = items[a++];
+            else if (items[a] > was[b]) next = was[b++];
+            else { next = items[a++]; b++; }
+            if (stationOf[next] == s) merged.add(next);
+        }
+        if (merged.isEmpty()) return null;
+
+        int[] quantities = new int[merged.size()];
+        int[] previous = before == null || before.revisions[i] == 0 ? null : new int[merged.size()];
+        boolean changed = previous == null;
+        String[] names = new String[merged.size()];
+        for (int k = 0; k < names.length; k++) {
+            int item = merged.get(k);
+            names[k] = catalog.product(item).getName();
+            int at = Arrays.binarySearch(items, item);
+            quantities[k] = at < 0 ? 0 : qtys[at];
+            if (previous != null) {
+                previous[k] = before.quantity(item);
+                changed |= previous[k] != quantities[k];
+            }
+        }
+        if (!changed) return null;
+        int revision;
+        if (previous != null) {
+            revision = before.revisions[i] + 1;
+        } else if (before == null && amended) {
+            // DONE before this process started; what went out then isn't known
+            revision = 2;
+        } else {
+            revision = 1;
+        }
+        if (previous == null) {
+            // a first ticket lists only what's ordered
+            int live = 0;
+            for (int q : quantities) if (q > 0) live++;
+            if (live == 0) return null;
+            if (live < names.length) {
+                String[] n = new String[live];
+                int[] q = new int[live];
+                for (int k = 0, m = 0; k < names.length; k++) {
+                    if (quantities[k] > 0) {
+                        n[m] = names[k];
+                        q[m++] = quantities[k];
+                    }
+                }
+                names = n;
+                quantities = q;
+            }
+        }
+        return new Ticket(invoiceID, tableLabel, waiter, s, names, quantities, revision, previous, now);
+    }
+
+    /** Multi-line per-station backlog and latency summary. */
+    String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Station s : Station.values()) {
+            int i = s.ordinal();
+            sb.append(String.format("%-9s open=%d queued=%d oldest=%s%n", s.label, displays[i].backlog(),
+                    queues[i].size(), LatencyHistogram.millis(displays[i].oldestAgeNanos())));
+            sb.append("  wait      ").append(queueWait[i].summary()).append('\n');
+            sb.append("  fulfilled ").append(fulfilment[i].summary()).append('\n');
+        }
+        if (rejected.get() > 0) sb.append("rejected tickets: ").append(rejected.get()).append('\n');
+        return sb.toString();
+    }
+
+    void close() {
+        running = false;
+        for (Thread t : consumers) LockSupport.unpark(t);
+    }
+
+    private void drain(Station s) {
+        int i = s.ordinal();
+        RingQueue<Ticket> q = queues[i];
+        while (running) {
+            Ticket t = q.poll();
+            if (t == null) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            queueWait[i].record(System.nanoTime() - t.createdNanos);
+            displays[i].show(t);
+            Consumer<Ticket> p = printer;
+            if (p != null) p.accept(t);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> RingQueue<T>[] newQueues(int n) {
+        return (RingQueue<T>[]) new RingQueue<?>[n];
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * What one kitchen station's screen shows: its open tickets, oldest first.
+ * Headless so it can be driven by the station consumer, a Swing view or a
+ * test harness alike. A ticket for an invoice that is already on the screen
+ * (the order was amended and DONE again) replaces the old one in place; one
+ * that cancels everything the station had takes it off.
+ */
+class KitchenDisplay {
+
+    /** Notified on the changing thread after tickets are added or bumped. */
+    interface Listener {
+        void displayChanged(KitchenDisplay display);
+    }
+
+    private final Kitchen.Station station;
+    private final Map<Integer, Kitchen.Ticket> open = new LinkedHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final LatencyHistogram fulfilment;
+
+    KitchenDisplay(Kitchen.Station station, LatencyHistogram fulfilment) {
+        this.station = station;
+        this.fulfilment = fulfilment;
+    }
+
+    Kitchen.Station station() { return station; }
+
+    void addListener(Listener l) { listeners.add(l); }
+    void removeListener(Listener l) { listeners.remove(l); }
+
+    void show(Kitchen.Ticket t) {
+        synchronized (this) {
+            if (t.isCancelled()) open.remove(t.invoiceID);
+            else open.put(t.invoiceID, t);
+        }
+        changed();
+    }
+
+    /** Marks the station's ticket for {@code invoiceID} as served; false if it wasn't open. */
+    boolean bump(int invoiceID) {
+        Kitchen.Ticket t;
+        synchronized (this) {
+            t = open.remove(invoiceID);
+        }
+        if (t == null) return false;
+        fulfilment.record(System.nanoTime() - t.createdNanos);
+        changed();
+        return true;
+    }
+
+    synchronized List<Kitchen.Ticket> openTickets() {
+        return new ArrayList<>(open.values());
+    }
+
+    synchronized int backlog() {
+        return open.size();
+    }
+
+    /** Age of the oldest open ticket, or 0 if the station is clear. */
+    synchronized long oldestAgeNanos() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (Kitchen.Ticket t : open.values()) oldest = Math.max(oldest, now - t.createdNanos);
+        return oldest;
+    }
+
+    private void changed() {
+        for (Listener l : listeners) l.displayChanged(this);
+    }
+}
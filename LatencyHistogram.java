@@ -0,0 +1,108 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: each power of two is
+ * split into {@value #SUB_BUCKETS} linear steps, so any recorded value is
+ * reported within about 12% while the whole range up to hours fits in a few
+ * hundred counters. Safe to record from any thread; percentiles are read
+ * without stopping writers and so are approximate under load.
+ *
+ * <p>Values are usually nanoseconds, and the {@code ...Nanos} accessors and
+ * {@link #summary} assume so. The buckets don't care about the unit: a
+ * histogram fed another one (milliseconds, say) is read back with
+ * {@link #percentile} and {@link #max}, in the unit it was fed.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    /** Largest value recorded, in the unit it was recorded in. */
+    long max() {
+        return max.get();
+    }
+
+    long maxNanos() {
+        return max();
+    }
+
+    long meanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / n;
+    }
+
+    /** Upper bound of the bucket holding the {@code p}-th percentile (0-100), or 0 if empty; in the unit recorded. */
+    long percentile(double p) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) return Math.min(upperBound(b), max.get());
+        }
+        return max.get();
+    }
+
+    long percentileNanos(double p) {
+        return percentile(p);
+    }
+
+    void reset() {
+        for (int b = 0; b < BUCKETS; b++) counts.set(b, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /** One-line summary in milliseconds, e.g. for logs and status labels. */
+    String summary() {
+        return String.format("n=%d p50=%s p90=%s p99=%s max=%s", count(),
+                millis(percentileNanos(50)), millis(percentileNanos(90)),
+                millis(percentileNanos(99)), millis(maxNanos()));
+    }
+
+    static String millis(long nanos) {
+        if (nanos >= TimeUnit.SECONDS.toNanos(10)) return (nanos / 1_000_000_000L) + "s";
+        return String.format("%.1fms", nanos / 1e6);
+    }
+
+    private static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v); // >= SUB_BITS
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        if (exp >= 62) return Long.MAX_VALUE;
+        long base = 1L << exp;
+        long step = 1L << (exp - SUB_BITS);
+        return base + (sub + 1) * step - 1;
+    }
+}
@@ -0,0 +1,108 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The menu: products in display order, the category each belongs to and its
+ * image. Loaded from a plain text file with one
+ * {@code category | food|drink | name | price | image} line per item;
+ * categories keep the order in which they first appear. Immutable once
+ * built, so every counter, order and renderer shares the same products.
+ */
+final class MenuCatalog {
+
+    /** Collects items in display order; {@link #build} freezes them. */
+    static final class Builder {
+        private final List<Product> products = new ArrayList<>();
+        private final List<String> imagePaths = new ArrayList<>();
+        private final List<String> categories = new ArrayList<>();
+        private int[] categoryOf = new int[16];
+
+        Builder add(String category, Product p, String imagePath) {
+            int c = categories.indexOf(category);
+            if (c < 0) {
+                c = categories.size();
+                categories.add(category);
+            }
+            if (products.size() == categoryOf.length) {
+                categoryOf = Arrays.copyOf(categoryOf, categoryOf.length * 2);
+            }
+            categoryOf[products.size()] = c;
+            products.add(p);
+            imagePaths.add(imagePath);
+            return this;
+        }
+
+        MenuCatalog build() {
+            return new MenuCatalog(this);
+        }
+    }
+
+    private final Product[] products;
+    private final String[] imagePaths;
+    private final List<String> categories;
+    private final int[] categoryOf;
+    private final List<Product> productList;
+
+    private MenuCatalog(Builder b) {
+        products = b.products.toArray(new Product[0]);
+        imagePaths = b.imagePaths.toArray(new String[0]);
+        categories = Collections.unmodifiableList(new ArrayList<>(b.categories));
+        categoryOf = Arrays.copyOf(b.categoryOf, products.length);
+        productList = Collections.unmodifiableList(Arrays.asList(products));
+    }
+
+    static MenuCatalog load(File f) throws IOException {
+        Builder catalog = new Builder();
+        try (BufferedReader r = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = r.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] cols = line.split("\\|");
+                if (cols.length < 4) {
+                    throw new IOException(f + ":" + lineNo + ": expected category | type | name | price | image");
+                }
+                String category = cols[0].trim();
+                String type = cols[1].trim();
+                String name = cols[2].trim();
+                String image = cols.length > 4 ? cols[4].trim() : "";
+                double price;
+                try {
+                    price = Double.parseDouble(cols[3].trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException(f + ":" + lineNo + ": bad price '" + cols[3].trim() + "'");
+                }
+                Product p;
+                if (type.equalsIgnoreCase("food")) p = new Food(name, price);
+                else if (type.equalsIgnoreCase("drink")) p = new Drink(name, price);
+                else throw new IOException(f + ":" + lineNo + ": type must be food or drink, got '" + type + "'");
+                catalog.add(category, p, image);
+            }
+        }
+        return catalog.build();
+    }
+
+    int size() { return products.length; }
+    Product product(int item) { return products[item]; }
+    String imagePath(int item) { return imagePaths[item]; }
+    int categoryOf(int item) { return categoryOf[item]; }
+    List<String> categories() { return categories; }
+    List<Product> products() { return productList; }
+
+    long[] priceCents() {
+        long[] prices = new long[products.length];
+        for (int i = 0; i < prices.length; i++) prices[i] = products[i].getPriceCents();
+        return prices;
+    }
+}
@@ -0,0 +1,370 @@
+package com.mycompany.restaurantsystem;
+
+import javax.swing.*;
+import javax.swing.border.LineBorder;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Virtualized menu card grid. Only the cards in (or next to) the viewport
+ * exist as components; scrolling hands cards that leave the view back to a
+ * pool and rebinds them to the items coming into view. Category titles are
+ * painted rather than built as components.
+ */
+class MenuGrid extends JComponent implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Called when the user edits a card's quantity or purchase box. */
+    interface Listener {
+        void cardChanged(int item, int qty, boolean purchased);
+    }
+
+    private static final int COLUMNS = 4;
+    private static final int PAD = 10;
+    private static final int GAP = 10;
+    private static final int CARD_HEIGHT = 210;
+    private static final int HEADER_HEIGHT = 60;
+    private static final int CATEGORY_GAP = 20;
+    // extra rows bound above and below the viewport so short scrolls don't rebind
+    private static final int OVERSCAN_ROWS = 1;
+
+    private final MenuCatalog catalog;
+    private final ThumbnailCache thumbnails;
+    private final Listener listener;
+    private final Color background;
+    private final Color titleColor;
+    private final Font titleFont = new Font("Times New Roman", Font.BOLD, 40);
+
+    // catalog indices in display order (grouped by category)
+    private int[] itemAt;
+    // layout: one entry per row; header rows have rowFirstItem -1
+    private int rowCount;
+    private int[] rowY;
+    private int[] rowFirstItem;
+    private int[] rowCategory;
+    private int totalHeight;
+
+    private final Map<Integer, CardView> bound = new HashMap<>();
+    private final ArrayDeque<CardView> pool = new ArrayDeque<>();
+    private TableOrder order;
+    private IntPredicate soldOut = item -> false;
+
+    MenuGrid(MenuCatalog catalog, ThumbnailCache thumbnails, Color background, Color titleColor, Listener listener) {
+        this.catalog = catalog;
+        this.thumbnails = thumbnails;
+        this.background = background;
+        this.titleColor = titleColor;
+        this.listener = listener;
+        setOpaque(true);
+        setLayout(null);
+        buildRows();
+    }
+
+    /**
+     * Shows {@code order}'s lines on the cards; the grid keeps reading from it
+     * until the next call. Only cards whose line differs from what they show
+     * are updated. Returns how many were.
+     */
+    int showOrder(TableOrder order) {
+        this.order = order;
+        int updated = 0;
+        for (CardView v : bound.values()) {
+            if (v.refresh()) updated++;
+        }
+        return updated;
+    }
+
+    /**
+     * Where cards learn that an item is sold out: such a card can't go above
+     * its current quantity or newly tick Purchase. Call {@link #refreshItem}
+     * when an item's state changes.
+     */
+    void setSoldOut(IntPredicate soldOut) {
+        this.soldOut = soldOut;
+        for (CardView v : bound.values()) v.refresh();
+    }
+
+    /** Re-reads one item from the current order and stock, if its card is on screen. */
+    void refreshItem(int item) {
+        CardView v = bound.get(item);
+        if (v != null) v.refresh();
+    }
+
+    /** Scrolls the item's card into view. */
+    void scrollToItem(int item) {
+        int pos = 0;
+        while (pos < itemAt.length && itemAt[pos] != item) pos++;
+        for (int r = rowCount - 1; r >= 0; r--) {
+            if (rowFirstItem[r] < 0 || rowFirstItem[r] > pos) continue;
+            int w = cardWidth();
+            scrollRectToVisible(new Rectangle(PAD + (pos - rowFirstItem[r]) * (w + GAP), rowY[r], w, CARD_HEIGHT));
+            return;
+        }
+    }
+
+    int boundCardCount() {
+        return bound.size();
+    }
+
+    private void buildRows() {
+        int n = catalog.size();
+        int categories = catalog.categories().size();
+        int maxRows = categories + (n + COLUMNS - 1) / COLUMNS + categories;
+        rowY = new int[maxRows];
+        rowFirstItem = new int[maxRows];
+        rowCategory = new int[maxRows];
+
+        // items are grouped by category in display order, even if the file interleaves them
+        int[] order = new int[n];
+        int k = 0;
+        for (int c = 0; c < categories; c++) {
+            for (int i = 0; i < n; i++) if (catalog.categoryOf(i) == c) order[k++] = i;
+        }
+        itemAt = order;
+
+        int rows = 0;
+        int y = PAD;
+        int pos = 0;
+        for (int c = 0; c < categories; c++) {
+            if (c > 0) y += CATEGORY_GAP;
+            rowY[rows] = y;
+            rowFirstItem[rows] = -1;
+            rowCategory[rows] = c;
+            rows++;
+            y += HEADER_HEIGHT;
+            while (pos < n && catalog.categoryOf(order[pos]) == c) {
+                rowY[rows] = y;
+                rowFirstItem[rows] = pos;
+                rowCategory[rows] = c;
+                rows++;
+                int inRow = 0;
+                while (pos < n && inRow < COLUMNS && catalog.categoryOf(order[pos]) == c) {
+                    pos++;
+                    inRow++;
+                }
+                y += CARD_HEIGHT + GAP;
+            }
+        }
+        rowCount = rows;
+        totalHeight = y + PAD;
+    }
+
+    private int cardWidth() {
+        return Math.max(120, (getWidth() - 2 * PAD - (COLUMNS - 1) * GAP) / COLUMNS);
+    }
+
+    @Override
+    public void doLayout() {
+        Rectangle view = getVisibleRect();
+        int top = view.y - OVERSCAN_ROWS * (CARD_HEIGHT + GAP);
+        int bottom = view.y + view.height + OVERSCAN_ROWS * (CARD_HEIGHT + GAP);
+        int w = cardWidth();
+
+        // find the visible item positions
+        Map<Integer, Rectangle> wanted = new HashMap<>();
+        for (int r = firstRowAtOrAfter(top); r < rowCount && rowY[r] < bottom; r++) {
+            if (rowFirstItem[r] < 0) continue;
+            int c = rowCategory[r];
+            for (int col = 0, pos = rowFirstItem[r]; col < COLUMNS && pos < itemAt.length && catalog.categoryOf(itemAt[pos]) == c; col++, pos++) {
+                wanted.put(itemAt[pos], new Rectangle(PAD + col * (w + GAP), rowY[r], w, CARD_HEIGHT));
+            }
+        }
+
+        // recycle cards that scrolled away
+        for (Iterator<Map.Entry<Integer, CardView>> it = bound.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, CardView> e = it.next();
+            if (!wanted.containsKey(e.getKey())) {
+                e.getValue().setVisible(false);
+                pool.push(e.getValue());
+                it.remove();
+            }
+        }
+        for (Map.Entry<Integer, Rectangle> e : wanted.entrySet()) {
+            CardView v = bound.get(e.getKey());
+            if (v == null) {
+                v = pool.isEmpty() ? newCard() : pool.pop();
+                v.bind(e.getKey());
+                v.setVisible(true);
+                bound.put(e.getKey(), v);
+            }
+            v.setBounds(e.getValue());
+        }
+    }
+
+    private int firstRowAtOrAfter(int y) {
+        int lo = 0;
+        int hi = rowCount - 1;
+        int ans = rowCount;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rowY[mid] + CARD_HEIGHT >= y) {
+                ans = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return ans;
+    }
+
+    private CardView newCard() {
+        CardView v = new CardView();
+        add(v);
+        return v;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport) {
+            ((JViewport) getParent()).addChangeListener(e -> doLayout());
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(background);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.setColor(titleColor);
+        g.setFont(titleFont);
+        FontMetrics fm = g.getFontMetrics();
+        for (int r = firstRowAtOrAfter(clip.y - HEADER_HEIGHT); r < rowCount && rowY[r] < clip.y + clip.height; r++) {
+            if (rowFirstItem[r] >= 0) continue;
+            String title = catalog.categories().get(rowCategory[r]);
+            int x = (getWidth() - fm.stringWidth(title)) / 2;
+            int y = rowY[r] + (HEADER_HEIGHT + fm.getAscent() - fm.getDescent()) / 2;
+            g.drawString(title, x, y);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(COLUMNS * (180 + GAP) + 2 * PAD, totalHeight);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return 24;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height - CARD_HEIGHT / 2 : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /** One recyclable menu card. */
+    private final class CardView extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        final JLabel imageLbl = new JLabel("", SwingConstants.CENTER);
+        final JLabel name = new JLabel("", SwingConstants.CENTER);
+        final JLabel price = new JLabel("", SwingConstants.CENTER);
+        final JSpinner spinner = new JSpinner(new SpinnerNumberModel(0, 0, 100, 1));
+        final JCheckBox purchase = new JCheckBox("Purchase");
+        int item = -1;
+        // what the widgets show, so a refresh can skip cards that are already right
+        int shownQty = -1;
+        boolean shownPurchased;
+        boolean shownSoldOut;
+        boolean binding;
+
+        CardView() {
+            super(new BorderLayout());
+            setBorder(new LineBorder(Color.GRAY, 1));
+            setBackground(Color.WHITE);
+
+            imageLbl.setPreferredSize(new Dimension(160, 130));
+            add(imageLbl, BorderLayout.NORTH);
+
+            JPanel center = new JPanel(new GridLayout(0, 1));
+            center.setBackground(Color.WHITE);
+            name.setFont(new Font("Serif", Font.BOLD, 14));
+            center.add(name);
+            center.add(price);
+            add(center, BorderLayout.CENTER);
+
+            JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER));
+            bottom.setBackground(Color.WHITE);
+            bottom.add(new JLabel("Quantity:"));
+            bottom.add(spinner);
+            bottom.add(purchase);
+            add(bottom, BorderLayout.SOUTH);
+
+            spinner.addChangeListener(e -> changed());
+            purchase.addItemListener(e -> changed());
+        }
+
+        void bind(int item) {
+            this.item = item;
+            Product p = catalog.product(item);
+            name.setText(p.getName());
+            shownQty = -1;
+            shownSoldOut = !soldOut.test(item); // forces the price label and limits below
+            imageLbl.setIcon(null);
+            imageLbl.setText("Loading...");
+            thumbnails.load(catalog.imagePath(item), 160, 100, icon -> {
+                if (this.item != item) return; // recycled meanwhile
+                if (icon != null) {
+                    imageLbl.setText("");
+                    imageLbl.setIcon(icon);
+                } else {
+                    imageLbl.setText("No Image");
+                }
+            });
+            refresh();
+        }
+
+        boolean refresh() {
+            int qty = order == null ? 0 : order.getQuantity(item);
+            boolean purchased = order != null && order.isPurchased(item);
+            boolean out = soldOut.test(item);
+            if (qty == shownQty && purchased == shownPurchased && out == shownSoldOut) return false;
+            binding = true;
+            try {
+                if (out != shownSoldOut) {
+                    price.setText(out ? "SOLD OUT" : "₱" + Calc.formatMoney(catalog.product(item).getPriceCents()));
+                    price.setForeground(out ? Color.RED : Color.BLACK);
+                }
+                // sold out: the line may shrink or be unticked, never grow
+                ((SpinnerNumberModel) spinner.getModel()).setMaximum(out ? Math.max(qty, 0) : 100);
+                spinner.setValue(qty);
+                purchase.setSelected(purchased);
+                purchase.setEnabled(!out || purchased);
+            } finally {
+                binding = false;
+            }
+            shownQty = qty;
+            shownPurchased = purchased;
+            shownSoldOut = out;
+            return true;
+        }
+
+        private void changed() {
+            if (binding || item < 0) return;
+            shownQty = (Integer) spinner.getValue();
+            shownPurchased = purchase.isSelected();
+            listener.cardChanged(item, (Integer) spinner.getValue(), purchase.isSelected());
+        }
+    }
+}
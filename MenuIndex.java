@@ -0,0 +1,277 @@
+package com.mycompany.restaurantsystem;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Type-ahead search over the menu's item names, built once per catalog.
+ * Every word of every name goes into one sorted array, so the items with a
+ * word starting with what was typed are a binary-searched range; a query of
+ * several words keeps the items matching all of them ("pork sin"). When
+ * prefixes find nothing, a trigram index catches typos ("crsipy pata").
+ * Matching ignores case and accents. A number in the query picks items by
+ * price, which tells the two "Plain Rice" apart ("rice 25").
+ *
+ * <p>{@link #search} is meant to run on every key press: it touches the
+ * matching words plus a pass over per-item scratch counters, well under a
+ * millisecond for thousands of items. Not thread-safe; the EDT owns it.
+ */
+class MenuIndex {
+
+    private final MenuCatalog catalog;
+    // every (word, item) pair, sorted by word; wordItem[k] is the item of words[k]
+    private final String[] words;
+    private final int[] wordItem;
+    // word position within its name, so first-word matches rank first
+    private final int[] wordPos;
+    private final String[] normalized;
+    private final boolean[] sharesName;
+    // trigram index: gramKeys sorted, items containing gramKeys[g] are gramItems[gramStart[g]..gramStart[g+1])
+    private final int[] gramKeys;
+    private final int[] gramStart;
+    private final int[] gramItems;
+
+    // per-search scratch, sized to the menu
+    private final int[] hits;
+    private final int[] stamp;
+    private int epoch;
+
+    MenuIndex(MenuCatalog catalog) {
+        this.catalog = catalog;
+        int n = catalog.size();
+        normalized = new String[n];
+        sharesName = new boolean[n];
+        hits = new int[n];
+        stamp = new int[n];
+
+        Map<String, Integer> firstWithName = new HashMap<>();
+        int total = 0;
+        String[][] split = new String[n][];
+        for (int i = 0; i < n; i++) {
+            normalized[i] = normalize(catalog.product(i).getName());
+            split[i] = normalized[i].isEmpty() ? new String[0] : normalized[i].split(" ");
+            total += split[i].length;
+            Integer other = firstWithName.putIfAbsent(normalized[i], i);
+            if (other != null) {
+                sharesName[i] = true;
+                sharesName[other] = true;
+            }
+        }
+
+        Integer[] order = new Integer[total];
+        String[] w = new String[total];
+        int[] it = new int[total];
+        int[] pos = new int[total];
+        for (int i = 0, k = 0; i < n; i++) {
+            for (int p = 0; p < split[i].length; p++, k++) {
+                w[k] = split[i][p];
+                it[k] = i;
+                pos[k] = p;
+                order[k] = k;
+            }
+        }
+        Arrays.sort(order, (a, b) -> w[a].compareTo(w[b]));
+        words = new String[total];
+        wordItem = new int[total];
+        wordPos = new int[total];
+        for (int k = 0; k < total; k++) {
+            words[k] = w[order[k]];
+            wordItem[k] = it[order[k]];
+            wordPos[k] = pos[order[k]];
+        }
+
+        // (trigram, item) pairs packed into longs sort into posting lists in one go
+        int grams = 0;
+        for (int i = 0; i < n; i++) grams += normalized[i].length();
+        long[] pairs = new long[grams];
+        int np = 0;
+        for (int i = 0; i < n; i++) {
+            String g = " " + normalized[i] + " ";
+            for (int k = 0; k + 3 <= g.length(); k++) pairs[np++] = ((long) trigram(g, k) << 32) | i;
+        }
+        Arrays.sort(pairs, 0, np);
+        int[] keys = new int[np];
+        int[] start = new int[np + 1];
+        int[] items = new int[np];
+        int nk = 0;
+        int ni = 0;
+        for (int k = 0; k < np; k++) {
+            if (k > 0 && pairs[k] == pairs[k - 1]) continue;
+            int key = (int) (pairs[k] >>> 32);
+            if (nk == 0 || keys[nk - 1] != key) {
+                keys[nk] = key;
+                start[nk++] = ni;
+            }
+            items[ni++] = (int) pairs[k];
+        }
+        start[nk] = ni;
+        gramKeys = Arrays.copyOf(keys, nk);
+        gramStart = Arrays.copyOf(start, nk + 1);
+        gramItems = Arrays.copyOf(items, ni);
+    }
+
+    int size() { return catalog.size(); }
+
+    /**
+     * How an item should be listed: its name, with the price when another
+     * item has the same name.
+     */
+    String label(int item) {
+        Product p = catalog.product(item);
+        return sharesName[item] ? p.getName() + "  ₱" + Calc.formatMoney(p.getPriceCents()) : p.getName();
+    }
+
+    /**
+     * The items matching {@code query}, best first, at most {@code limit}.
+     * Items whose name starts with the query come first, then items with a
+     * word starting with it, then (only if neither found anything) close
+     * misspellings; ties keep menu order.
+     */
+    int[] search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) return new int[0];
+        String[] terms = q.split(" ");
+        long priceCents = -1;
+        int textTerms = 0;
+        for (String t : terms) {
+            if (isPrice(t)) priceCents = Calc.toCents(Double.parseDouble(t));
+            else terms[textTerms++] = t;
+        }
+        int mark = ++epoch;
+        if (mark == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            mark = epoch = 1;
+        }
+
+        int found = 0;
+        if (textTerms > 0) {
+            // rank: 3 = the name starts with the first term, 2 = some word does; every other term must match a word too
+            int lo = lowerBound(terms[0]);
+            for (int k = lo; k < words.length && words[k].startsWith(terms[0]); k++) {
+                int i = wordItem[k];
+                int rank = wordPos[k] == 0 ? 3 : 2;
+                if (stamp[i] == mark && hits[i] >= rank) continue;
+                if (!matchesRest(i, terms, textTerms) || !priceMatches(i, priceCents)) continue;
+                if (stamp[i] != mark) found++;
+                stamp[i] = mark;
+                hits[i] = rank;
+            }
+            if (found == 0) found = fuzzy(String.join(" ", Arrays.copyOf(terms, textTerms)), priceCents, mark);
+        } else {
+            for (int i = 0; i < catalog.size(); i++) {
+                if (!priceMatches(i, priceCents)) continue;
+                stamp[i] = mark;
+                hits[i] = 1;
+                found++;
+            }
+        }
+        return best(mark, Math.min(found, limit));
+    }
+
+    /** Items sharing at least a third of the query's trigrams, scored by how many. */
+    private int fuzzy(String q, long priceCents, int mark) {
+        String s = " " + q + " ";
+        int grams = s.length() - 2;
+        if (grams < 3) return 0;
+        for (int k = 0; k < grams; k++) {
+            int g = Arrays.binarySearch(gramKeys, trigram(s, k));
+            if (g < 0) continue;
+            for (int p = gramStart[g]; p < gramStart[g + 1]; p++) {
+                int i = gramItems[p];
+                if (stamp[i] != mark) {
+                    stamp[i] = mark;
+                    hits[i] = 0;
+                }
+                hits[i]++;
+            }
+        }
+        // a swapped pair of letters costs up to three trigrams, so a third is enough
+        int need = Math.max(2, (grams + 2) / 3);
+        int found = 0;
+        for (int i = 0; i < catalog.size(); i++) {
+            if (stamp[i] != mark) continue;
+            if (hits[i] < need || !priceMatches(i, priceCents)) {
+                stamp[i] = 0;
+                continue;
+            }
+            found++;
+        }
+        return found;
+    }
+
+    private int[] best(int mark, int count) {
+        int[] out = new int[count];
+        int n = 0;
+        // a few ranks at most; select the best remaining by scanning, which keeps menu order within a rank
+        int floor = Integer.MAX_VALUE;
+        while (n < count) {
+            int top = -1;
+            for (int i = 0; i < catalog.size(); i++) {
+                if (stamp[i] == mark && hits[i] < floor && hits[i] > top) top = hits[i];
+            }
+            if (top < 0) break;
+            for (int i = 0; i < catalog.size() && n < count; i++) {
+                if (stamp[i] == mark && hits[i] == top) out[n++] = i;
+            }
+            floor = top;
+        }
+        return n == count ? out : Arrays.copyOf(out, n);
+    }
+
+    private boolean matchesRest(int item, String[] terms, int textTerms) {
+        if (textTerms == 1) return true;
+        String name = " " + normalized[item];
+        for (int t = 1; t < textTerms; t++) {
+            if (!name.contains(" " + terms[t])) return false;
+        }
+        return true;
+    }
+
+    private boolean priceMatches(int item, long priceCents) {
+        return priceCents < 0 || catalog.product(item).getPriceCents() == priceCents;
+    }
+
+    private int lowerBound(String prefix) {
+        int lo = 0;
+        int hi = words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (words[mid].compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean isPrice(String t) {
+        int dots = 0;
+        for (int k = 0; k < t.length(); k++) {
+            char c = t.charAt(k);
+            if (c == '.') dots++;
+            else if (c < '0' || c > '9') return false;
+        }
+        return dots <= 1 && t.length() > dots;
+    }
+
+    private static int trigram(String s, int k) {
+        // 10 bits a char keeps the key positive; non-Latin letters may share keys, which only costs precision
+        return ((s.charAt(k) & 0x3ff) << 20) | ((s.charAt(k + 1) & 0x3ff) << 10) | (s.charAt(k + 2) & 0x3ff);
+    }
+
+    /** Lower case, accents dropped, anything but letters, digits and '.' turned into single spaces. */
+    static String normalize(String s) {
+        String d = Normalizer.normalize(s, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(d.length());
+        for (int k = 0; k < d.length(); k++) {
+            char c = d.charAt(k);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c) || c == '.') sb.append(c);
+            else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') sb.setLength(end - 1);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.mycompany.restaurantsystem;
+
+interface MenuOperations {
+    void resetOrder();
+    double computeSubTotal();
+    double computeTax();
+    double computeTotal();
+}
@@ -0,0 +1,224 @@
+package com.mycompany.restaurantsystem;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+
+/**
+ * Process-wide timers for the UI handlers, plus a watchdog that notices when
+ * the Swing event thread stops answering. Timers are lock-free histograms, so
+ * recording costs two {@code nanoTime} calls and a few atomic adds. Everything
+ * is published as the {@code com.mycompany.restaurantsystem:type=Metrics}
+ * MXBean and summarised to the log every {@code restaurant.metricsLogSeconds}
+ * (default 60, 0 to disable).
+ */
+final class Metrics {
+
+    private static final Logger LOG = Logger.getLogger(Metrics.class.getName());
+
+    private static final Map<String, LatencyHistogram> TIMERS = new ConcurrentHashMap<>();
+    private static EdtWatchdog watchdog;
+
+    private Metrics() {
+    }
+
+    /** The named timer, created on first use. */
+    static LatencyHistogram timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /** Starts the EDT watchdog, the JMX bean and the periodic log; later calls do nothing. */
+    static synchronized void start() {
+        if (watchdog != null) return;
+        long stallMillis = Math.max(10, Long.getLong("restaurant.edtStallMillis", 200));
+        watchdog = new EdtWatchdog(TimeUnit.MILLISECONDS.toNanos(stallMillis));
+        watchdog.start();
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(),
+                    new ObjectName("com.mycompany.restaurantsystem:type=Metrics"));
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "could not register the metrics MXBean", e);
+        }
+
+        long logSeconds = Long.getLong("restaurant.metricsLogSeconds", 60);
+        if (logSeconds > 0) {
+            Thread t = new Thread(() -> {
+                long lastEvents = 0;
+                while (true) {
+                    try {
+                        Thread.sleep(TimeUnit.SECONDS.toMillis(logSeconds));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    // an idle counter doesn't need the same summary every minute
+                    long events = watchdog.stalls.count();
+                    for (LatencyHistogram h : TIMERS.values()) events += h.count();
+                    if (events != lastEvents) LOG.info(summary());
+                    lastEvents = events;
+                }
+            }, "metrics-log");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    static String summary() {
+        StringBuilder sb = new StringBuilder("metrics:");
+        for (Map.Entry<String, LatencyHistogram> e : sorted().entrySet()) {
+            sb.append("\n  ").append(String.format("%-20s", e.getKey())).append(e.getValue().summary());
+        }
+        EdtWatchdog w = watchdog;
+        if (w != null) sb.append("\n  ").append(String.format("%-20s", "edt stalls")).append(w.stalls.summary());
+        return sb.toString();
+    }
+
+    private static Map<String, LatencyHistogram> sorted() {
+        Map<String, LatencyHistogram> m = new LinkedHashMap<>();
+        TIMERS.keySet().stream().sorted().forEach(k -> m.put(k, TIMERS.get(k)));
+        return m;
+    }
+
+    /** Read-only view of one timer as exposed over JMX; times in microseconds. */
+    public static final class TimerStats {
+        private final long count;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        @ConstructorProperties({"count", "p50Micros", "p99Micros", "maxMicros"})
+        public TimerStats(long count, long p50Micros, long p99Micros, long maxMicros) {
+            this.count = count;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        static TimerStats of(LatencyHistogram h) {
+            return new TimerStats(h.count(), h.percentileNanos(50) / 1000,
+                    h.percentileNanos(99) / 1000, h.maxNanos() / 1000);
+        }
+
+        public long getCount() { return count; }
+        public long getP50Micros() { return p50Micros; }
+        public long getP99Micros() { return p99Micros; }
+        public long getMaxMicros() { return maxMicros; }
+    }
+
+    public interface MetricsMXBean {
+        Map<String, TimerStats> getTimers();
+        TimerStats getEdtStalls();
+        String[] getRecentStallStacks();
+        String getSummary();
+        void reset();
+    }
+
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public Map<String, TimerStats> getTimers() {
+            Map<String, TimerStats> m = new LinkedHashMap<>();
+            sorted().forEach((k, v) -> m.put(k, TimerStats.of(v)));
+            return m;
+        }
+
+        @Override
+        public TimerStats getEdtStalls() {
+            return TimerStats.of(watchdog.stalls);
+        }
+
+        @Override
+        public String[] getRecentStallStacks() {
+            return watchdog.recentStacks();
+        }
+
+        @Override
+        public String getSummary() {
+            return summary();
+        }
+
+        @Override
+        public void reset() {
+            TIMERS.values().forEach(LatencyHistogram::reset);
+            watchdog.stalls.reset();
+        }
+    }
+
+    /**
+     * Posts a heartbeat to the event queue every few milliseconds and, when
+     * one has been waiting longer than the threshold, dumps the event thread's
+     * stack once per stall. The stall's full length is recorded when the
+     * heartbeat finally runs.
+     */
+    static final class EdtWatchdog extends Thread {
+
+        private static final int KEEP_STACKS = 16;
+
+        private final long thresholdNanos;
+        final LatencyHistogram stalls = new LatencyHistogram();
+        private final ArrayDeque<String> stacks = new ArrayDeque<>();
+        private final AtomicLong pendingSince = new AtomicLong();
+        private volatile Thread edt;
+
+        EdtWatchdog(long thresholdNanos) {
+            super("edt-watchdog");
+            this.thresholdNanos = thresholdNanos;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long poll = Math.max(1, TimeUnit.NANOSECONDS.toMillis(thresholdNanos) / 4);
+            boolean reported = false;
+            while (true) {
+                long since = pendingSince.get();
+                long now = System.nanoTime();
+                if (since == 0) {
+                    reported = false;
+                    long posted = now;
+                    pendingSince.set(posted);
+                    SwingUtilities.invokeLater(() -> {
+                        edt = Thread.currentThread();
+                        long waited = System.nanoTime() - posted;
+                        if (waited >= thresholdNanos) stalls.record(waited);
+                        pendingSince.set(0);
+                    });
+                } else if (!reported && now - since >= thresholdNanos && edt != null) {
+                    reported = true;
+                    capture(now - since);
+                }
+                try {
+                    Thread.sleep(poll);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void capture(long blockedNanos) {
+            StringBuilder sb = new StringBuilder("EDT blocked for over ")
+                    .append(LatencyHistogram.millis(blockedNanos)).append(" at ").append(ClockText.now());
+            for (StackTraceElement f : edt.getStackTrace()) sb.append("\n\tat ").append(f);
+            String text = sb.toString();
+            synchronized (stacks) {
+                if (stacks.size() == KEEP_STACKS) stacks.removeFirst();
+                stacks.addLast(text);
+            }
+            LOG.warning(text);
+        }
+
+        String[] recentStacks() {
+            synchronized (stacks) {
+                return stacks.toArray(new String[0]);
+            }
+        }
+    }
+}
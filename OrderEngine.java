@@ -0,0 +1,189 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The ordering logic without any UI: table lines, totals, receipts, commits
+ * and resets on top of a {@link TableRegistry}, with the optional subsystems
+ * a commit feeds (stock, receipt archive, invoice store, sales counters,
+ * kitchen, turn times). Time comes from
+ * the supplied clock, so the {@link Simulator} can run it on virtual time.
+ * Safe to call from any thread.
+ */
+class OrderEngine {
+
+    /** Result of committing a table: the order as committed and its receipt. */
+    static final class Commit {
+        final TableOrder order;
+        final String receipt;
+
+        Commit(TableOrder order, String receipt) {
+            this.order = order;
+            this.receipt = receipt;
+        }
+    }
+
+    private final MenuCatalog catalog;
+    private final TableRegistry registry;
+    private final PricingEngine pricing;
+    // renderers reuse their buffer and aren't thread-safe; commits on different tables run concurrently
+    private final ThreadLocal<ReceiptRenderer> renderer;
+    private final LongSupplier clock;
+    private volatile ReceiptArchive archive;
+    private volatile InvoiceStore invoices;
+    private volatile SalesAggregator sales;
+    private volatile Kitchen kitchen;
+    private volatile PrintSpooler spooler;
+    private volatile Inventory inventory;
+    private volatile TurnTimes turnTimes;
+
+    /** An engine whose invoice numbers live in memory, starting at 1001. */
+    OrderEngine(MenuCatalog catalog, int tableCount, LongSupplier clockMillis) {
+        this(catalog, tableCount, InvoiceSequence.inMemory(1000), clockMillis);
+    }
+
+    /** An engine with the {@linkplain PricingEngine#standard standard} pricing. */
+    OrderEngine(MenuCatalog catalog, int tableCount, InvoiceSequence invoices, LongSupplier clockMillis) {
+        this(catalog, tableCount, invoices, PricingEngine.standard(catalog), clockMillis);
+    }
+
+    OrderEngine(MenuCatalog catalog, int tableCount, InvoiceSequence invoices, PricingEngine pricing, LongSupplier clockMillis) {
+        this.catalog = catalog;
+        this.registry = new TableRegistry(tableCount, catalog.priceCents(), invoices);
+        this.pricing = pricing;
+        registry.attachPricing(pricing, clockMillis);
+        this.renderer = ThreadLocal.withInitial(() -> new ReceiptRenderer(catalog.products()));
+        this.clock = clockMillis;
+    }
+
+    MenuCatalog catalog() { return catalog; }
+    TableRegistry registry() { return registry; }
+    PricingEngine pricing() { return pricing; }
+    int tableCount() { return registry.tableCount(); }
+    long now() { return clock.getAsLong(); }
+
+    void attachJournal(OrderJournal journal) { registry.attachJournal(journal); }
+    void attachArchive(ReceiptArchive archive) { this.archive = archive; }
+    void attachInvoices(InvoiceStore invoices) { this.invoices = invoices; }
+    void attachSales(SalesAggregator sales) { this.sales = sales; }
+    void attachKitchen(Kitchen kitchen) { this.kitchen = kitchen; }
+    void attachSpooler(PrintSpooler spooler) { this.spooler = spooler; }
+    void attachInventory(Inventory inventory) { this.inventory = inventory; }
+
+    /** Starts timing table turns; tables already DONE count from when they were. */
+    void attachTurnTimes(TurnTimes turnTimes) {
+        for (int t = 0; t < tableCount(); t++) {
+            TableOrder o = snapshot(t);
+            if (o.isOccupied() && o.getDoneMillis() != 0) turnTimes.occupied(t, o.getWaiter(), o.getDoneMillis());
+        }
+        this.turnTimes = turnTimes;
+    }
+
+    ReceiptArchive archive() { return archive; }
+    InvoiceStore invoices() { return invoices; }
+    SalesAggregator sales() { return sales; }
+    Kitchen kitchen() { return kitchen; }
+    PrintSpooler spooler() { return spooler; }
+    Inventory inventory() { return inventory; }
+    TurnTimes turnTimes() { return turnTimes; }
+
+    /** Sets one line of the table's order; returns the table's new version. */
+    long setLine(int table, int item, int qty, boolean purchased) {
+        TurnTimes tt = turnTimes;
+        if (tt != null && qty > 0) tt.seated(table, now());
+        return registry.setLine(table, item, qty, purchased);
+    }
+
+    long adjustQuantity(int table, int item, int delta) {
+        TurnTimes tt = turnTimes;
+        if (tt != null && delta > 0) tt.seated(table, now());
+        return registry.adjustQuantity(table, item, delta);
+    }
+
+    /** {@link TableRegistry#setDiscount}: the table's senior citizen / PWD discount. */
+    long setDiscount(int table, int kind, int discounted, int guests) {
+        return registry.setDiscount(table, kind, discounted, guests);
+    }
+
+    TableOrder snapshot(int table) {
+        return registry.snapshot(table);
+    }
+
+    /** {@link TableRegistry#refresh}: {@code view} brought up to date, copying only if the table changed. */
+    TableOrder refresh(int table, TableOrder view) {
+        return registry.refresh(table, view);
+    }
+
+    boolean isOccupied(int table) {
+        return registry.isOccupied(table);
+    }
+
+    /** Receipt for the table as it stands, without table and waiter. */
+    String preview(int table) {
+        long now = now();
+        return registry.read(table, o -> renderer.get().render(o, null, null, now).toString());
+    }
+
+    /**
+     * The receipt for {@code order} (e.g. a table's {@link #snapshot}) as of
+     * its DONE, or null if it isn't DONE. Receipts aren't stored; this renders
+     * it again from the order. An order changed since its DONE is rendered as
+     * it stands, marked as a draft that isn't settled until the next DONE.
+     */
+    String receipt(TableOrder order, String tableLabel) {
+        if (!order.isOccupied()) return null;
+        // orders restored from an old journal don't know when they were DONE
+        long at = order.getDoneMillis() != 0 ? order.getDoneMillis() : now();
+        return renderer.get().render(order, tableLabel, order.getWaiter(), at).toString();
+    }
+
+    /**
+     * Marks the table DONE and hands the committed order to the archive,
+     * invoice store, sales and kitchen. With stock attached, the order's
+     * lines are held first; throws {@link Inventory.OutOfStockException}
+     * and leaves the table as it was if they can't be.
+     */
+    Commit done(int table, String tableLabel, String waiter) {
+        long now = now();
+        TableOrder[] committed = new TableOrder[1];
+        boolean[] amended = new boolean[1];
+        Inventory inv = inventory;
+        String receipt = registry.done(table, now, waiter, o -> {
+            if (inv != null) inv.hold(table, o, false);
+            amended[0] = o.isOccupied();
+        }, o -> {
+            committed[0] = new TableOrder(o);
+            return renderer.get().render(o, tableLabel, waiter, now).toString();
+        });
+        TableOrder order = committed[0];
+
+        ReceiptArchive a = archive;
+        if (a != null) a.submit(order.getInvoiceID(), receipt, now);
+        InvoiceStore st = invoices;
+        if (st != null) st.submit(InvoiceStore.Record.of(order, table, waiter, now, catalog));
+        SalesAggregator s = sales;
+        if (s != null) s.record(order, waiter, now);
+        Kitchen k = kitchen;
+        if (k != null) k.publish(order, tableLabel, waiter, amended[0]);
+        TurnTimes tt = turnTimes;
+        if (tt != null) tt.occupied(table, waiter, now);
+        return new Commit(order, receipt);
+    }
+
+    /** Clears the table for the next party; returns its new version. */
+    long reset(int table) {
+        SalesAggregator s = sales;
+        Kitchen k = kitchen;
+        Inventory inv = inventory;
+        long version = registry.reset(table, o -> {
+            // under the table lock, so no DONE can amend the invoice between settling and clearing
+            if (inv != null) inv.release(table);
+            // the table's invoice is closed for good; later orders here are new sales
+            if (s != null && o.getInvoiceID() != 0) s.settle(o.getInvoiceID());
+            if (k != null && o.getInvoiceID() != 0) k.settle(o.getInvoiceID());
+        });
+        TurnTimes tt = turnTimes;
+        if (tt != null) tt.released(table, now());
+        return version;
+    }
+}
@@ -0,0 +1,548 @@
+package com.mycompany.restaurantsystem;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Takes delivery and kiosk orders over HTTP on the loopback interface. An
+ * order is checked against the menu, priced by the engine's rules, marked
+ * DONE (which gives it its invoice number, holds its stock and sends it to
+ * the kitchen) and left on one of the "Online" tables after the dine-in
+ * ones, where the cashier sees it in the table selector, hands it over and
+ * resets the table; a reset table takes the next order.
+ * <pre>
+ * POST /orders  {"source": "kiosk", "lines": [{"item": "Chicken Adobo", "qty": 2},
+ *                {"item": "Plain Rice", "price": 25, "qty": 2}], "total": 275.00}
+ *   201 {"invoice": 1042, "table": "Online 3", "subtotal": 250.00, "tax": 25.00, "total": 275.00}
+ * GET  /menu    every item with its id, name, price, category and whether it is sold out
+ * GET  /health  requests in flight, free tables and counts of what was accepted and turned away
+ * </pre>
+ * A line names its item by {@code id} (from {@code /menu}) or by {@code item}
+ * name, with {@code price} to pick between items of the same name. The
+ * {@code total} is optional; when it is sent and doesn't match what the
+ * order costs now, the order is refused with 409 and the current total.
+ * Sold-out items also get 409, bad requests 400.
+ *
+ * <p>Each request runs on its own virtual thread when the JVM has them
+ * (Java 21 and later) and on a small pool otherwise. Two limits keep a
+ * burst from piling up: at most {@code maxInFlight} orders are worked on at
+ * once, and an order needs a free Online table; past either the request is
+ * answered 503 with {@code Retry-After} straight away rather than queued.
+ */
+final class OrderIntake {
+
+    private static final Logger LOG = Logger.getLogger(OrderIntake.class.getName());
+    private static final LatencyHistogram T_ORDER = Metrics.timer("intakeOrder");
+
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int MAX_QTY = 100;
+    // Online table states; a table is in the free queue only while FREE
+    private static final int FREE = 0, FILLING = 1, TAKEN = 2;
+
+    private final OrderEngine engine;
+    private final MenuCatalog catalog;
+    // the Online tables come right after the dine-in ones, so this is also the dine-in count
+    private final int firstTable;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final AtomicIntegerArray state;
+    private final ConcurrentLinkedQueue<Integer> free = new ConcurrentLinkedQueue<>();
+    // normalized name -> items with that name
+    private final Map<String, int[]> byName = new HashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+
+    private OrderIntake(OrderEngine engine, int firstTable, int tables, InetSocketAddress address, int maxInFlight) throws IOException {
+        this.engine = engine;
+        this.catalog = engine.catalog();
+        this.firstTable = firstTable;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.state = new AtomicIntegerArray(tables);
+        for (int i = 0; i < catalog.size(); i++) {
+            byName.merge(MenuIndex.normalize(catalog.product(i).getName()), new int[] {i}, (a, b) -> {
+                int[] all = Arrays.copyOf(a, a.length + 1);
+                all[a.length] = b[0];
+                return all;
+            });
+        }
+        for (int k = 0; k < tables; k++) {
+            state.set(k, TAKEN);
+            release(firstTable + k);
+        }
+        engine.registry().addListener((table, version) -> {
+            if (table >= firstTable && table < firstTable + tables) release(table);
+        });
+
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : threadPool(maxInFlight);
+        server = HttpServer.create(address, 128);
+        server.setExecutor(executor);
+        server.createContext("/orders", this::orders);
+        server.createContext("/menu", this::menu);
+        server.createContext("/health", this::health);
+    }
+
+    /**
+     * Starts taking orders on {@code port} of the loopback interface (0 for
+     * any free port). Orders land on tables {@code firstTable} to
+     * {@code firstTable + tables - 1}, which must exist in the engine.
+     */
+    static OrderIntake start(OrderEngine engine, int firstTable, int tables, int port, int maxInFlight) throws IOException {
+        OrderIntake intake = new OrderIntake(engine, firstTable, tables,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), Math.max(1, maxInFlight));
+        intake.server.start();
+        LOG.info("order intake on http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + intake.port()
+                + "/orders, " + tables + " online tables, " + intake.maxInFlight + " orders in flight"
+                + (intake.virtualThreads ? ", virtual threads" : ""));
+        return intake;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting, lets requests already running finish for up to a second. */
+    void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** A virtual thread per request, or null before Java 21; looked up by name so the build stays on Java 17. */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService threadPool(int maxInFlight) {
+        // a few threads past the limit answer 503 while the rest are busy, so the queue stays short
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(maxInFlight + 4, r -> {
+            Thread t = new Thread(r, "order-intake-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ---- tables ----
+
+    /** Takes a free Online table for a new order, or -1 if every one still has an order on it. */
+    private int claim() {
+        Integer t;
+        while ((t = free.poll()) != null) {
+            int k = t - firstTable;
+            if (!state.compareAndSet(k, FREE, FILLING)) continue;
+            if (isEmpty(t)) return t;
+            // a cashier rang something up on it by hand; it comes back once they reset it
+            state.set(k, TAKEN);
+            release(t);
+        }
+        return -1;
+    }
+
+    /** Puts a taken table back in the free queue if it has been cleared. */
+    private void release(int table) {
+        int k = table - firstTable;
+        if (state.get(k) == TAKEN && isEmpty(table) && state.compareAndSet(k, TAKEN, FREE)) free.offer(table);
+    }
+
+    private boolean isEmpty(int table) {
+        return engine.registry().read(table, o -> !o.isOccupied() && o.lineCount() == 0);
+    }
+
+    // ---- handlers ----
+
+    private void orders(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                send(ex, 405, error("use POST"));
+                return;
+            }
+            if (!inFlight.tryAcquire()) {
+                busy.increment();
+                ex.getResponseHeaders().set("Retry-After", "1");
+                send(ex, 503, error("too many orders at once"));
+                return;
+            }
+            long t0 = System.nanoTime();
+            try {
+                Order order;
+                try {
+                    order = parse(readBody(ex));
+                } catch (IllegalArgumentException e) {
+                    refused.increment();
+                    send(ex, 400, error(e.getMessage()));
+                    return;
+                }
+                place(ex, order);
+            } catch (RuntimeException e) {
+                // the order was rolled back; say so rather than dropping the connection
+                LOG.log(Level.WARNING, "order intake failed", e);
+                send(ex, 500, error("the order could not be placed"));
+            } finally {
+                inFlight.release();
+                T_ORDER.record(System.nanoTime() - t0);
+            }
+        }
+    }
+
+    private void place(HttpExchange ex, Order order) throws IOException {
+        int table = claim();
+        if (table < 0) {
+            busy.increment();
+            ex.getResponseHeaders().set("Retry-After", "1");
+            send(ex, 503, error("every online table has an order waiting at the counter"));
+            return;
+        }
+        String label = TableComboModel.name(table, firstTable);
+        boolean placed = false;
+        try {
+            for (int k = 0; k < order.items.length; k++) engine.setLine(table, order.items[k], order.qtys[k], true);
+            long total = engine.registry().read(table, TableOrder::getTotalCents);
+            if (order.totalCents >= 0 && order.totalCents != total) {
+                refused.increment();
+                send(ex, 409, "{\"error\":\"the total has changed\",\"total\":" + Calc.formatMoney(total) + "}");
+                return;
+            }
+            OrderEngine.Commit c;
+            try {
+                c = engine.done(table, label, order.source);
+            } catch (Inventory.OutOfStockException e) {
+                refused.increment();
+                send(ex, 409, error(e.getMessage()));
+                return;
+            }
+            placed = true;
+            accepted.increment();
+            send(ex, 201, "{\"invoice\":" + c.order.getInvoiceID() + ",\"table\":" + quote(label)
+                    + ",\"subtotal\":" + Calc.formatMoney(c.order.getSubTotalCents())
+                    + ",\"tax\":" + Calc.formatMoney(c.order.getTaxCents())
+                    + ",\"total\":" + Calc.formatMoney(c.order.getTotalCents()) + "}");
+        } finally {
+            if (!placed) engine.reset(table);
+            state.set(table - firstTable, TAKEN);
+            release(table);
+        }
+    }
+
+    private void menu(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                send(ex, 405, error("use GET"));
+                return;
+            }
+            Inventory stock = engine.inventory();
+            StringBuilder sb = new StringBuilder(64 * catalog.size()).append('[');
+            for (int i = 0; i < catalog.size(); i++) {
+                Product p = catalog.product(i);
+                if (i > 0) sb.append(',');
+                sb.append("{\"id\":").append(i)
+                        .append(",\"name\":").append(quote(p.getName()))
+                        .append(",\"price\":").append(Calc.formatMoney(p.getPriceCents()))
+                        .append(",\"category\":").append(quote(catalog.categories().get(catalog.categoryOf(i))))
+                        .append(",\"soldOut\":").append(stock != null && stock.isSoldOut(i)).append('}');
+            }
+            send(ex, 200, sb.append(']').toString());
+        }
+    }
+
+    private void health(HttpExchange ex) throws IOException {
+        try (ex) {
+            send(ex, 200, "{\"inFlight\":" + (maxInFlight - inFlight.availablePermits())
+                    + ",\"freeTables\":" + free.size()
+                    + ",\"accepted\":" + accepted.sum()
+                    + ",\"refused\":" + refused.sum()
+                    + ",\"busy\":" + busy.sum() + "}");
+        }
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) throw new IllegalArgumentException("order is over " + MAX_BODY / 1024 + " KiB");
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    // ---- orders ----
+
+    /** A validated order: distinct items in menu order with their quantities, and the total the client expects (-1 if none). */
+    private static final class Order {
+        final int[] items;
+        final int[] qtys;
+        final String source;
+        final long totalCents;
+
+        Order(int[] items, int[] qtys, String source, long totalCents) {
+            this.items = items;
+            this.qtys = qtys;
+            this.source = source;
+            this.totalCents = totalCents;
+        }
+    }
+
+    /** Checks an order body against the menu; throws {@link IllegalArgumentException} saying what is wrong. */
+    Order parse(String body) {
+        Object json = Json.parse(body);
+        if (!(json instanceof Map)) throw new IllegalArgumentException("expected a JSON object");
+        Map<?, ?> o = (Map<?, ?>) json;
+        Object source = o.get("source");
+        if (source != null && !(source instanceof String)) throw new IllegalArgumentException("source must be a string");
+        String from = source == null ? "online" : ((String) source).trim();
+        if (from.isEmpty() || from.length() > 24) throw new IllegalArgumentException("source must be 1 to 24 characters");
+
+        if (!(o.get("lines") instanceof List) || ((List<?>) o.get("lines")).isEmpty()) {
+            throw new IllegalArgumentException("lines must be a non-empty array");
+        }
+        TreeMap<Integer, Integer> qty = new TreeMap<>();
+        for (Object l : (List<?>) o.get("lines")) {
+            if (!(l instanceof Map)) throw new IllegalArgumentException("each line must be an object");
+            Map<?, ?> line = (Map<?, ?>) l;
+            int item = item(line);
+            int n = whole(line.get("qty"), "qty");
+            if (n < 1 || qty.merge(item, n, Integer::sum) > MAX_QTY) {
+                throw new IllegalArgumentException("qty of " + catalog.product(item).getName() + " must be 1 to " + MAX_QTY);
+            }
+        }
+        int[] items = new int[qty.size()];
+        int[] qtys = new int[qty.size()];
+        int k = 0;
+        for (Map.Entry<Integer, Integer> e : qty.entrySet()) {
+            items[k] = e.getKey();
+            qtys[k++] = e.getValue();
+        }
+        Object total = o.get("total");
+        if (total != null && !(total instanceof Double)) throw new IllegalArgumentException("total must be a number");
+        return new Order(items, qtys, from, total == null ? -1 : Calc.toCents((Double) total));
+    }
+
+    private int item(Map<?, ?> line) {
+        if (line.get("id") != null) {
+            int id = whole(line.get("id"), "id");
+            if (id < 0 || id >= catalog.size()) throw new IllegalArgumentException("no menu item with id " + id);
+            return id;
+        }
+        if (!(line.get("item") instanceof String)) throw new IllegalArgumentException("each line needs an id or an item name");
+        String name = (String) line.get("item");
+        int[] named = byName.get(MenuIndex.normalize(name));
+        if (named == null) throw new IllegalArgumentException("no menu item named '" + name + "'");
+        Object price = line.get("price");
+        if (price == null) {
+            if (named.length > 1) throw new IllegalArgumentException(named.length + " menu items are named '" + name + "'; add the price");
+            return named[0];
+        }
+        if (!(price instanceof Double)) throw new IllegalArgumentException("price must be a number");
+        long cents = Calc.toCents((Double) price);
+        for (int i : named) {
+            if (catalog.product(i).getPriceCents() == cents) return i;
+        }
+        throw new IllegalArgumentException("no '" + name + "' at " + Calc.formatMoney(cents));
+    }
+
+    private static int whole(Object v, String field) {
+        if (!(v instanceof Double) || (Double) v != Math.rint((Double) v) || Math.abs((Double) v) > 1e9) {
+            throw new IllegalArgumentException(field + " must be a whole number");
+        }
+        return (int) (double) (Double) v;
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int k = 0; k < s.length(); k++) {
+            char c = s.charAt(k);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Just enough JSON for order bodies: objects become maps, arrays lists,
+     * numbers doubles. Throws {@link IllegalArgumentException} on anything
+     * malformed.
+     */
+    static final class Json {
+        private final String s;
+        private int pos;
+
+        private Json(String s) {
+            this.s = s;
+        }
+
+        static Object parse(String s) {
+            Json p = new Json(s);
+            Object v = p.value(0);
+            p.space();
+            if (p.pos != s.length()) throw p.bad("trailing characters");
+            return v;
+        }
+
+        private Object value(int depth) {
+            if (depth > 16) throw bad("nested too deep");
+            space();
+            if (pos >= s.length()) throw bad("unexpected end");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': {
+                    pos++;
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    if (peek('}')) return m;
+                    do {
+                        space();
+                        if (pos >= s.length() || s.charAt(pos) != '"') throw bad("expected a name");
+                        String key = string();
+                        expect(':');
+                        m.put(key, value(depth + 1));
+                    } while (peek(','));
+                    expect('}');
+                    return m;
+                }
+                case '[': {
+                    pos++;
+                    List<Object> l = new ArrayList<>();
+                    if (peek(']')) return l;
+                    do {
+                        l.add(value(depth + 1));
+                    } while (peek(','));
+                    expect(']');
+                    return l;
+                }
+                case '"':
+                    return string();
+                case 't':
+                    return word("true", Boolean.TRUE);
+                case 'f':
+                    return word("false", Boolean.FALSE);
+                case 'n':
+                    return word("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        private String string() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= s.length()) break;
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw bad("bad escape");
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException x) {
+                            throw bad("bad escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            }
+            throw bad("unterminated string");
+        }
+
+        private Double number() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) pos++;
+            try {
+                double d = Double.parseDouble(s.substring(start, pos));
+                if (Double.isFinite(d)) return d;
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            pos = start;
+            throw bad("expected a value");
+        }
+
+        private Object word(String w, Object v) {
+            if (!s.startsWith(w, pos)) throw bad("expected a value");
+            pos += w.length();
+            return v;
+        }
+
+        private boolean peek(char c) {
+            space();
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) throw bad("expected '" + c + "'");
+        }
+
+        private void space() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException bad(String what) {
+            return new IllegalArgumentException("bad JSON at " + pos + ": " + what);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of table order mutations. Each record is framed as
+ * {@code [payload length][crc32][type][payload]}; appends only copy into an
+ * in-memory batch, and a background thread writes and fsyncs the batch every
+ * {@code flushMillis}. Once the journal holds {@code compactEvery} records the
+ * full table state is written as a snapshot (in the same record format) and
+ * the journal is truncated, which keeps replay time bounded.
+ *
+ * <p>All records set absolute values, so replaying a record twice (e.g. after
+ * a crash between snapshot and truncate) is harmless.
+ */
+class OrderJournal implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(OrderJournal.class.getName());
+
+    static final byte OPEN = 1;
+    static final byte QUANTITY = 2;
+    static final byte PURCHASE = 3;
+    // DONE with the receipt text, as written before receipts were rendered on demand; still replayed
+    static final byte DONE_RECEIPT = 4;
+    static final byte RESET = 5;
+    static final byte INVOICE_COUNTER = 6;
+    static final byte INVOICE = 7;
+    static final byte DISCOUNT = 8;
+    static final byte DONE = 9;
+
+    private static final int HEADER_BYTES = 9;
+    private static final int MAX_PAYLOAD = 1 << 20;
+
+    /** Receives replayed records, in the order they were appended. */
+    interface Replay {
+        void open(int table, int invoiceID);
+        void quantity(int table, int item, int qty);
+        void purchase(int table, int item, boolean purchased);
+        /** The table was marked DONE by {@code waiter} at {@code timeMillis}; 0 and null if not known. */
+        void done(int table, long timeMillis, String waiter);
+        void reset(int table);
+        void invoiceCounter(int value);
+        /** The table's order was given its invoice ID on its first DONE. */
+        void invoice(int table, int invoiceID);
+        /** The table's senior/PWD discount was set. */
+        void discount(int table, int kind, int discounted, int guests);
+    }
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final FileChannel channel;
+    private final int compactEvery;
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+
+    // guarded by this
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer pendingSnapshot;
+    private ByteBuffer preSnapshotBatch;
+    private int recordsSinceSnapshot;
+    private boolean closed;
+
+    private OrderJournal(Path dir, long flushMillis, int compactEvery) throws IOException {
+        Files.createDirectories(dir);
+        this.journalFile = dir.resolve("orders.journal");
+        this.snapshotFile = dir.resolve("orders.snapshot");
+        this.channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.compactEvery = compactEvery;
+        this.flusher = new Thread(() -> flushLoop(flushMillis), "order-journal-flusher");
+        flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal in {@code dir}, replays the snapshot and journal into
+     * {@code replay}, then starts the background flusher.
+     */
+    static OrderJournal open(File dir, long flushMillis, int compactEvery, Replay replay) throws IOException {
+        OrderJournal j = new OrderJournal(dir.toPath(), flushMillis, compactEvery);
+        long start = System.nanoTime();
+        if (Files.exists(j.snapshotFile)) {
+            try (FileChannel snap = FileChannel.open(j.snapshotFile, StandardOpenOption.READ)) {
+                j.replay(snap, replay);
+            }
+            j.recordsSinceSnapshot = 0;
+        }
+        long valid = j.replay(j.channel, replay);
+        if (valid < j.channel.size()) {
+            LOG.warning("truncating torn journal tail at byte " + valid + " of " + j.channel.size());
+            j.channel.truncate(valid);
+        }
+        j.channel.position(valid);
+        LOG.info(String.format("replayed %d journal records in %.1f ms", j.recordsSinceSnapshot, (System.nanoTime() - start) / 1e6));
+        j.flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(j::close, "order-journal-shutdown"));
+        return j;
+    }
+
+    synchronized void open(int table, int invoiceID) {
+        ByteBuffer b = begin(OPEN, 6);
+        b.putShort((short) table).putInt(invoiceID);
+        end(b);
+    }
+
+    synchronized void quantity(int table, int item, int qty) {
+        ByteBuffer b = begin(QUANTITY, 10);
+        b.putShort((short) table).putInt(item).putInt(qty);
+        end(b);
+    }
+
+    synchronized void purchase(int table, int item, boolean purchased) {
+        ByteBuffer b = begin(PURCHASE, 7);
+        b.putShort((short) table).putInt(item).put((byte) (purchased ? 1 : 0));
+        end(b);
+    }
+
+    synchronized void done(int table, long timeMillis, String waiter) {
+        byte[] name = waiter == null ? new byte[0] : waiter.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = begin(DONE, 12 + name.length);
+        b.putShort((short) table).putLong(timeMillis).putShort((short) name.length).put(name);
+        end(b);
+    }
+
+    synchronized void reset(int table) {
+        ByteBuffer b = begin(RESET, 2);
+        b.putShort((short) table);
+        end(b);
+    }
+
+    synchronized void invoice(int table, int invoiceID) {
+        ByteBuffer b = begin(INVOICE, 6);
+        b.putShort((short) table).putInt(invoiceID);
+        end(b);
+    }
+
+    synchronized void discount(int table, int kind, int discounted, int guests) {
+        ByteBuffer b = begin(DISCOUNT, 8);
+        b.putShort((short) table).put((byte) kind).put((byte) 0).putShort((short) discounted).putShort((short) guests);
+        end(b);
+    }
+
+    synchronized void invoiceCounter(int value) {
+        ByteBuffer b = begin(INVOICE_COUNTER, 4);
+        b.putInt(value);
+        end(b);
+    }
+
+    /** True once enough records have accumulated that the caller should {@link #compact} soon. */
+    synchronized boolean needsCompaction() {
+        return !closed && pendingSnapshot == null && recordsSinceSnapshot >= compactEvery;
+    }
+
+    /**
+     * Captures {@code orders} as a snapshot. The state is encoded on the calling
+     * thread, which must keep {@code orders} from changing meanwhile so that it
+     * lines up with the point where the journal is cut; the flusher writes it.
+     */
+    void compact(TableOrder[] orders, int invoiceCounter) {
+        ByteBuffer snap = ByteBuffer.allocate(4096);
+        snap = frame(snap, INVOICE_COUNTER, ByteBuffer.allocate(4).putInt(invoiceCounter));
+        for (int t = 0; t < orders.length; t++) {
+            TableOrder o = orders[t];
+            if (o == null) continue;
+            snap = frame(snap, OPEN, ByteBuffer.allocate(6).putShort((short) t).putInt(o.getInvoiceID()));
+            // an order changed since its DONE is DONE first, so it replays as amended again
+            if (o.isOccupied() && o.isAmended()) snap = doneRecord(snap, t, o);
+            for (int k = 0; k < o.lineCount(); k++) {
+                int i = o.lineItem(k);
+                if (o.lineQuantity(k) != 0) {
+                    snap = frame(snap, QUANTITY, ByteBuffer.allocate(10).putShort((short) t).putInt(i).putInt(o.lineQuantity(k)));
+                }
+                if (o.isLinePurchased(k)) {
+                    snap = frame(snap, PURCHASE, ByteBuffer.allocate(7).putShort((short) t).putInt(i).put((byte) 1));
+                }
+            }
+            if (o.getDiscountKind() != 0 || o.getGuests() != 0) {
+                snap = frame(snap, DISCOUNT, ByteBuffer.allocate(8).putShort((short) t).put((byte) o.getDiscountKind()).put((byte) 0)
+                        .putShort((short) o.getDiscountedGuests()).putShort((short) o.getGuests()));
+            }
+            if (o.isOccupied() && !o.isAmended()) snap = doneRecord(snap, t, o);
+        }
+        snap.flip();
+        synchronized (this) {
+            if (closed) return;
+            pendingSnapshot = snap;
+            // records up to the cut still go to the old journal in case the snapshot never lands
+            preSnapshotBatch = pending;
+            pending = ByteBuffer.allocate(pending.capacity());
+            recordsSinceSnapshot = 0;
+            notifyAll();
+        }
+    }
+
+    private ByteBuffer doneRecord(ByteBuffer snap, int table, TableOrder o) {
+        byte[] name = o.getWaiter() == null ? new byte[0] : o.getWaiter().getBytes(StandardCharsets.UTF_8);
+        return frame(snap, DONE, ByteBuffer.allocate(12 + name.length).putShort((short) table).putLong(o.getDoneMillis())
+                .putShort((short) name.length).put(name));
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join(5000);
+            if (flusher.isAlive()) {
+                // still stuck in a write; a second writer on the channel would interleave with it
+                LOG.warning("journal flusher did not stop; leaving the last batch to it");
+                return;
+            }
+            flushOnce();
+            channel.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "journal close failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- writing ----
+
+    private final ByteBuffer record = ByteBuffer.allocate(256);
+
+    /** Returns a buffer positioned at the payload; callers hold the lock until {@link #end}. */
+    private ByteBuffer begin(byte type, int payloadBytes) {
+        ByteBuffer b = payloadBytes + HEADER_BYTES <= record.capacity() ? record : ByteBuffer.allocate(payloadBytes + HEADER_BYTES);
+        b.clear();
+        b.position(HEADER_BYTES);
+        b.put(HEADER_BYTES - 1, type);
+        return b;
+    }
+
+    private void end(ByteBuffer b) {
+        synchronized (this) {
+            if (closed) return;
+            int payload = b.position() - HEADER_BYTES;
+            crc.reset();
+            crc.update(b.array(), HEADER_BYTES - 1, payload + 1);
+            b.putInt(0, payload).putInt(4, (int) crc.getValue());
+            b.flip();
+            if (pending.remaining() < b.remaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + b.remaining()));
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+            pending.put(b);
+            recordsSinceSnapshot++;
+        }
+    }
+
+    private ByteBuffer frame(ByteBuffer out, byte type, ByteBuffer payload) {
+        payload.flip();
+        int n = payload.remaining();
+        if (out.remaining() < n + HEADER_BYTES) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + n + HEADER_BYTES));
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+        CRC32 c = new CRC32();
+        c.update(type);
+        c.update(payload.duplicate());
+        out.putInt(n).putInt((int) c.getValue()).put(type).put(payload);
+        return out;
+    }
+
+    private void flushLoop(long flushMillis) {
+        boolean failing = false;
+        while (true) {
+            synchronized (this) {
+                if (closed) return;
+                try {
+                    wait(flushMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) return;
+            }
+            try {
+                flushOnce();
+                if (failing) LOG.info("journal flush recovered");
+                failing = false;
+            } catch (IOException e) {
+                // the batch is back in pending and goes out with the next tick
+                if (!failing) LOG.log(Level.WARNING, "journal flush failed, retrying", e);
+                failing = true;
+            }
+        }
+    }
+
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Writes the pending batch with a single fsync. When a snapshot has been
+     * requested, the records before the cut are written first, then the
+     * snapshot replaces the old one and the journal restarts empty.
+     *
+     * <p>Only one thread flushes at a time: the flusher, or {@link #close}
+     * once the flusher has stopped. If a write fails, the journal is cut back
+     * to where this flush started, so a half-written record never sits in
+     * front of later ones, and the batch (with the snapshot, if it didn't
+     * land) goes back in front of whatever was appended meanwhile.
+     */
+    private void flushOnce() throws IOException {
+        ByteBuffer batch;
+        ByteBuffer snapshot;
+        ByteBuffer beforeCut;
+        synchronized (this) {
+            if (pending.position() == 0 && pendingSnapshot == null) return;
+            batch = pending;
+            pending = spare.capacity() >= batch.capacity() ? spare : ByteBuffer.allocate(batch.capacity());
+            pending.clear();
+            snapshot = pendingSnapshot;
+            beforeCut = preSnapshotBatch;
+            pendingSnapshot = null;
+            preSnapshotBatch = null;
+        }
+        batch.flip();
+        if (beforeCut != null) beforeCut.flip();
+        long start = channel.position();
+        try {
+            if (snapshot != null) {
+                write(beforeCut);
+                channel.force(false);
+                Path tmp = snapshotFile.resolveSibling("orders.snapshot.tmp");
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    while (snapshot.hasRemaining()) out.write(snapshot);
+                    out.force(true);
+                }
+                Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // the snapshot is in; from here a failure only concerns the batch after the cut
+                snapshot = null;
+                beforeCut = null;
+                // if the cut fails the old records stay ahead of the batch, which replays to the same state
+                start = channel.position();
+                channel.truncate(0);
+                channel.position(0);
+                start = 0;
+                LOG.fine("journal compacted into snapshot");
+            }
+            write(batch);
+            channel.force(false);
+        } catch (IOException e) {
+            requeue(start, snapshot, beforeCut, batch);
+            throw e;
+        }
+        spare = batch;
+    }
+
+    /** Undoes a failed flush that started at {@code start}: cuts the journal back and puts the unwritten data in front again. */
+    private void requeue(long start, ByteBuffer snapshot, ByteBuffer beforeCut, ByteBuffer batch) {
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "could not cut the journal back to byte " + start, e);
+        }
+        synchronized (this) {
+            batch.rewind();
+            if (snapshot == null) {
+                pending = join(batch, pending);
+            } else if (pendingSnapshot == null) {
+                snapshot.rewind();
+                beforeCut.rewind();
+                pendingSnapshot = snapshot;
+                preSnapshotBatch = join(beforeCut, empty());
+                pending = join(batch, pending);
+            } else {
+                // a newer snapshot was cut meanwhile and covers this one; its records just go in front
+                beforeCut.rewind();
+                preSnapshotBatch = join(beforeCut, join(batch, preSnapshotBatch));
+            }
+        }
+    }
+
+    /** {@code front} (read from 0 to its limit) followed by what {@code back} has been filled with, as a buffer to append to. */
+    private static ByteBuffer join(ByteBuffer front, ByteBuffer back) {
+        ByteBuffer b = ByteBuffer.allocate(Math.max(64 * 1024, front.remaining() + back.position() + 4096));
+        b.put(front);
+        ByteBuffer rest = back.duplicate();
+        rest.flip();
+        b.put(rest);
+        return b;
+    }
+
+    private static ByteBuffer empty() {
+        return ByteBuffer.allocate(0);
+    }
+
+    private void write(ByteBuffer batch) throws IOException {
+        while (batch.hasRemaining()) channel.write(batch);
+    }
+
+    // ---- reading ----
+
+    /** Replays valid records from {@code in}; returns the offset just past the last good record. */
+    private long replay(FileChannel in, Replay r) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) in.size());
+        in.position(0);
+        while (data.hasRemaining() && in.read(data) >= 0) { }
+        data.flip();
+        CRC32 c = new CRC32();
+        long good = 0;
+        try {
+            while (data.remaining() >= HEADER_BYTES) {
+                int n = data.getInt();
+                int sum = data.getInt();
+                if (n < 0 || n > MAX_PAYLOAD || data.remaining() < n + 1) break;
+                c.reset();
+                c.update(data.array(), data.position(), n + 1);
+                if ((int) c.getValue() != sum) break;
+                byte type = data.get();
+                ByteBuffer p = data.slice();
+                p.limit(n);
+                data.position(data.position() + n);
+                apply(type, p, r);
+                recordsSinceSnapshot++;
+                good = data.position();
+            }
+        } catch (BufferUnderflowException e) {
+            LOG.warning("malformed journal record after byte " + good);
+        }
+        return good;
+    }
+
+    private static void apply(byte type, ByteBuffer p, Replay r) {
+        switch (type) {
+            case OPEN:
+                r.open(p.getShort(), p.getInt());
+                break;
+            case QUANTITY:
+                r.quantity(p.getShort(), p.getInt(), p.getInt());
+                break;
+            case PURCHASE:
+                r.purchase(p.getShort(), p.getInt(), p.get() != 0);
+                break;
+            case DONE: {
+                int table = p.getShort();
+                long time = p.getLong();
+                byte[] name = new byte[p.getShort()];
+                p.get(name);
+                r.done(table, time, name.length == 0 ? null : new String(name, StandardCharsets.UTF_8));
+                break;
+            }
+            case DONE_RECEIPT:
+                // the old receipt text is dropped; who and when aren't known
+                r.done(p.getShort(), 0, null);
+                break;
+            case RESET:
+                r.reset(p.getShort());
+                break;
+            case INVOICE_COUNTER:
+                r.invoiceCounter(p.getInt());
+                break;
+            case INVOICE:
+                r.invoice(p.getShort(), p.getInt());
+                break;
+            case DISCOUNT: {
+                int table = p.getShort();
+                int kind = p.get();
+                p.get();
+                r.discount(table, kind, p.getShort(), p.getShort());
+                break;
+            }
+            default:
+                LOG.warning("skipping unknown journal record type " + type);
+        }
+    }
+}
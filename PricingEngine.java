@@ -0,0 +1,462 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prices an order: combo deals, happy-hour discounts, senior citizen / PWD
+ * discounts with their VAT exemption, per-item VAT classes and a service
+ * charge. Rules are read once from a text file and compiled into flat
+ * per-item tables (prices, VAT class, happy-hour basis points per window,
+ * combo components with their precomputed price cut), so {@link #price} is a
+ * few array passes with no allocation. Amounts are centavos; every rate is
+ * in basis points and rounded half-up, the same way {@link Calc#taxCents}
+ * does it.
+ *
+ * <p>The rules file has one {@code kind | ...} line per rule; items are
+ * selected with {@code *}, {@code food}, {@code drink},
+ * {@code category:<name>} or {@code item:<name>[@<price>]}:
+ * <pre>
+ * vat        | &lt;items&gt; | 12%                   or exempt; later lines override earlier ones
+ * service    | 5%
+ * happy-hour | &lt;items&gt; | 20% | Mon-Fri 15:00-18:00
+ * combo      | &lt;name&gt;  | &lt;price&gt; | &lt;item&gt; + 2x &lt;item&gt; ...   applied in file order
+ * senior     | 20%
+ * pwd        | 20%
+ * </pre>
+ * Without a file (or with just {@code vat | * | 10%}) totals are exactly
+ * what they were before: sub total plus 10% tax.
+ */
+final class PricingEngine {
+
+    static final int NONE = 0;
+    static final int SENIOR = 1;
+    static final int PWD = 2;
+    static final String[] DISCOUNT_NAMES = {"None", "Senior citizen", "PWD"};
+
+    private static final String[] DAYS = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+
+    /** Per-thread work arrays, sized for the menu. */
+    private static final class Scratch {
+        final int[] left;
+        final long[] net;
+        final long[] classBase;
+
+        Scratch(int items, int classes) {
+            left = new int[items];
+            net = new long[items];
+            classBase = new long[classes];
+        }
+    }
+
+    /** Local day bounds for the happy-hour clock; replaced once a day. */
+    private static final class Day {
+        final long startMillis;
+        final long endMillis;
+        final int dayOfWeek; // 0 = Monday
+
+        Day(long startMillis, long endMillis, int dayOfWeek) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.dayOfWeek = dayOfWeek;
+        }
+    }
+
+    private final int items;
+    private final long[] price;
+    private final int[] taxClass;
+    private final long[] classBp;
+    private final long serviceBp;
+    private final long[] discountBp = new long[3];
+    // happy hour: window w covers minutes [from, to) on days in mask, with promoBp[w * items + i] off item i
+    private final int[] windowDays;
+    private final int[] windowFrom;
+    private final int[] windowTo;
+    private final long[] promoBp;
+    // combo c is components [comboStart[c], comboStart[c + 1]); each takes comboCut[k] off per deal
+    private final String[] comboNames;
+    private final int[] comboStart;
+    private final int[] comboItem;
+    private final int[] comboQty;
+    private final long[] comboCut;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ThreadLocal<Scratch> scratch;
+    private volatile Day day = new Day(0, 0, 0);
+
+    private PricingEngine(Rules r) {
+        items = r.price.length;
+        price = r.price;
+        classBp = r.classRates.stream().mapToLong(Long::longValue).toArray();
+        taxClass = r.taxClass;
+        serviceBp = r.serviceBp;
+        discountBp[SENIOR] = r.seniorBp;
+        discountBp[PWD] = r.pwdBp;
+        int w = r.windows.size();
+        windowDays = new int[w];
+        windowFrom = new int[w];
+        windowTo = new int[w];
+        promoBp = new long[w * items];
+        for (int i = 0; i < w; i++) {
+            int[] win = r.windows.get(i);
+            windowDays[i] = win[0];
+            windowFrom[i] = win[1];
+            windowTo[i] = win[2];
+            System.arraycopy(r.windowBp.get(i), 0, promoBp, i * items, items);
+        }
+        int c = r.combos.size();
+        comboNames = new String[c];
+        comboStart = new int[c + 1];
+        int k = 0;
+        for (int i = 0; i < c; i++) k += r.combos.get(i).items.length;
+        comboItem = new int[k];
+        comboQty = new int[k];
+        comboCut = new long[k];
+        k = 0;
+        for (int i = 0; i < c; i++) {
+            Combo combo = r.combos.get(i);
+            comboNames[i] = combo.name;
+            comboStart[i] = k;
+            System.arraycopy(combo.items, 0, comboItem, k, combo.items.length);
+            System.arraycopy(combo.qty, 0, comboQty, k, combo.qty.length);
+            System.arraycopy(combo.cut, 0, comboCut, k, combo.cut.length);
+            k += combo.items.length;
+        }
+        comboStart[c] = k;
+        int classes = classBp.length;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(items, classes));
+    }
+
+    /** The built-in rules: everything taxed at {@link Calc#TAX_RATE_BP}, no discounts or service charge. */
+    static PricingEngine standard(MenuCatalog catalog) {
+        return new PricingEngine(new Rules(catalog));
+    }
+
+    static PricingEngine load(File f, MenuCatalog catalog) throws IOException {
+        Rules rules = new Rules(catalog);
+        try (BufferedReader r = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = r.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] cols = line.split("\\|");
+                for (int i = 0; i < cols.length; i++) cols[i] = cols[i].trim();
+                try {
+                    rules.add(cols);
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    throw new IOException(f + ":" + lineNo + ": " + (e.getMessage() == null ? "malformed rule" : e.getMessage()));
+                }
+            }
+        }
+        return new PricingEngine(rules);
+    }
+
+    /**
+     * Prices every line with a quantity (as the running sub total does) at
+     * {@code timeMillis} and stores the discount, service charge, tax and
+     * total on {@code o}. Combos take units first, happy hour prices what's
+     * left, then the table's senior/PWD share comes off VAT-free; the service
+     * charge is on the discounted amount and is not taxed.
+     */
+    void price(TableOrder o, long timeMillis) {
+        Scratch s = scratch.get();
+        int[] left = s.left;
+        long[] net = s.net;
+        long gross = 0;
+        Arrays.fill(left, 0, items, 0);
+        Arrays.fill(net, 0, items, 0L);
+        for (int k = 0; k < o.lineCount(); k++) {
+            int i = o.lineItem(k);
+            int q = o.lineQuantity(k);
+            left[i] = q;
+            net[i] = q * price[i];
+            gross += net[i];
+        }
+
+        long discount = 0;
+        for (int c = 0; c < comboNames.length; c++) {
+            int deals = Integer.MAX_VALUE;
+            for (int k = comboStart[c]; k < comboStart[c + 1]; k++) deals = Math.min(deals, left[comboItem[k]] / comboQty[k]);
+            if (deals == 0) continue;
+            for (int k = comboStart[c]; k < comboStart[c + 1]; k++) {
+                left[comboItem[k]] -= deals * comboQty[k];
+                net[comboItem[k]] -= deals * comboCut[k];
+                discount += deals * comboCut[k];
+            }
+        }
+
+        if (windowDays.length > 0) {
+            long active = activeWindows(timeMillis);
+            if (active != 0) {
+                for (int i = 0; i < items; i++) {
+                    if (left[i] == 0) continue;
+                    long bp = 0;
+                    for (int w = 0; w < windowDays.length; w++) {
+                        if ((active & (1L << w)) != 0) bp = Math.max(bp, promoBp[w * items + i]);
+                    }
+                    long cut = rate(left[i] * price[i], bp);
+                    net[i] -= cut;
+                    discount += cut;
+                }
+            }
+        }
+
+        long[] base = s.classBase;
+        Arrays.fill(base, 0);
+        for (int i = 0; i < items; i++) base[taxClass[i]] += net[i];
+        int kind = o.getDiscountKind();
+        int guests = o.getGuests();
+        long share = kind == NONE || guests == 0 ? 0 : Math.min(o.getDiscountedGuests(), guests);
+        long tax = 0, personal = 0, netTotal = 0;
+        for (int g = 0; g < base.length; g++) {
+            long exempt = share == 0 ? 0 : (base[g] * share + guests / 2) / guests;
+            personal += rate(exempt, discountBp[kind]);
+            tax += rate(base[g] - exempt, classBp[g]);
+            netTotal += base[g];
+        }
+        discount += personal;
+        long service = rate(netTotal - personal, serviceBp);
+        o.setPricing(discount, service, tax, gross - discount + service + tax);
+    }
+
+    int comboCount() { return comboNames.length; }
+    int happyHourCount() { return windowDays.length; }
+
+    /** One line for the log: what was compiled. */
+    String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(items).append(" items, VAT ");
+        for (int g = 0; g < classBp.length; g++) sb.append(g == 0 ? "" : "/").append(percent(classBp[g]));
+        sb.append(", service ").append(percent(serviceBp));
+        sb.append(", senior ").append(percent(discountBp[SENIOR])).append(", PWD ").append(percent(discountBp[PWD]));
+        sb.append(", ").append(windowDays.length).append(" happy hours, ").append(comboNames.length).append(" combos");
+        return sb.toString();
+    }
+
+    private long activeWindows(long timeMillis) {
+        Day d = day;
+        if (timeMillis < d.startMillis || timeMillis >= d.endMillis) {
+            ZonedDateTime z = Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate().atStartOfDay(zone);
+            d = new Day(z.toInstant().toEpochMilli(), z.plusDays(1).toInstant().toEpochMilli(), z.getDayOfWeek().getValue() - 1);
+            day = d;
+        }
+        int minute = (int) ((timeMillis - d.startMillis) / 60_000);
+        long active = 0;
+        for (int w = 0; w < windowDays.length; w++) {
+            if ((windowDays[w] & (1 << d.dayOfWeek)) != 0 && minute >= windowFrom[w] && minute < windowTo[w]) active |= 1L << w;
+        }
+        return active;
+    }
+
+    private static long rate(long cents, long bp) {
+        return bp == 0 ? 0 : (cents * bp + 5000) / 10000;
+    }
+
+    private static String percent(long bp) {
+        return BigDecimal.valueOf(bp, 2).stripTrailingZeros().toPlainString() + "%";
+    }
+
+    // ---- compiling ------------------------------------------------------------
+
+    private static final class Combo {
+        final String name;
+        final int[] items;
+        final int[] qty;
+        final long[] cut;
+
+        Combo(String name, int[] items, int[] qty, long[] cut) {
+            this.name = name;
+            this.items = items;
+            this.qty = qty;
+            this.cut = cut;
+        }
+    }
+
+    /** Rules as they are read, before they are flattened. */
+    private static final class Rules {
+        final MenuCatalog catalog;
+        final long[] price;
+        final int[] taxClass;
+        final List<Long> classRates = new ArrayList<>();
+        long serviceBp;
+        long seniorBp = 2000;
+        long pwdBp = 2000;
+        final List<int[]> windows = new ArrayList<>();
+        final List<long[]> windowBp = new ArrayList<>();
+        final List<Combo> combos = new ArrayList<>();
+
+        Rules(MenuCatalog catalog) {
+            this.catalog = catalog;
+            this.price = catalog.priceCents();
+            this.taxClass = new int[price.length];
+            classRates.add(Calc.TAX_RATE_BP);
+        }
+
+        void add(String[] cols) {
+            switch (cols[0].toLowerCase(Locale.ROOT)) {
+                case "vat": {
+                    long bp = cols[2].equalsIgnoreCase("exempt") ? 0 : basisPoints(cols[2]);
+                    int g = classRates.indexOf(bp);
+                    if (g < 0) {
+                        g = classRates.size();
+                        classRates.add(bp);
+                    }
+                    for (int i : select(cols[1])) taxClass[i] = g;
+                    break;
+                }
+                case "service":
+                    serviceBp = basisPoints(cols[1]);
+                    break;
+                case "senior":
+                    seniorBp = basisPoints(cols[1]);
+                    break;
+                case "pwd":
+                    pwdBp = basisPoints(cols[1]);
+                    break;
+                case "happy-hour": {
+                    if (windows.size() == 64) throw new IllegalArgumentException("at most 64 happy hours");
+                    long bp = basisPoints(cols[2]);
+                    long[] row = new long[price.length];
+                    for (int i : select(cols[1])) row[i] = bp;
+                    windows.add(window(cols[3]));
+                    windowBp.add(row);
+                    break;
+                }
+                case "combo":
+                    combos.add(combo(cols[1], cols[2], cols[3]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown rule '" + cols[0] + "'");
+            }
+        }
+
+        /** {@code Mon-Fri 15:00-18:00}, {@code Sat,Sun 14:00-17:00} or just {@code 15:00-18:00} (every day). */
+        private static int[] window(String spec) {
+            String[] p = spec.trim().split("\\s+");
+            int days = 0x7F;
+            String hours = p[p.length - 1];
+            if (p.length > 1) {
+                days = 0;
+                for (String part : p[0].split(",")) {
+                    String[] range = part.split("-");
+                    int from = day(range[0]), to = range.length > 1 ? day(range[1]) : from;
+                    for (int d = from; ; d = (d + 1) % 7) {
+                        days |= 1 << d;
+                        if (d == to) break;
+                    }
+                }
+            }
+            String[] hm = hours.split("-");
+            if (hm.length != 2) throw new IllegalArgumentException("expected HH:mm-HH:mm, got '" + hours + "'");
+            int from = LocalTime.parse(hm[0]).toSecondOfDay() / 60;
+            int to = hm[1].equals("24:00") ? 24 * 60 : LocalTime.parse(hm[1]).toSecondOfDay() / 60;
+            if (to <= from) throw new IllegalArgumentException("happy hour must end after it starts: '" + hours + "'");
+            return new int[] {days, from, to};
+        }
+
+        private static int day(String s) {
+            String d = s.trim().toLowerCase(Locale.ROOT);
+            for (int i = 0; i < DAYS.length; i++) {
+                if (d.startsWith(DAYS[i])) return i;
+            }
+            throw new IllegalArgumentException("unknown day '" + s + "'");
+        }
+
+        /**
+         * A combo's price cut is spread over its components in proportion to
+         * their list prices, so it lowers each line's VAT base fairly.
+         */
+        private Combo combo(String name, String priceText, String components) {
+            long comboPrice = cents(priceText);
+            String[] parts = components.split("\\+");
+            int[] items = new int[parts.length];
+            int[] qty = new int[parts.length];
+            long list = 0;
+            for (int k = 0; k < parts.length; k++) {
+                String part = parts[k].trim();
+                qty[k] = 1;
+                int x = part.indexOf(' ');
+                if (x > 0 && part.substring(0, x).toLowerCase(Locale.ROOT).matches("\\d+x")) {
+                    qty[k] = Integer.parseInt(part.substring(0, x - 1));
+                    part = part.substring(x + 1).trim();
+                }
+                int[] matches = select("item:" + part);
+                if (matches.length != 1) {
+                    throw new IllegalArgumentException("combo item '" + part + "' matches " + matches.length + " menu items; add @<price>");
+                }
+                items[k] = matches[0];
+                list += qty[k] * price[items[k]];
+            }
+            long off = list - comboPrice;
+            if (off < 0) throw new IllegalArgumentException("combo '" + name + "' costs more than its items (" + Calc.formatMoney(list) + ")");
+            long[] cut = new long[parts.length];
+            long given = 0;
+            for (int k = 0; k < parts.length; k++) {
+                long lineList = qty[k] * price[items[k]];
+                // per deal, for all of this component's units; the last one takes the rounding remainder
+                cut[k] = k == parts.length - 1 ? off - given : off * lineList / list;
+                given += cut[k];
+            }
+            return new Combo(name, items, qty, cut);
+        }
+
+        private int[] select(String selector) {
+            String s = selector.trim();
+            String lower = s.toLowerCase(Locale.ROOT);
+            List<Integer> out = new ArrayList<>();
+            for (int i = 0; i < price.length; i++) {
+                Product p = catalog.product(i);
+                boolean match;
+                if (s.equals("*")) {
+                    match = true;
+                } else if (lower.equals("food")) {
+                    match = p instanceof Food;
+                } else if (lower.equals("drink")) {
+                    match = p instanceof Drink;
+                } else if (lower.startsWith("category:")) {
+                    match = catalog.categories().get(catalog.categoryOf(i)).equalsIgnoreCase(s.substring(9).trim());
+                } else if (lower.startsWith("item:")) {
+                    String name = s.substring(5).trim();
+                    int at = name.lastIndexOf('@');
+                    long wanted = -1;
+                    if (at > 0) {
+                        wanted = cents(name.substring(at + 1));
+                        name = name.substring(0, at).trim();
+                    }
+                    match = p.getName().equalsIgnoreCase(name) && (wanted < 0 || price[i] == wanted);
+                } else {
+                    throw new IllegalArgumentException("unknown item selector '" + s + "'");
+                }
+                if (match) out.add(i);
+            }
+            if (out.isEmpty()) throw new IllegalArgumentException("'" + s + "' matches no menu item");
+            return out.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private static long basisPoints(String s) {
+            String t = s.trim();
+            if (!t.endsWith("%")) throw new IllegalArgumentException("expected a percentage, got '" + s + "'");
+            long bp = new BigDecimal(t.substring(0, t.length() - 1).trim()).movePointRight(2).longValueExact();
+            if (bp < 0 || bp > 10000) throw new IllegalArgumentException("percentage out of range: '" + s + "'");
+            return bp;
+        }
+
+        private static long cents(String s) {
+            return new BigDecimal(s.trim()).movePointRight(2).longValueExact();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background print queue. Each device has its own queue and writer thread,
+ * so a jammed or unplugged printer only holds up its own jobs and never the
+ * caller: {@link #submit} just files the job and returns. Jobs with the same
+ * key that are still waiting are coalesced (a receipt reprinted twice prints
+ * once), and everything waiting for a device is written in one batch. A
+ * failed batch stays queued and is retried with backoff.
+ *
+ * <p>Devices are named by a sink spec: {@code file:<path>} appends to a file
+ * (the stand-in used for testing), {@code pipe:<path>} writes to a named pipe
+ * and anything else is opened as a device path such as {@code /dev/usb/lp0}.
+ */
+class PrintSpooler implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(PrintSpooler.class.getName());
+
+    private static final int MAX_QUEUED = 256;
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    /** Where a device's bytes go. Opened on first write, reopened after an error. */
+    interface Sink extends Closeable {
+        void write(byte[] data) throws IOException;
+        void flush() throws IOException;
+    }
+
+    /** A sink for {@code spec} as described in the class comment. */
+    static Sink sinkFor(String spec) {
+        if (spec.startsWith("file:")) return new StreamSink(new File(spec.substring(5)), true);
+        if (spec.startsWith("pipe:")) return new StreamSink(new File(spec.substring(5)), false);
+        return new StreamSink(new File(spec), false);
+    }
+
+    private static final class StreamSink implements Sink {
+        private final File file;
+        private final boolean append;
+        private OutputStream out;
+
+        StreamSink(File file, boolean append) {
+            this.file = file;
+            this.append = append;
+        }
+
+        @Override
+        public void write(byte[] data) throws IOException {
+            if (out == null) {
+                File parent = file.getAbsoluteFile().getParentFile();
+                if (append && parent != null) parent.mkdirs();
+                // opening a pipe waits for its reader; this runs on the device's own thread
+                out = new FileOutputStream(file, append);
+            }
+            out.write(data);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                try {
+                    out.close();
+                } finally {
+                    out = null;
+                }
+            }
+        }
+    }
+
+    /** Queue, writer thread and status for one device. */
+    private final class Device implements Runnable {
+        final String spec;
+        final Sink sink;
+        final Thread thread;
+        // guarded by this; insertion order is print order
+        final Map<String, byte[]> queued = new LinkedHashMap<>();
+        long anonymous;
+        volatile String lastError;
+        volatile long printed;
+        volatile long dropped;
+        volatile long coalesced;
+
+        Device(String spec) {
+            this.spec = spec;
+            this.sink = sinkFor(spec);
+            this.thread = new Thread(this, "print-" + spec);
+            thread.setDaemon(true);
+        }
+
+        synchronized void add(String key, byte[] data) {
+            if (key == null) key = "#" + (anonymous++);
+            if (queued.remove(key) != null) coalesced++;
+            if (queued.size() >= MAX_QUEUED) {
+                Iterator<String> it = queued.keySet().iterator();
+                it.next();
+                it.remove();
+                dropped++;
+                LOG.warning(spec + ": print queue full, dropped the oldest job");
+            }
+            queued.put(key, data);
+            notifyAll();
+        }
+
+        synchronized int size() {
+            return queued.size();
+        }
+
+        @Override
+        public void run() {
+            long backoff = MIN_RETRY_MILLIS;
+            while (true) {
+                List<Map.Entry<String, byte[]>> batch;
+                synchronized (this) {
+                    while (queued.isEmpty() && !closed) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (queued.isEmpty()) return;
+                    batch = new ArrayList<>(queued.entrySet());
+                }
+                try {
+                    for (Map.Entry<String, byte[]> job : batch) sink.write(job.getValue());
+                    sink.flush();
+                } catch (IOException e) {
+                    lastError = ClockText.now() + " " + e.getMessage();
+                    LOG.log(Level.WARNING, spec + ": print failed, retrying in " + backoff + " ms", e);
+                    try {
+                        sink.close();
+                    } catch (IOException ignored) {
+                        // already broken
+                    }
+                    if (closed) return;
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    backoff = Math.min(MAX_RETRY_MILLIS, backoff * 2);
+                    continue;
+                }
+                backoff = MIN_RETRY_MILLIS;
+                lastError = null;
+                synchronized (this) {
+                    // only remove what was written; a job replaced meanwhile stays for the next batch
+                    for (Map.Entry<String, byte[]> job : batch) {
+                        if (queued.get(job.getKey()) == job.getValue()) queued.remove(job.getKey());
+                    }
+                    printed += batch.size();
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private final Map<String, Device> devices = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /** Queues {@code data} for {@code device}; a waiting job with the same non-null {@code key} is replaced. */
+    void submit(String device, String key, byte[] data) {
+        if (closed) throw new IllegalStateException("spooler closed");
+        devices.computeIfAbsent(device, spec -> {
+            Device d = new Device(spec);
+            d.thread.start();
+            return d;
+        }).add(key, data);
+    }
+
+    void printReceipt(String device, int invoiceID, CharSequence text) {
+        submit(device, invoiceID == 0 ? null : "receipt:" + invoiceID, EscPos.receipt(text));
+    }
+
+    void printTicket(String device, Kitchen.Ticket t) {
+        submit(device, "ticket:" + t.station + ":" + t.invoiceID, EscPos.ticket(t));
+    }
+
+    int queued(String device) {
+        Device d = devices.get(device);
+        return d == null ? 0 : d.size();
+    }
+
+    /** One line per device: queue depth, jobs printed, coalesced and dropped, last error. */
+    String status() {
+        StringBuilder sb = new StringBuilder();
+        for (Device d : devices.values()) {
+            sb.append(String.format("%s: %d queued, %d printed, %d coalesced, %d dropped%s%n", d.spec, d.size(),
+                    d.printed, d.coalesced, d.dropped, d.lastError == null ? "" : ", last error " + d.lastError));
+        }
+        return sb.toString();
+    }
+
+    /** Stops taking jobs and gives the writers up to {@code timeoutMillis} to finish what's queued. */
+    void close(long timeoutMillis) {
+        closed = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Device d : devices.values()) {
+            synchronized (d) {
+                d.notifyAll();
+            }
+        }
+        for (Device d : devices.values()) {
+            try {
+                d.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (d.thread.isAlive()) LOG.warning(d.spec + ": " + d.size() + " jobs not printed at shutdown");
+        }
+    }
+
+    @Override
+    public void close() {
+        close(2000);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mycompany.restaurantsystem;
+
+/**
+ * A menu item. Immutable, so one instance is shared by the catalog, every
+ * table's order and every receipt; how many a table ordered lives in its
+ * {@link TableOrder}.
+ */
+abstract class Product {
+    private final String name;
+    private final double price;
+    private final long priceCents;
+
+    public Product(String name, double price) {
+        this.name = name;
+        this.price = price;
+        this.priceCents = Calc.toCents(price);
+    }
+
+    public final String getName() { return name; }
+    public final double getPrice() { return price; }
+    public final long getPriceCents() { return priceCents; }
+}
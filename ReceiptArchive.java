@@ -0,0 +1,238 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Archives completed receipts into daily rolling files without blocking the
+ * caller. {@link #submit} only enqueues; a background writer drains whatever
+ * has queued up, writes it to {@code receipts-yyyy-MM-dd.log} with one
+ * gathering write, appends fixed-size {@code (invoice, offset, length)}
+ * entries to the matching {@code .idx} file and fsyncs both once per batch.
+ * The index is loaded at startup so any archived invoice can be read back
+ * with a single positional read.
+ */
+class ReceiptArchive implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(ReceiptArchive.class.getName());
+
+    private static final int INDEX_ENTRY_BYTES = 16;
+    private static final int MAX_BATCH = 512;
+    private static final String LOG_PREFIX = "receipts-";
+
+    private static final class Entry {
+        final int invoiceID;
+        final long timeMillis;
+        final String text;
+        Entry(int invoiceID, long timeMillis, String text) { this.invoiceID = invoiceID; this.timeMillis = timeMillis; this.text = text; }
+    }
+
+    private static final class Location {
+        final LocalDate day;
+        final long offset;
+        final int length;
+        Location(LocalDate day, long offset, int length) { this.day = day; this.offset = offset; this.length = length; }
+    }
+
+    private static final Entry STOP = new Entry(0, 0, "");
+
+    private final Path dir;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>(100_000);
+    private final Map<Integer, Location> index = new ConcurrentHashMap<>();
+    private final Thread writer;
+
+    // writer thread only
+    private LocalDate openDay;
+    private FileChannel logChannel;
+    private FileChannel idxChannel;
+
+    ReceiptArchive(File dir) throws IOException {
+        this.dir = dir.toPath();
+        Files.createDirectories(this.dir);
+        loadIndexes();
+        writer = new Thread(this::writeLoop, "receipt-archive-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "receipt-archive-shutdown"));
+    }
+
+    /** Queues a receipt for archiving; never blocks. Returns false if the queue is full. */
+    boolean submit(int invoiceID, String receiptText, long timeMillis) {
+        boolean queued = queue.offer(new Entry(invoiceID, timeMillis, receiptText));
+        if (!queued) LOG.severe("receipt archive queue full, invoice " + invoiceID + " not archived");
+        return queued;
+    }
+
+    /** Reads an archived receipt back, or returns null if the invoice was never archived. */
+    String lookup(int invoiceID) throws IOException {
+        Location loc = index.get(invoiceID);
+        if (loc == null) return null;
+        ByteBuffer buf = ByteBuffer.allocate(loc.length);
+        try (FileChannel ch = FileChannel.open(logFile(loc.day), StandardOpenOption.READ)) {
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, loc.offset + buf.position()) < 0) break;
+            }
+        }
+        return new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        if (!writer.isAlive()) return;
+        queue.offer(STOP);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                boolean stop = batch.remove(STOP);
+                try {
+                    writeBatch(batch);
+                } catch (IOException e) {
+                    LOG.log(Level.SEVERE, "could not archive " + batch.size() + " receipts", e);
+                }
+                batch.clear();
+                if (stop) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeDay();
+        }
+    }
+
+    /** Group commit: one gathering write and one fsync per day touched by the batch. */
+    private void writeBatch(List<Entry> batch) throws IOException {
+        int i = 0;
+        while (i < batch.size()) {
+            LocalDate day = dayOf(batch.get(i).timeMillis);
+            int j = i;
+            while (j < batch.size() && dayOf(batch.get(j).timeMillis).equals(day)) j++;
+            roll(day);
+
+            long offset = logChannel.size();
+            ByteBuffer[] texts = new ByteBuffer[j - i];
+            ByteBuffer idx = ByteBuffer.allocate((j - i) * INDEX_ENTRY_BYTES);
+            Location[] locations = new Location[j - i];
+            for (int k = i; k < j; k++) {
+                Entry e = batch.get(k);
+                byte[] bytes = (e.text + "\f\n").getBytes(StandardCharsets.UTF_8);
+                texts[k - i] = ByteBuffer.wrap(bytes);
+                int length = bytes.length - 2;
+                idx.putInt(e.invoiceID).putLong(offset).putInt(length);
+                locations[k - i] = new Location(day, offset, length);
+                offset += bytes.length;
+            }
+            idx.flip();
+            logChannel.position(logChannel.size());
+            while (texts[texts.length - 1].hasRemaining()) logChannel.write(texts);
+            // the text is on disk before any index entry can point at it
+            logChannel.force(false);
+            long idxEnd = idxChannel.size();
+            idxChannel.position(idxEnd);
+            try {
+                while (idx.hasRemaining()) idxChannel.write(idx);
+                idxChannel.force(false);
+            } catch (IOException e) {
+                // a partial entry would shift every later one
+                idxChannel.truncate(idxEnd);
+                throw e;
+            }
+            for (int k = i; k < j; k++) index.put(batch.get(k).invoiceID, locations[k - i]);
+            i = j;
+        }
+    }
+
+    private void roll(LocalDate day) throws IOException {
+        if (day.equals(openDay)) return;
+        closeDay();
+        logChannel = FileChannel.open(logFile(day), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        idxChannel = FileChannel.open(indexFile(day), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        openDay = day;
+    }
+
+    private void closeDay() {
+        try {
+            if (logChannel != null) logChannel.close();
+            if (idxChannel != null) idxChannel.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "could not close archive for " + openDay, e);
+        }
+        logChannel = null;
+        idxChannel = null;
+        openDay = null;
+    }
+
+    /**
+     * Loads every day's index. An index cut short by a crash is truncated
+     * back to its last whole entry that points inside the day's log, so
+     * entries appended after it line up again.
+     */
+    private void loadIndexes() throws IOException {
+        File[] files = dir.toFile().listFiles((d, name) -> name.startsWith(LOG_PREFIX) && name.endsWith(".idx"));
+        if (files == null) return;
+        for (File f : files) {
+            String name = f.getName();
+            LocalDate day = LocalDate.parse(name.substring(LOG_PREFIX.length(), name.length() - 4));
+            File log = logFile(day).toFile();
+            long logSize = log.length();
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(f.toPath()));
+            while (buf.remaining() >= INDEX_ENTRY_BYTES) {
+                int invoiceID = buf.getInt(buf.position());
+                long offset = buf.getLong(buf.position() + 4);
+                int length = buf.getInt(buf.position() + 12);
+                if (offset < 0 || length < 0 || offset + length > logSize) break;
+                index.put(invoiceID, new Location(day, offset, length));
+                buf.position(buf.position() + INDEX_ENTRY_BYTES);
+            }
+            if (buf.hasRemaining()) {
+                LOG.warning("truncating " + name + " at entry " + buf.position() / INDEX_ENTRY_BYTES + ", " + buf.remaining() + " bytes dropped");
+                try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.WRITE)) {
+                    ch.truncate(buf.position());
+                    ch.force(false);
+                }
+            }
+        }
+    }
+
+    private LocalDate dayOf(long timeMillis) {
+        return Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate();
+    }
+
+    private Path logFile(LocalDate day) {
+        return dir.resolve(LOG_PREFIX + day + ".log");
+    }
+
+    private Path indexFile(LocalDate day) {
+        return dir.resolve(LOG_PREFIX + day + ".idx");
+    }
+}
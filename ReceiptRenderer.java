@@ -0,0 +1,218 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders receipts from a precompiled layout into a reusable char buffer.
+ * Fixed-width columns are padded by hand instead of going through
+ * {@code String.format}; the output matches the original format strings
+ * character for character. Instances are not thread-safe, each thread
+ * (or window) should own one.
+ */
+class ReceiptRenderer {
+
+    private static final String RULE = "-------------------------------------------\n";
+    private static final char[] HEADER = ("        HARAYA'S DINING\n"
+            + "  \"Your Filipino Comfort Food Destination.\"\n"
+            + RULE
+            + "Invoice ID: ").toCharArray();
+    private static final char[] PENDING = "PENDING".toCharArray();
+    private static final char[] DATE = "\nDate: ".toCharArray();
+    private static final char[] DRAFT = "DRAFT - changed since DONE, not settled\n".toCharArray();
+    private static final char[] TABLE = "Table: ".toCharArray();
+    private static final char[] WAITER = "Waiter: ".toCharArray();
+    private static final char[] RULE_CHARS = RULE.toCharArray();
+    // "%-20s %5s %10s\n" applied to "Item", "Qty", "Amount"
+    private static final char[] COLUMNS = "Item                   Qty     Amount\n".toCharArray();
+    private static final char[] FOOTER = "\nThank you! Come again.\n".toCharArray();
+
+    private static final int NAME_WIDTH = 20;
+    private static final int QTY_WIDTH = 5;
+    private static final int AMOUNT_WIDTH = 10;
+    private static final int TOTAL_WIDTH = 15;
+
+    private final List<Product> catalog;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final char[] scratch = new char[20];
+    private char[] buf = new char[1024];
+    private int len;
+
+    ReceiptRenderer(List<Product> catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Lays out a receipt for {@code order}. The table/waiter block is only
+     * written when {@code tableLabel} is non-null. The result stays in the
+     * internal buffer until the next call and can be copied out with one of
+     * the {@code writeTo} methods.
+     */
+    ReceiptRenderer render(TableOrder order, String tableLabel, String waiter, long timeMillis) {
+        len = 0;
+        append(HEADER);
+        // orders get their number when they are first DONE
+        if (order.getInvoiceID() == 0) append(PENDING);
+        else appendLong(order.getInvoiceID());
+        append(DATE);
+        append(ClockText.format(timeMillis));
+        append('\n');
+        // what was settled under this number isn't what the table holds now
+        if (order.isAmended()) append(DRAFT);
+        append(RULE_CHARS);
+        if (tableLabel != null) {
+            append(TABLE);
+            append(tableLabel);
+            append('\n');
+            append(WAITER);
+            append(String.valueOf(waiter));
+            append('\n');
+            append(RULE_CHARS);
+        }
+        append(COLUMNS);
+        append(RULE_CHARS);
+        for (int k = 0; k < order.lineCount(); k++) {
+            int q = order.lineQuantity(k);
+            if (order.isLinePurchased(k) && q > 0) {
+                Product p = catalog.get(order.lineItem(k));
+                padRight(p.getName(), NAME_WIDTH);
+                append(' ');
+                padLeft(scratch, formatLong(q), QTY_WIDTH);
+                append(' ');
+                padLeftMoney(q * p.getPriceCents(), AMOUNT_WIDTH);
+                append('\n');
+            }
+        }
+        append(RULE_CHARS);
+        totalLine("Sub Total:", order.getSubTotalCents());
+        // only priced orders with discounts or a service charge get these lines
+        if (order.getDiscountCents() != 0) totalLine(discountLabel(order), -order.getDiscountCents());
+        if (order.getServiceCents() != 0) totalLine("Service Charge:", order.getServiceCents());
+        totalLine("Tax:", order.getTaxCents());
+        totalLine("Total:", order.getTotalCents());
+        append(FOOTER);
+        return this;
+    }
+
+    int length() {
+        return len;
+    }
+
+    CharSequence asCharSequence() {
+        return CharBuffer.wrap(buf, 0, len);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, len);
+    }
+
+    void writeTo(StringBuilder out) {
+        out.append(buf, 0, len);
+    }
+
+    void writeTo(Writer out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    /**
+     * Encodes the rendered receipt as UTF-8 into {@code out}.
+     *
+     * @return false if {@code out} ran out of room; its position is then undefined
+     */
+    boolean writeTo(ByteBuffer out) {
+        encoder.reset();
+        CoderResult r = encoder.encode(CharBuffer.wrap(buf, 0, len), out, true);
+        if (r.isOverflow()) return false;
+        return !encoder.flush(out).isOverflow();
+    }
+
+    private void totalLine(String label, long cents) {
+        padRight(label, NAME_WIDTH);
+        append(' ');
+        padLeftMoney(cents, TOTAL_WIDTH);
+        append('\n');
+    }
+
+    private static String discountLabel(TableOrder order) {
+        if (order.getDiscountKind() == PricingEngine.NONE) return "Discount:";
+        return "Discount (" + (order.getDiscountKind() == PricingEngine.SENIOR ? "SC" : "PWD") + " "
+                + order.getDiscountedGuests() + "/" + order.getGuests() + "):";
+    }
+
+    private void padRight(String s, int width) {
+        append(s);
+        for (int i = s.length(); i < width; i++) append(' ');
+    }
+
+    private void padLeftMoney(long cents, int width) {
+        long abs = Math.abs(cents);
+        int pos = scratch.length;
+        long frac = abs % 100;
+        scratch[--pos] = (char) ('0' + frac % 10);
+        scratch[--pos] = (char) ('0' + frac / 10);
+        scratch[--pos] = '.';
+        long whole = abs / 100;
+        do {
+            scratch[--pos] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        if (cents < 0) scratch[--pos] = '-';
+        padLeft(scratch, pos, width);
+    }
+
+    /** Writes the digits of {@code v} right-aligned into {@link #scratch}, returning the start index. */
+    private int formatLong(long v) {
+        int pos = scratch.length;
+        long abs = Math.abs(v);
+        do {
+            scratch[--pos] = (char) ('0' + abs % 10);
+            abs /= 10;
+        } while (abs != 0);
+        if (v < 0) scratch[--pos] = '-';
+        return pos;
+    }
+
+    private void padLeft(char[] src, int from, int width) {
+        int n = src.length - from;
+        for (int i = n; i < width; i++) append(' ');
+        ensure(n);
+        System.arraycopy(src, from, buf, len, n);
+        len += n;
+    }
+
+    private void appendLong(long v) {
+        padLeft(scratch, formatLong(v), 0);
+    }
+
+    private void append(char c) {
+        ensure(1);
+        buf[len++] = c;
+    }
+
+    private void append(char[] chars) {
+        ensure(chars.length);
+        System.arraycopy(chars, 0, buf, len, chars.length);
+        len += chars.length;
+    }
+
+    private void append(String s) {
+        int n = s.length();
+        ensure(n);
+        s.getChars(0, n, buf, len);
+        len += n;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+}
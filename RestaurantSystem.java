@@ -4,143 +4,63 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import javax.imageio.ImageIO;
-
-interface MenuOperations {
-    void resetOrder(); 
-    double computeSubTotal();
-    double computeTax();
-    double computeTotal();
-}
-
-abstract class Product {
-    private String name;
-    private double price;
-    private int quantity;
-
-    public Product(String name, double price) {
-        this.name = name;
-        this.price = price;
-        this.quantity = 0;
-    }
-
-    public final String getName() { return name; }
-    public final double getPrice() { return price; }
-    public final int getQuantity() { return quantity; }
-    public final void setQuantity(int q) { this.quantity = q; }
-
-    public abstract double getTotal();
-}
-
-class Food extends Product {
-    public Food(String name, double price) { super(name, price); }
-    @Override public double getTotal() { return getPrice() * getQuantity(); }
-}
-
-class Drink extends Product {
-    public Drink(String name, double price) { super(name, price); }
-    @Override public double getTotal() { return getPrice() * getQuantity(); }
-}
-
-class Staff {
-    private String username;
-    private String password;
-    private String role;
-
-    public Staff(String username, String password, String role) {
-        this.username = username;
-        this.password = password;
-        this.role = role;
-    }
-
-    public String getUsername() { return username; }
-    public String getRole() { return role; }
-
-    public boolean checkPassword(String p) {
-        return Objects.equals(password, p);
-    }
-
-    public static final java.util.List<Staff> STAFFS = new java.util.ArrayList<>();
-
-    static {
-        STAFFS.add(new Staff("Laurence", "admin123", "Manager"));
-        STAFFS.add(new Staff("Joseph", "cashier001", "Cashier Counter 1"));
-        STAFFS.add(new Staff("Mariel", "cashier002", "Cashier Counter 2"));
-        STAFFS.add(new Staff("Alex", "cashier003", "Cashier Counter 3"));
-        STAFFS.add(new Staff("Andrew", "chef001", "Head Chef"));
-        STAFFS.add(new Staff("Mark", "waiter001", "Waiter"));
-        STAFFS.add(new Staff("Anna", "waiter002", "Waiter"));
-        STAFFS.add(new Staff("Jay", "waiter003", "Waiter"));
-        STAFFS.add(new Staff("Mika", "waiter004", "Waiter"));
-        STAFFS.add(new Staff("Rafael", "waiter005", "Waiter"));
-        STAFFS.add(new Staff("Diana", "cook001", "Cook"));
-        STAFFS.add(new Staff("Jonas", "cook002", "Cook"));
-    }
-
-    public static Staff authenticate(String username, String password) {
-        for (Staff s : STAFFS) {
-            if (s.getUsername().equals(username) && s.checkPassword(password)) {
-                return s;
-            }
-        }
-        return null;
-    }
-}
-
-class Calc {
-    public static final double TAX_RATE = 0.10;
-    public static double add(double a, double b) { return a + b; }
-    public static double add(double a, double b, double c) { return a + b + c; }
-    public static String formatMoney(double v) { return String.format("%.2f", v); }
-}
-
-class TableOrder {
-    int invoiceID;
-    boolean occupied;
-    String receiptText;
-    int[] quantities;       
-    boolean[] purchases;    
-    
-    TableOrder(int menuItemCount, int invoiceID) {
-        this.invoiceID = invoiceID;
-        this.occupied = false;
-        this.receiptText = "";
-        this.quantities = new int[menuItemCount];
-        this.purchases = new boolean[menuItemCount];
-        Arrays.fill(this.quantities, 0);
-        Arrays.fill(this.purchases, false);
-    }
-}
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.stream.Stream;
 
 public class RestaurantSystem extends JFrame implements MenuOperations {
 
-    private static class MenuItemCard {
-        Product product;
-        String imagePath;
-        JSpinner spinner;
-        JCheckBox purchase;
-        MenuItemCard(Product p, String img) { product = p; imagePath = img; }
-    }
+    private static final long serialVersionUID = 1L;
 
-    private java.util.List<MenuItemCard> cards = new ArrayList<>();
+    private MenuCatalog catalog;
+    private MenuGrid menuGrid;
     private JTextArea receiptArea = new JTextArea();
     private JTextField txtTax = new JTextField(8);
     private JTextField txtSubTotal = new JTextField(8);
     private JTextField txtTotal = new JTextField(8);
     private JLabel lblStaffInfo = new JLabel("Not logged in");
-    private static int invoiceCounter = 1000;
+    private final ThumbnailCache thumbnails = new ThumbnailCache(new File("data/thumbs"), 256, 1024);
+
+    // shared by every counter window in this JVM, opened by the first one
+    private static OrderEngine engine;
+    private static final File STOCK_FILE = new File("data/stock.txt");
+    // the invoice store and receipt archive opening, then the order intake starting
+    private static CompletableFuture<Void> history;
+
+    private static final LatencyHistogram T_DONE = Metrics.timer("doDone");
+    private static final LatencyHistogram T_TOTAL = Metrics.timer("doTotal");
+    private static final LatencyHistogram T_RECEIPT = Metrics.timer("doReceipt");
+    private static final LatencyHistogram T_LOAD_TABLE = Metrics.timer("loadTableOrderToUI");
 
     private JComboBox<String> tableCombo;
+    private TableComboModel tableModel;
     private JComboBox<String> waiterCombo;
-
-    // per-table orders
-    private final TableOrder[] tableOrders;
-    private final int TABLE_COUNT = 10;
+    private CommandBar commandBar;
+
+    private final int DINE_IN_TABLES = Math.max(1, Integer.getInteger("restaurant.tables", 10));
+    // orders from the intake API land on these "Online" tables after the dine-in ones; they exist
+    // with the intake off too, so a restart without it keeps the journal's online orders payable
+    private final int ONLINE_TABLES = Math.max(1, Integer.getInteger("restaurant.intakeTables", 20));
+    private final int TABLE_COUNT = DINE_IN_TABLES + ONLINE_TABLES;
+    // table changes from other threads, collected until the next EDT pass picks them all up at once
+    private final AtomicLongArray changedTables = new AtomicLongArray(TABLE_COUNT);
+    private final AtomicBoolean tableChangesQueued = new AtomicBoolean();
+    // per-table copies of the orders, refreshed from the registry only when their version is behind;
+    // the grid binds to one of them at a time
+    private final TableOrder[] tableViews = new TableOrder[TABLE_COUNT];
+    // table whose order the cards currently show, and its view
+    private int displayedTable = -1;
+    private TableOrder displayedOrder;
 
     private JDialog receiptDialog = null;
     private JButton btnPrintReceipt;
@@ -157,11 +77,11 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
         setLocationRelativeTo(null);
 
         loadMenuItems();
+        StartupTimeline.mark("menu load");
 
-        tableOrders = new TableOrder[TABLE_COUNT];
-        for (int i = 0; i < TABLE_COUNT; i++) {
-            tableOrders[i] = null;
-        }
+        boolean firstWindow = engine == null;
+        if (firstWindow) openSharedState();
+        engine.registry().addListener(this::onTableChanged);
 
         JPanel top = new JPanel(new BorderLayout());
         top.setBorder(new EmptyBorder(8, 12, 8, 12));
@@ -188,17 +108,24 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
         JButton btnAddAccount = new JButton("Add Account");
         JButton btnListStaff = new JButton("List Staff");
 
+        Font staffFont = new Font("SansSerif", Font.BOLD, 12);
         for (JButton b : new JButton[]{btnLogin, btnAddAccount, btnListStaff}) {
             b.setBackground(LIGHT_BROWN);
             b.setForeground(COFFEE_BROWN);
-            b.setFont(new Font("SansSerif", Font.BOLD, 12));
+            b.setFont(staffFont);
             b.setFocusPainted(false);
             topRight.add(b);
         }
 
         topRight.add(new JLabel("Select Table:"));
-        tableCombo = new JComboBox<>();
-        updateTableCombo(); 
+        tableModel = new TableComboModel(TABLE_COUNT, DINE_IN_TABLES);
+        tableCombo = new JComboBox<>(tableModel);
+        // keeps the combo from measuring every label to size itself
+        String widest = tableName(DINE_IN_TABLES - 1).length() >= tableName(TABLE_COUNT - 1).length()
+                ? tableName(DINE_IN_TABLES - 1) : tableName(TABLE_COUNT - 1);
+        tableCombo.setPrototypeDisplayValue(widest + " - OCCUPIED");
+        tableCombo.setMaximumRowCount(20);
+        updateTableCombo();
         tableCombo.setPreferredSize(new Dimension(180, 28));
         topRight.add(tableCombo);
 
@@ -218,37 +145,32 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
         btnLogin.addActionListener(e -> showStaffLoginDialog());
         btnAddAccount.addActionListener(e -> showAddAccountDialog());
         btnListStaff.addActionListener(e -> showStaffListDialog());
+        StartupTimeline.mark("title bar");
 
         JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
         split.setResizeWeight(0.72);
 
-        JPanel grid = new JPanel();
-        grid.setLayout(new BoxLayout(grid, BoxLayout.Y_AXIS));
-        grid.setBorder(new EmptyBorder(10, 10, 10, 10));
-        grid.setBackground(LIGHT_BROWN);
-
-        grid.add(makeCategoryLabel("Main Dishes"));
-        JPanel mainDishPanel = new JPanel(new GridLayout(0, 4, 10, 10));
-        mainDishPanel.setBackground(LIGHT_BROWN);
-        for (int i = 0; i < 10; i++) mainDishPanel.add(buildCardPanel(cards.get(i)));
-        grid.add(mainDishPanel);
-
-        grid.add(Box.createVerticalStrut(20));
-        grid.add(makeCategoryLabel("Desserts"));
-        JPanel dessertPanel = new JPanel(new GridLayout(0, 4, 10, 10));
-        dessertPanel.setBackground(LIGHT_BROWN);
-        for (int i = 10; i < 14; i++) dessertPanel.add(buildCardPanel(cards.get(i)));
-        grid.add(dessertPanel);
-
-        grid.add(Box.createVerticalStrut(20));
-        grid.add(makeCategoryLabel("Drinks"));
-        JPanel drinkPanel = new JPanel(new GridLayout(0, 4, 10, 10));
-        drinkPanel.setBackground(LIGHT_BROWN);
-        for (int i = 14; i < cards.size(); i++) drinkPanel.add(buildCardPanel(cards.get(i)));
-        grid.add(drinkPanel);
-
-        JScrollPane leftScroll = new JScrollPane(grid);
-        split.setLeftComponent(leftScroll);
+        menuGrid = new MenuGrid(catalog, thumbnails, LIGHT_BROWN, COFFEE_BROWN, this::onCardChanged);
+        Inventory stock = engine.inventory();
+        if (stock != null) {
+            menuGrid.setSoldOut(stock::isSoldOut);
+            // only the one card changes; another counter's DONE may be the one that sold it out
+            stock.addListener((item, available, level) -> SwingUtilities.invokeLater(() -> menuGrid.refreshItem(item)));
+        }
+
+        StartupTimeline.mark("menu cards");
+
+        JScrollPane leftScroll = new JScrollPane(menuGrid);
+        leftScroll.getVerticalScrollBar().setUnitIncrement(24);
+        commandBar = new CommandBar(() -> new MenuIndex(catalog), LIGHT_BROWN, this::onCommand);
+        JPanel left = new JPanel(new BorderLayout());
+        left.add(commandBar, BorderLayout.NORTH);
+        left.add(leftScroll, BorderLayout.CENTER);
+        split.setLeftComponent(left);
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F2"), "commandBar");
+        getRootPane().getActionMap().put("commandBar", new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { commandBar.focus(); }
+        });
 
         JPanel right = new JPanel(new BorderLayout(6, 6));
         right.setBorder(new EmptyBorder(10, 10, 10, 10));
@@ -282,12 +204,29 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
         JButton btnReceipt = new JButton("Receipt");
         btnPrintReceipt = new JButton("Print Receipt");
         JButton btnReset = new JButton("Reset");
+        JButton btnDiscount = new JButton("Discount");
+        JButton btnFindInvoice = new JButton("Find Invoice");
+        JButton btnKitchen = new JButton("Kitchen");
+        JButton btnSales = new JButton("Sales");
+        JButton btnStock = new JButton("Stock");
         JButton btnExit = new JButton("Exit");
-
-        for (JButton b : new JButton[]{btnDone, btnTotal, btnReceipt, btnPrintReceipt, btnReset, btnExit}) {
+        // DONE and the day's sales need the invoice history attached, and Find Invoice shows only if it
+        // opened; all come on once it has, so the EDT never waits for it
+        btnFindInvoice.setVisible(false);
+        btnDone.setEnabled(false);
+        btnSales.setEnabled(false);
+        history.thenRun(() -> SwingUtilities.invokeLater(() -> {
+            btnFindInvoice.setVisible(engine.archive() != null || engine.invoices() != null);
+            btnDone.setEnabled(true);
+            btnSales.setEnabled(true);
+        }));
+        btnStock.setVisible(engine.inventory() != null);
+
+        Font buttonFont = new Font("SansSerif", Font.BOLD, 14);
+        for (JButton b : new JButton[]{btnDone, btnTotal, btnReceipt, btnPrintReceipt, btnReset, btnDiscount, btnFindInvoice, btnKitchen, btnSales, btnStock, btnExit}) {
             b.setBackground(ORANGE);
             b.setForeground(COFFEE_BROWN);
-            b.setFont(new Font("SansSerif", Font.BOLD, 14));
+            b.setFont(buttonFont);
             b.setFocusPainted(false);
             bottom.add(b);
         }
@@ -297,277 +236,289 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
         btnDone.addActionListener(e -> doDone());
         btnTotal.addActionListener(e -> doTotal());
         btnReceipt.addActionListener(e -> doReceipt());
-        btnPrintReceipt.addActionListener(e -> saveReceiptToFile());
+        btnPrintReceipt.addActionListener(e -> printReceipt());
         btnReset.addActionListener(e -> nextOrderAction());
+        btnDiscount.addActionListener(e -> showDiscountDialog());
+        btnFindInvoice.addActionListener(e -> showFindInvoiceDialog());
+        btnKitchen.addActionListener(e -> showKitchenDialog());
+        btnSales.addActionListener(e -> showSalesDialog());
+        btnStock.addActionListener(e -> showStockDialog());
         btnExit.addActionListener(e -> System.exit(0));
 
         tableCombo.addActionListener(e -> {
-            int idx = tableCombo.getSelectedIndex();
-            if (idx >= 0 && idx < TABLE_COUNT) {
-                ensureTableOrderExists(idx);
+            int idx = tableModel.getSelectedIndex();
+            if (idx >= 0 && idx < TABLE_COUNT && idx != displayedTable) {
                 loadTableOrderToUI(idx);
             }
         });
 
-        if (tableCombo.getItemCount() > 0) {
-            tableCombo.setSelectedIndex(0);
-            ensureTableOrderExists(0);
-            loadTableOrderToUI(0);
-        }
+        StartupTimeline.mark("receipt panel and buttons");
 
+        tableModel.setSelectedIndex(0);
+        if (displayedTable != 0) loadTableOrderToUI(0);
+        StartupTimeline.mark("first table");
+
+        if (firstWindow) StartupTimeline.whenInteractive(this::afterFirstFrame);
         setVisible(true);
+        StartupTimeline.mark("layout and show");
     }
 
-    private JLabel makeCategoryLabel(String title) {
-       JLabel lbl = new JLabel(title, SwingConstants.CENTER);
-       lbl.setFont(new Font("Times New Roman", Font.BOLD, 40));
-       lbl.setForeground(COFFEE_BROWN); // keep text color
-      lbl.setOpaque(false); // make background transparent
-      lbl.setBorder(new LineBorder(LIGHT_BROWN, 5));
-      lbl.setPreferredSize(new Dimension(50, 50));
-      return lbl;
-}
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        StartupTimeline.painted();
+    }
 
+    /**
+     * What waits until the first window can be used: the metrics watchdog,
+     * then the end of the startup timeline once the first screen of
+     * thumbnails and the invoice history are in, and with
+     * {@code -Drestaurant.training=true} the {@link #train training} session.
+     */
+    private void afterFirstFrame() {
+        Metrics.start();
+        thumbnails.whenIdle(() -> {
+            StartupTimeline.event("first-screen images");
+            history.thenRunAsync(StartupTimeline::finish);
+        });
+        if (Boolean.getBoolean("restaurant.training")) train();
+    }
 
+    /**
+     * Reads the menu from {@code menu.txt} (or {@code -Drestaurant.menu=<file>}),
+     * falling back to the built-in menu if it is missing or unreadable.
+     */
     private void loadMenuItems() {
-        addMenuItem(new Food("Pancit", 150.0), "images/pancit.jpg");
-        addMenuItem(new Food("Crispy Pata", 350.0), "images/crispy_pata.jpeg");
-        addMenuItem(new Food("Beef Bulalo", 250.0), "images/beef_bulalo.jpg");
-        addMenuItem(new Food("Chicken Adobo", 100.0), "images/chicken_adobo.jpeg");
-        addMenuItem(new Food("Pork Sinigang", 140.0), "images/pork_sinigang.jpeg");
-        addMenuItem(new Food("Beef Caldereta", 150.0), "images/beef_caldereta.jpeg");
-        addMenuItem(new Food("Fried Bangus", 130.0), "images/fried_bangus.jpeg");
-        addMenuItem(new Food("Sisig Rice Meal", 125.0), "images/sisig.jpeg");
-        addMenuItem(new Food("Plain Rice", 135.0), "images/fried_rice.jpg");
-        addMenuItem(new Food("Plain Rice", 25.0), "images/plain_rice.jpeg");
-
-        addMenuItem(new Food("Strawberry Cake", 250.0), "images/strawberry_cake.jpg");
-        addMenuItem(new Food("Chocolate Cake", 300.0), "images/chocolate_cake.jpg");
-        addMenuItem(new Food("Fruits Cake", 500.0), "images/fruits_cake.jpg");
-        addMenuItem(new Food("Rainbow Cake", 100.0), "images/rainbow_cake.jpg");
-
-        addMenuItem(new Drink("Cold Coffee", 53.0), "images/cold_coffee.jpg");
-        addMenuItem(new Drink("Cappuccino", 55.0), "images/cappuccino.jpg");
-        addMenuItem(new Drink("Chocolate Coffee", 54.0), "images/chocolate_coffee.jpg");
-        addMenuItem(new Drink("Green Tea", 52.0), "images/green_tea.jpg");
-        addMenuItem(new Drink("Mineral Water", 6.5), "images/mineral_water.jpg");
-        addMenuItem(new Drink("Coca Cola", 31.5), "images/coca_cola.jpg");
-    }
-
-    private void addMenuItem(Product p, String imagePath) {
-        cards.add(new MenuItemCard(p, imagePath));
-    }
-
-    private JPanel buildCardPanel(MenuItemCard c) {
-        JPanel card = new JPanel(new BorderLayout());
-        card.setBorder(new LineBorder(Color.GRAY, 1));
-        card.setPreferredSize(new Dimension(180, 210));
-        card.setBackground(Color.WHITE);
-
-        JLabel imageLbl = new JLabel("", SwingConstants.CENTER);
-        imageLbl.setPreferredSize(new Dimension(160, 130));
-        ImageIcon icon = loadImageIcon(c.imagePath, 160, 100);
-        if (icon != null) imageLbl.setIcon(icon);
-        else imageLbl.setText("No Image");
-        card.add(imageLbl, BorderLayout.NORTH);
-
-        JPanel center = new JPanel(new GridLayout(0, 1));
-        center.setBackground(Color.WHITE);
-        JLabel name = new JLabel(c.product.getName(), SwingConstants.CENTER);
-        name.setFont(new Font("Serif", Font.BOLD, 14));
-        center.add(name);
-        JLabel price = new JLabel("₱" + Calc.formatMoney(c.product.getPrice()), SwingConstants.CENTER);
-        center.add(price);
-        card.add(center, BorderLayout.CENTER);
-
-        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        bottom.setBackground(Color.WHITE);
-        SpinnerNumberModel sm = new SpinnerNumberModel(0, 0, 100, 1);
-        JSpinner spinner = new JSpinner(sm);
-        JCheckBox chk = new JCheckBox("Purchase");
-        bottom.add(new JLabel("Quantity:"));
-        bottom.add(spinner);
-        bottom.add(chk);
-        c.spinner = spinner;
-        c.purchase = chk;
-        card.add(bottom, BorderLayout.SOUTH);
-
-        return card;
-    }
-
-    private ImageIcon loadImageIcon(String path, int w, int h) {
+        File menuFile = new File(System.getProperty("restaurant.menu", "menu.txt"));
         try {
-            File f = new File(path);
-            if (!f.exists()) return null;
-            Image img = ImageIO.read(f).getScaledInstance(w, h, Image.SCALE_SMOOTH);
-            return new ImageIcon(img);
+            catalog = MenuCatalog.load(menuFile);
         } catch (IOException e) {
-            return null;
+            if (menuFile.exists()) {
+                JOptionPane.showMessageDialog(this, "Could not read the menu, using the built-in one:\n" + e.getMessage(), "Menu Error", JOptionPane.WARNING_MESSAGE);
+            }
+            catalog = null;
         }
+        if (catalog == null || catalog.size() == 0) catalog = builtInMenu();
     }
 
-    private void doTotal() {
-        int idx = tableCombo.getSelectedIndex();
-        if (idx < 0 || idx >= TABLE_COUNT) return;
+    private static MenuCatalog builtInMenu() {
+        MenuCatalog.Builder c = new MenuCatalog.Builder();
+        c.add("Main Dishes", new Food("Pancit", 150.0), "images/pancit.jpg");
+        c.add("Main Dishes", new Food("Crispy Pata", 350.0), "images/crispy_pata.jpeg");
+        c.add("Main Dishes", new Food("Beef Bulalo", 250.0), "images/beef_bulalo.jpg");
+        c.add("Main Dishes", new Food("Chicken Adobo", 100.0), "images/chicken_adobo.jpeg");
+        c.add("Main Dishes", new Food("Pork Sinigang", 140.0), "images/pork_sinigang.jpeg");
+        c.add("Main Dishes", new Food("Beef Caldereta", 150.0), "images/beef_caldereta.jpeg");
+        c.add("Main Dishes", new Food("Fried Bangus", 130.0), "images/fried_bangus.jpeg");
+        c.add("Main Dishes", new Food("Sisig Rice Meal", 125.0), "images/sisig.jpeg");
+        c.add("Main Dishes", new Food("Plain Rice", 135.0), "images/fried_rice.jpg");
+        c.add("Main Dishes", new Food("Plain Rice", 25.0), "images/plain_rice.jpeg");
+
+        c.add("Desserts", new Food("Strawberry Cake", 250.0), "images/strawberry_cake.jpg");
+        c.add("Desserts", new Food("Chocolate Cake", 300.0), "images/chocolate_cake.jpg");
+        c.add("Desserts", new Food("Fruits Cake", 500.0), "images/fruits_cake.jpg");
+        c.add("Desserts", new Food("Rainbow Cake", 100.0), "images/rainbow_cake.jpg");
+
+        c.add("Drinks", new Drink("Cold Coffee", 53.0), "images/cold_coffee.jpg");
+        c.add("Drinks", new Drink("Cappuccino", 55.0), "images/cappuccino.jpg");
+        c.add("Drinks", new Drink("Chocolate Coffee", 54.0), "images/chocolate_coffee.jpg");
+        c.add("Drinks", new Drink("Green Tea", 52.0), "images/green_tea.jpg");
+        c.add("Drinks", new Drink("Mineral Water", 6.5), "images/mineral_water.jpg");
+        c.add("Drinks", new Drink("Coca Cola", 31.5), "images/coca_cola.jpg");
+        return c.build();
+    }
 
-        for (int i = 0; i < cards.size(); i++) {
-            MenuItemCard c = cards.get(i);
-            int q = (Integer) c.spinner.getValue();
-            c.product.setQuantity(q);
-        }
-        txtSubTotal.setText(Calc.formatMoney(computeSubTotal()));
-        txtTax.setText(Calc.formatMoney(computeTax()));
-        txtTotal.setText(Calc.formatMoney(computeTotal()));
+    private void onCardChanged(int item, int qty, boolean purchased) {
+        int idx = tableModel.getSelectedIndex();
+        if (idx < 0 || idx >= TABLE_COUNT || displayedOrder == null) return;
+
+        engine.setLine(idx, item, qty, purchased);
+        // keep the view in step so a recycled card shows the edit when scrolled back
+        showTableView(idx);
     }
 
-    private void doReceipt() {
-        int idx = tableCombo.getSelectedIndex();
-        if (idx < 0 || idx >= TABLE_COUNT) {
-            JOptionPane.showMessageDialog(this, "Please select a table.", "No Table Selected", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-        ensureTableOrderExists(idx);
-
-        doTotal();
-
-        TableOrder order = tableOrders[idx];
-        StringBuilder sb = buildReceiptString(order.invoiceID, false);
-        receiptArea.setText(sb.toString());
-    }
-
-    private StringBuilder buildReceiptString(int invoiceID, boolean includeTableInfo) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("        HARAYA'S DINING\n");
-        sb.append("  \"Your Filipino Comfort Food Destination.\"\n");
-        sb.append("-------------------------------------------\n");
-        sb.append("Invoice ID: ").append(invoiceID).append("\n");
-        sb.append("Date: ").append(getCurrentDateTime()).append("\n");
-        sb.append("-------------------------------------------\n");
-        if (includeTableInfo) {
-            int selectedTableIndex = tableCombo.getSelectedIndex();
-            sb.append("Table: ").append("Table ").append(selectedTableIndex + 1).append("\n");
-            sb.append("Waiter: ").append((String) waiterCombo.getSelectedItem()).append("\n");
-            sb.append("-------------------------------------------\n");
-        }
-        sb.append(String.format("%-20s %5s %10s\n", "Item", "Qty", "Amount"));
-        sb.append("-------------------------------------------\n");
-        for (int i = 0; i < cards.size(); i++) {
-            MenuItemCard c = cards.get(i);
-            if (c.purchase.isSelected() && c.product.getQuantity() > 0) {
-                sb.append(String.format("%-20s %5d %10s\n",
-                        c.product.getName(),
-                        c.product.getQuantity(),
-                        Calc.formatMoney(c.product.getTotal())));
-            }
-        }
-        sb.append("-------------------------------------------\n");
-        sb.append(String.format("%-20s %15s\n", "Sub Total:", Calc.formatMoney(computeSubTotal())));
-        sb.append(String.format("%-20s %15s\n", "Tax:", Calc.formatMoney(computeTax())));
-        sb.append(String.format("%-20s %15s\n", "Total:", Calc.formatMoney(computeTotal())));
-        sb.append("\nThank you! Come again.\n");
-        return sb;
+    /** A line change typed into the command bar: {@code qty} more (or fewer) of the item, or exactly {@code qty}. */
+    private String onCommand(int item, int qty, boolean relative) {
+        int idx = tableModel.getSelectedIndex();
+        if (idx < 0 || idx >= TABLE_COUNT) return "Select a table first";
+        String name = catalog.product(item).getName();
+        int was = engine.snapshot(idx).getQuantity(item);
+        int now = Math.max(0, Math.min(100, relative ? was + qty : qty));
+        Inventory stock = engine.inventory();
+        if (now > was && stock != null && stock.isSoldOut(item)) return name + " is sold out";
+
+        engine.setLine(idx, item, now, now > 0);
+        showTableView(idx);
+        menuGrid.scrollToItem(item);
+        return now == 0 ? "Removed " + name : now + " x " + name;
     }
 
-    private void doDone() {
-        int selectedTableIndex = tableCombo.getSelectedIndex();
-        if (selectedTableIndex < 0 || selectedTableIndex >= TABLE_COUNT) {
-            JOptionPane.showMessageDialog(this, "Please select a table.", "No Table Selected", JOptionPane.WARNING_MESSAGE);
-            return;
+    private void doTotal() {
+        long t0 = System.nanoTime();
+        try {
+            int idx = tableModel.getSelectedIndex();
+            if (idx < 0 || idx >= TABLE_COUNT) return;
+            showTotals(engine.snapshot(idx));
+        } finally {
+            T_TOTAL.record(System.nanoTime() - t0);
         }
+    }
 
-        ensureTableOrderExists(selectedTableIndex);
-        TableOrder order = tableOrders[selectedTableIndex];
+    private void showTotals(TableOrder order) {
+        txtSubTotal.setText(Calc.formatMoney(order.getSubTotalCents()));
+        txtTax.setText(Calc.formatMoney(order.getTaxCents()));
+        txtTotal.setText(Calc.formatMoney(order.getTotalCents()));
+    }
 
-        for (int i = 0; i < cards.size(); i++) {
-            MenuItemCard c = cards.get(i);
-            int q = (Integer) c.spinner.getValue();
-            c.product.setQuantity(q);
+    private void doReceipt() {
+        long t0 = System.nanoTime();
+        try {
+            int idx = tableModel.getSelectedIndex();
+            if (idx < 0 || idx >= TABLE_COUNT) {
+                JOptionPane.showMessageDialog(this, "Please select a table.", "No Table Selected", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            doTotal();
+
+            receiptArea.setText(engine.preview(idx));
+        } finally {
+            T_RECEIPT.record(System.nanoTime() - t0);
         }
+    }
 
-        doTotal();
+    private void doDone() {
+        long t0 = System.nanoTime();
+        try {
+            int selectedTableIndex = tableModel.getSelectedIndex();
+            if (selectedTableIndex < 0 || selectedTableIndex >= TABLE_COUNT) {
+                JOptionPane.showMessageDialog(this, "Please select a table.", "No Table Selected", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
 
-        StringBuilder sb = buildReceiptString(order.invoiceID, true);
-        String receiptText = sb.toString();
+            if (!history.isDone()) return;
+            OrderEngine.Commit commit;
+            try {
+                commit = engine.done(selectedTableIndex, tableName(selectedTableIndex),
+                        (String) waiterCombo.getSelectedItem());
+            } catch (Inventory.OutOfStockException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Out of Stock", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            String receiptText = commit.receipt;
 
-        order.receiptText = receiptText;
-        order.occupied = true;
-        for (int i = 0; i < cards.size(); i++) {
-            order.quantities[i] = (Integer) cards.get(i).spinner.getValue();
-            order.purchases[i] = cards.get(i).purchase.isSelected();
-        }
+            showTotals(commit.order);
 
-        receiptArea.setText(receiptText);
+            receiptArea.setText(receiptText);
 
-        updateTableCombo(); 
+            tableModel.setOccupied(selectedTableIndex, true);
 
-        JTextArea popupArea = new JTextArea(receiptText);
-        popupArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        popupArea.setEditable(false);
-        JScrollPane sp = new JScrollPane(popupArea);
-        sp.setPreferredSize(new Dimension(420, 360));
+            JTextArea popupArea = new JTextArea(receiptText);
+            popupArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            popupArea.setEditable(false);
+            JScrollPane sp = new JScrollPane(popupArea);
+            sp.setPreferredSize(new Dimension(420, 360));
 
-        JOptionPane pane = new JOptionPane(sp, JOptionPane.PLAIN_MESSAGE);
-        JDialog dlg = pane.createDialog(this, "Receipt - Table " + (selectedTableIndex + 1));
-        dlg.setModal(false);
-        dlg.setResizable(true);
-        dlg.setVisible(true);
+            JOptionPane pane = new JOptionPane(sp, JOptionPane.PLAIN_MESSAGE);
+            JDialog dlg = pane.createDialog(this, "Receipt - " + tableName(selectedTableIndex));
+            dlg.setModal(false);
+            dlg.setResizable(true);
+            dlg.setVisible(true);
 
-        if (receiptDialog != null && receiptDialog.isShowing()) {
-            receiptDialog.dispose();
+            if (receiptDialog != null && receiptDialog.isShowing()) {
+                receiptDialog.dispose();
+            }
+            receiptDialog = dlg;
+        } finally {
+            T_DONE.record(System.nanoTime() - t0);
         }
-        receiptDialog = dlg;
     }
 
     @Override
     public void resetOrder() {
-        int idx = tableCombo.getSelectedIndex();
+        int idx = tableModel.getSelectedIndex();
         if (idx < 0 || idx >= TABLE_COUNT) return;
 
-        ensureTableOrderExists(idx);
-        TableOrder order = tableOrders[idx];
-
-        for (int i = 0; i < cards.size(); i++) {
-            cards.get(i).spinner.setValue(0);
-            cards.get(i).purchase.setSelected(false);
-            cards.get(i).product.setQuantity(0);
-            order.quantities[i] = 0;
-            order.purchases[i] = false;
-        }
-        order.receiptText = "";
-        order.occupied = false;
+        engine.reset(idx);
+        saveStock();
+        showTableView(idx);
 
         txtSubTotal.setText("");
         txtTax.setText("");
         txtTotal.setText("");
         receiptArea.setText("");
 
-        updateTableCombo();
+        tableModel.setOccupied(idx, false);
     }
 
-    private void saveReceiptToFile() {
+    /** Queues the receipt on the receipt printer ({@code -Drestaurant.printer=<sink>}); never waits for it. */
+    private void printReceipt() {
         String text = receiptArea.getText();
         if (text == null || text.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No receipt to save. Generate a receipt first (DONE).", "Nothing to Save", JOptionPane.WARNING_MESSAGE);
+            JOptionPane.showMessageDialog(this, "No receipt to print. Generate a receipt first (DONE).", "Nothing to Print", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        JFileChooser chooser = new JFileChooser();
-        chooser.setDialogTitle("Save Receipt");
-        chooser.setSelectedFile(new File("receipt.txt"));
-        int res = chooser.showSaveDialog(this);
-        if (res == JFileChooser.APPROVE_OPTION) {
-            File f = chooser.getSelectedFile();
-            try (FileWriter fw = new FileWriter(f)) {
-                fw.write(text);
-                fw.flush();
-                JOptionPane.showMessageDialog(this, "Receipt saved to: " + f.getAbsolutePath());
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+        String device = System.getProperty("restaurant.printer", "file:data/print/receipts.prn");
+        int invoice = displayedOrder == null ? 0 : displayedOrder.getInvoiceID();
+        engine.spooler().printReceipt(device, invoice, text);
+        JOptionPane.showMessageDialog(this, "Receipt sent to " + device + " (" + engine.spooler().queued(device) + " waiting).");
+    }
+
+    private void showFindInvoiceDialog() {
+        String input = JOptionPane.showInputDialog(this, "Invoice ID:", "Find Invoice", JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.trim().isEmpty()) return;
+        try {
+            int id = Integer.parseInt(input.trim());
+            // the receipt as printed if it was archived, else the invoice rebuilt from the history
+            String text = engine.archive() == null ? null : engine.archive().lookup(id);
+            if (text == null && engine.invoices() != null) {
+                InvoiceStore.Record r = engine.invoices().lookup(id);
+                if (r != null) text = r.text(DINE_IN_TABLES);
+            }
+            if (text == null) {
+                JOptionPane.showMessageDialog(this, "No record of invoice " + input.trim() + ".", "Not Found", JOptionPane.WARNING_MESSAGE);
+                return;
             }
+            JTextArea area = new JTextArea(text);
+            area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            area.setEditable(false);
+            JScrollPane sp = new JScrollPane(area);
+            sp.setPreferredSize(new Dimension(420, 360));
+            JOptionPane.showMessageDialog(this, sp, "Invoice " + input.trim(), JOptionPane.PLAIN_MESSAGE);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Invoice ID must be a number.", "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Error reading archive: " + ex.getMessage(), "Archive Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    /** Picks the table's senior citizen / PWD discount and how many of its guests it covers. */
+    private void showDiscountDialog() {
+        int idx = tableModel.getSelectedIndex();
+        if (idx < 0 || idx >= TABLE_COUNT) {
+            JOptionPane.showMessageDialog(this, "Please select a table first.", "No Table Selected", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        TableOrder o = engine.snapshot(idx);
+        JComboBox<String> kind = new JComboBox<>(PricingEngine.DISCOUNT_NAMES);
+        kind.setSelectedIndex(o.getDiscountKind());
+        JSpinner guests = new JSpinner(new SpinnerNumberModel(Math.max(1, o.getGuests()), 1, 99, 1));
+        JSpinner discounted = new JSpinner(new SpinnerNumberModel(Math.max(1, o.getDiscountedGuests()), 1, 99, 1));
+        JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
+        panel.add(new JLabel("Discount:")); panel.add(kind);
+        panel.add(new JLabel("Guests at the table:")); panel.add(guests);
+        panel.add(new JLabel("Guests with ID:")); panel.add(discounted);
+        int ok = JOptionPane.showConfirmDialog(this, panel, "Discount - " + tableName(idx), JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (ok != JOptionPane.OK_OPTION) return;
+        int k = kind.getSelectedIndex();
+        int g = (Integer) guests.getValue();
+        int d = Math.min((Integer) discounted.getValue(), g);
+        if (k == PricingEngine.NONE) engine.setDiscount(idx, PricingEngine.NONE, 0, 0);
+        else engine.setDiscount(idx, k, d, g);
+        showTotals(showTableView(idx));
+    }
+
     private void nextOrderAction() {
-        int selectedTableIndex = tableCombo.getSelectedIndex();
+        int selectedTableIndex = tableModel.getSelectedIndex();
         if (selectedTableIndex < 0 || selectedTableIndex >= TABLE_COUNT) {
             JOptionPane.showMessageDialog(this, "Please select a table first.", "No Table Selected", JOptionPane.WARNING_MESSAGE);
             return;
@@ -579,14 +530,21 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
             receiptDialog = null;
         }
 
-        JOptionPane.showMessageDialog(this, "Ready for next order. Table " + (selectedTableIndex + 1) + " set to Available.");
+        JOptionPane.showMessageDialog(this, "Ready for next order. " + tableName(selectedTableIndex) + " set to Available.");
     }
 
     @Override public double computeSubTotal() {
-        return cards.stream().mapToDouble(c -> c.product.getTotal()).sum();
+        int idx = tableModel.getSelectedIndex();
+        return (idx < 0 || idx >= TABLE_COUNT) ? 0.0 : Calc.fromCents(engine.snapshot(idx).getSubTotalCents());
+    }
+    @Override public double computeTax() {
+        int idx = tableModel.getSelectedIndex();
+        return (idx < 0 || idx >= TABLE_COUNT) ? 0.0 : Calc.fromCents(engine.snapshot(idx).getTaxCents());
+    }
+    @Override public double computeTotal() {
+        int idx = tableModel.getSelectedIndex();
+        return (idx < 0 || idx >= TABLE_COUNT) ? 0.0 : Calc.fromCents(engine.snapshot(idx).getTotalCents());
     }
-    @Override public double computeTax() { return computeSubTotal() * Calc.TAX_RATE; }
-    @Override public double computeTotal() { return computeSubTotal() + computeTax(); }
 
     private void showStaffLoginDialog() {
         JPanel panel = new JPanel(new GridLayout(0, 1));
@@ -596,7 +554,9 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
         panel.add(new JLabel("Password:")); panel.add(pass);
         int ok = JOptionPane.showConfirmDialog(this, panel, "Staff Login", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
         if (ok == JOptionPane.OK_OPTION) {
-            Staff s = Staff.authenticate(user.getText().trim(), new String(pass.getPassword()));
+            StaffDirectory staff = staffDirectory();
+            if (staff == null) return;
+            Staff s = staff.authenticate(user.getText().trim(), new String(pass.getPassword()));
             if (s != null) {
                 lblStaffInfo.setText("Staff: " + s.getUsername() + " (" + s.getRole() + ")");
                 JOptionPane.showMessageDialog(this, "Welcome, " + s.getUsername());
@@ -626,84 +586,592 @@ public class RestaurantSystem extends JFrame implements MenuOperations {
                 return;
             }
 
-            for (Staff s : Staff.STAFFS) {
-                if (s.getUsername().equalsIgnoreCase(u)) {
-                    JOptionPane.showMessageDialog(this, "Username already exists!", "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
+            StaffDirectory staff = staffDirectory();
+            if (staff == null) return;
+            if (!staff.add(u, p, r)) {
+                JOptionPane.showMessageDialog(this, "Username already exists!", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
-
-            Staff.STAFFS.add(new Staff(u, p, r));
             JOptionPane.showMessageDialog(this, "New account added successfully!");
         }
     }
 
     private void showStaffListDialog() {
+        StaffDirectory staff = staffDirectory();
+        if (staff == null) return;
         StringBuilder sb = new StringBuilder("Registered Staff:\n");
-        for (Staff s : Staff.STAFFS) {
+        for (Staff s : staff.list()) {
             sb.append("- ").append(s.getUsername()).append(" (").append(s.getRole()).append(")\n");
         }
         JOptionPane.showMessageDialog(this, sb.toString(), "Staff List", JOptionPane.PLAIN_MESSAGE);
     }
 
+    /**
+     * The staff directory if it has opened and could be read; otherwise says
+     * why not and returns null. Never waits, so the EDT doesn't stall on a
+     * first run's account seeding.
+     */
+    private StaffDirectory staffDirectory() {
+        StaffDirectory staff = StaffDirectory.opening().getNow(null);
+        if (staff == null) {
+            JOptionPane.showMessageDialog(this, "Staff accounts are still being set up, try again in a moment.", "Staff", JOptionPane.INFORMATION_MESSAGE);
+        } else if (staff.loadError() != null) {
+            JOptionPane.showMessageDialog(this, "Staff accounts could not be read, nobody can log in until the file is repaired:\n"
+                    + staff.loadError(), "Staff Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        return staff;
+    }
+
+    /** One column per kitchen station with its open tickets, plus backlog and latency figures. */
+    private void showKitchenDialog() {
+        JDialog dlg = new JDialog(this, "Kitchen", false);
+        JPanel stations = new JPanel(new GridLayout(1, 0, 8, 8));
+        stations.setBorder(new EmptyBorder(8, 8, 8, 8));
+        stations.setBackground(LIGHT_BROWN);
+        JTextArea stats = new JTextArea(10, 60);
+        stats.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        stats.setEditable(false);
+
+        java.util.List<Runnable> refreshers = new ArrayList<>();
+        java.util.List<Runnable> detach = new ArrayList<>();
+        for (Kitchen.Station st : Kitchen.Station.values()) {
+            KitchenDisplay display = engine.kitchen().display(st);
+            DefaultListModel<Kitchen.Ticket> model = new DefaultListModel<>();
+            JList<Kitchen.Ticket> list = new JList<>(model);
+            JButton bump = new JButton("Bump");
+            bump.addActionListener(e -> {
+                Kitchen.Ticket t = list.getSelectedValue();
+                if (t != null) display.bump(t.invoiceID);
+            });
+
+            Runnable refresh = () -> {
+                model.clear();
+                for (Kitchen.Ticket t : display.openTickets()) model.addElement(t);
+            };
+            KitchenDisplay.Listener l = d -> SwingUtilities.invokeLater(refresh);
+            display.addListener(l);
+            detach.add(() -> display.removeListener(l));
+            refreshers.add(refresh);
+
+            JPanel col = new JPanel(new BorderLayout(4, 4));
+            col.setBackground(LIGHT_BROWN);
+            JLabel title = new JLabel(st.label, SwingConstants.CENTER);
+            title.setFont(new Font("SansSerif", Font.BOLD, 16));
+            title.setForeground(COFFEE_BROWN);
+            col.add(title, BorderLayout.NORTH);
+            col.add(new JScrollPane(list), BorderLayout.CENTER);
+            col.add(bump, BorderLayout.SOUTH);
+            stations.add(col);
+        }
+
+        Runnable refreshStats = () -> stats.setText(engine.kitchen().report() + engine.spooler().status());
+        javax.swing.Timer timer = new javax.swing.Timer(1000, e -> refreshStats.run());
+        refreshers.forEach(Runnable::run);
+        refreshStats.run();
+        timer.start();
+        dlg.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                timer.stop();
+                detach.forEach(Runnable::run);
+            }
+        });
+        dlg.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+        dlg.setLayout(new BorderLayout());
+        dlg.add(stations, BorderLayout.CENTER);
+        dlg.add(new JScrollPane(stats), BorderLayout.SOUTH);
+        dlg.setSize(900, 520);
+        dlg.setLocationRelativeTo(this);
+        dlg.setVisible(true);
+    }
+
+    /** Live sales figures for the day, with the end-of-day Z-report. */
+    private void showSalesDialog() {
+        if (!history.isDone()) return;
+        JTextArea area = new JTextArea(engine.sales().report(), 28, 60);
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        area.setEditable(false);
+
+        JDialog dlg = new JDialog(this, "Sales", false);
+        JButton btnRefresh = new JButton("Refresh");
+        JButton btnClose = new JButton("Close Day (Z-Report)");
+        btnRefresh.addActionListener(e -> area.setText(engine.sales().report()));
+        btnClose.addActionListener(e -> {
+            int ok = JOptionPane.showConfirmDialog(dlg, "Print the Z-report and reset today's sales counters?", "Close Day", JOptionPane.OK_CANCEL_OPTION);
+            if (ok != JOptionPane.OK_OPTION) return;
+            try {
+                area.setText(engine.sales().closeDay(new File("data/reports")));
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(dlg, "Could not save the Z-report:\n" + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(btnRefresh);
+        if (engine.invoices() != null) {
+            JButton btnMonth = new JButton("Month to Date");
+            btnMonth.addActionListener(e -> {
+                LocalDate today = LocalDate.now();
+                try {
+                    area.setText(engine.invoices().monthReport(today.getYear(), today.getMonthValue()));
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(dlg, "Could not read the invoice history:\n" + ex.getMessage(), "Invoice Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+            buttons.add(btnMonth);
+        }
+        JButton btnTurns = new JButton("Turn Times");
+        btnTurns.addActionListener(e -> area.setText(engine.turnTimes().report(engine.now())));
+        buttons.add(btnTurns);
+        buttons.add(btnClose);
+        dlg.setLayout(new BorderLayout());
+        dlg.add(new JScrollPane(area), BorderLayout.CENTER);
+        dlg.add(buttons, BorderLayout.SOUTH);
+        dlg.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dlg.pack();
+        dlg.setLocationRelativeTo(this);
+        dlg.setVisible(true);
+    }
+
+    /** What's left of each tracked item, with restocking. */
+    private void showStockDialog() {
+        Inventory stock = engine.inventory();
+        JTextArea area = new JTextArea(stock.report(), 20, 64);
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        area.setEditable(false);
+
+        JDialog dlg = new JDialog(this, "Stock", false);
+        JButton btnRefresh = new JButton("Refresh");
+        JButton btnRestock = new JButton("Recount...");
+        btnRefresh.addActionListener(e -> area.setText(stock.report()));
+        btnRestock.addActionListener(e -> {
+            JTextField name = new JTextField();
+            JSpinner count = new JSpinner(new SpinnerNumberModel(0, 0, 100_000, 1));
+            JSpinner low = new JSpinner(new SpinnerNumberModel(0, 0, 100_000, 1));
+            JPanel panel = new JPanel(new GridLayout(0, 2, 6, 6));
+            panel.add(new JLabel("Item (name or name@price):")); panel.add(name);
+            panel.add(new JLabel("On hand:")); panel.add(count);
+            panel.add(new JLabel("Low at:")); panel.add(low);
+            int ok = JOptionPane.showConfirmDialog(dlg, panel, "Recount Stock", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            if (ok != JOptionPane.OK_OPTION) return;
+            int item = stock.find(name.getText().trim());
+            if (item < 0) {
+                JOptionPane.showMessageDialog(dlg, "No single menu item is called '" + name.getText().trim() + "'.", "Not Found", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            stock.track(item, (Integer) count.getValue(), (Integer) low.getValue());
+            saveStock();
+            area.setText(stock.report());
+        });
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(btnRefresh);
+        buttons.add(btnRestock);
+        dlg.setLayout(new BorderLayout());
+        dlg.add(new JScrollPane(area), BorderLayout.CENTER);
+        dlg.add(buttons, BorderLayout.SOUTH);
+        dlg.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dlg.pack();
+        dlg.setLocationRelativeTo(this);
+        dlg.setVisible(true);
+    }
+
+    /** Full occupancy refresh; the model only fires events for rows that changed. */
     private void updateTableCombo() {
-        int sel = (tableCombo.getSelectedIndex() >= 0) ? tableCombo.getSelectedIndex() : 0;
-        tableCombo.removeAllItems();
         for (int i = 0; i < TABLE_COUNT; i++) {
-            String label = "Table " + (i+1);
-            if (tableOrders[i] != null && tableOrders[i].occupied) label += " - OCCUPIED";
-            else label += " - Available";
-            tableCombo.addItem(label);
+            tableModel.setOccupied(i, engine.isOccupied(i));
         }
-        if (sel >= 0 && sel < tableCombo.getItemCount()) tableCombo.setSelectedIndex(sel);
     }
 
-    private void setTableOccupied(int index, boolean occupied) {
-        ensureTableOrderExists(index);
-        tableOrders[index].occupied = occupied;
-        updateTableCombo();
-        tableCombo.setSelectedIndex(index);
+    /**
+     * Opens the order engine shared by every counter: the invoice sequence
+     * ({@code data/invoice.seq}, reserved {@code restaurant.invoiceBlock}
+     * numbers at a time), the pricing rules ({@code pricing.txt} or
+     * {@code -Drestaurant.pricing=<file>}), the table registry, replaying open tables from the
+     * order journal, the stock counts, the kitchen ticket queues, the sales and turn-time counters and the
+     * invoice store and the receipt archive. The invoice store and receipt
+     * archive are on unless started with {@code -Drestaurant.invoices=false}
+     * or {@code -Drestaurant.archive=false}; they open on a background thread,
+     * followed by the order intake if it was given a port.
+     */
+    private void openSharedState() {
+        // a first run seeds the staff accounts, slow enough to start now rather than at the first login
+        StaffDirectory.opening();
+        InvoiceSequence invoices;
+        try {
+            invoices = InvoiceSequence.open(new File("data/invoice.seq"), Integer.getInteger("restaurant.invoiceBlock", 50), 1001);
+        } catch (IOException e) {
+            invoices = InvoiceSequence.inMemory(1000);
+            JOptionPane.showMessageDialog(this, "Could not open the invoice sequence, invoice numbers may repeat after a restart:\n" + e.getMessage(), "Invoice Error", JOptionPane.WARNING_MESSAGE);
+        }
+        engine = new OrderEngine(catalog, TABLE_COUNT, invoices, loadPricing(), System::currentTimeMillis);
+        StartupTimeline.mark("invoice sequence and pricing");
+        try {
+            engine.attachJournal(OrderJournal.open(new File("data"), 100, 20_000, engine.registry().replay()));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not open the order journal, orders will not survive a restart:\n" + e.getMessage(), "Journal Error", JOptionPane.WARNING_MESSAGE);
+        }
+        int journaled = engine.registry().replayedTableCount();
+        if (journaled > TABLE_COUNT) {
+            // nothing was written yet; stopping here keeps those orders in the journal for a start with enough tables
+            JOptionPane.showMessageDialog(this, "The order journal holds orders for " + journaled + " tables, but only " + TABLE_COUNT
+                    + " are set up (restaurant.tables=" + DINE_IN_TABLES + ", restaurant.intakeTables=" + ONLINE_TABLES + ").\n"
+                    + "Start again with at least as many tables.", "Journal Error", JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+        }
+        StartupTimeline.mark("journal replay");
+
+        Inventory stock = loadStock();
+        if (stock != null) {
+            // tables still DONE from before the restart hold their lines again
+            for (int t = 0; t < TABLE_COUNT; t++) {
+                if (engine.isOccupied(t)) stock.hold(t, engine.snapshot(t), true);
+            }
+            Logger log = Logger.getLogger(RestaurantSystem.class.getName());
+            stock.addListener((item, available, level) -> {
+                if (level == Inventory.LOW) log.info("stock: " + stock.key(item) + " is low, " + available + " left");
+                else if (level == Inventory.SOLD_OUT) log.warning("stock: " + stock.key(item) + " is sold out");
+            });
+            engine.attachInventory(stock);
+            Runtime.getRuntime().addShutdownHook(new Thread(RestaurantSystem::saveStock, "stock-save"));
+        }
+        StartupTimeline.mark("stock");
+
+        PrintSpooler spooler = new PrintSpooler();
+        Runtime.getRuntime().addShutdownHook(new Thread(spooler::close, "print-spooler-shutdown"));
+        engine.attachSpooler(spooler);
+        Kitchen kitchen = new Kitchen(catalog, 1024);
+        kitchen.setTicketPrinter(t -> spooler.printTicket(kitchenPrinter(t.station), t));
+        engine.attachKitchen(kitchen);
+        engine.attachSales(new SalesAggregator(catalog.products()));
+        engine.attachTurnTimes(new TurnTimes(TABLE_COUNT));
+
+        StartupTimeline.mark("kitchen, sales and printers");
+
+        // their indexes grow with every day kept, so they're read beside the window being built
+        history = CompletableFuture.runAsync(RestaurantSystem::openHistory, r -> new Thread(r, "open-history").start())
+                .exceptionally(e -> {
+                    Logger.getLogger(RestaurantSystem.class.getName()).log(Level.WARNING, "could not open the invoice history", e);
+                    return null;
+                });
+        history.thenRun(this::startIntake);
     }
 
-    private void ensureTableOrderExists(int index) {
-        if (tableOrders[index] == null) {
-            invoiceCounter++;
-            tableOrders[index] = new TableOrder(cards.size(), invoiceCounter);
+    /**
+     * Opens the invoice store and the receipt archive; runs off the EDT while
+     * the first window is built. DONE and Sales are enabled once it is done.
+     */
+    private static void openHistory() {
+        if (Boolean.parseBoolean(System.getProperty("restaurant.invoices", "true"))) {
+            try {
+                InvoiceStore store = new InvoiceStore(new File("data/invoices"));
+                store.addListener(new InvoiceStore.Listener() {
+                    @Override
+                    public void writeFailed(IOException error, int waiting) {
+                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, "Invoices can't be saved to the history, retrying:\n"
+                                + error.getMessage() + "\n" + waiting + " invoices are held until then; keep the program running.",
+                                "Invoice Error", JOptionPane.ERROR_MESSAGE));
+                    }
+
+                    @Override
+                    public void writeRecovered() {
+                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, "Invoices are being saved to the history again.",
+                                "Invoice History", JOptionPane.INFORMATION_MESSAGE));
+                    }
+                });
+                engine.attachInvoices(store);
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, "Could not open the invoice history:\n" + e.getMessage(), "Invoice Error", JOptionPane.WARNING_MESSAGE));
+            }
         }
+        if (Boolean.parseBoolean(System.getProperty("restaurant.archive", "true"))) {
+            try {
+                engine.attachArchive(new ReceiptArchive(new File("data/archive")));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, "Could not open the receipt archive:\n" + e.getMessage(), "Archive Error", JOptionPane.WARNING_MESSAGE));
+            }
+        }
+        StartupTimeline.event("invoice history opened");
     }
 
-    private void loadTableOrderToUI(int index) {
-        ensureTableOrderExists(index);
-        TableOrder order = tableOrders[index];
+    /**
+     * With {@code -Drestaurant.intakePort=<port>}, takes delivery and kiosk
+     * orders on that port of localhost onto {@code restaurant.intakeTables}
+     * (default 20) Online tables, at most {@code restaurant.intakeMaxInFlight}
+     * (default 64) at a time. Started once the invoice history is open, so
+     * its first order already finds every subsystem attached. The Online
+     * tables are there without the intake too, for orders taken before a
+     * restart.
+     */
+    private void startIntake() {
+        if (Integer.getInteger("restaurant.intakePort", 0) <= 0) return;
+        try {
+            OrderIntake intake = OrderIntake.start(engine, DINE_IN_TABLES, ONLINE_TABLES,
+                    Integer.getInteger("restaurant.intakePort"), Integer.getInteger("restaurant.intakeMaxInFlight", 64));
+            Runtime.getRuntime().addShutdownHook(new Thread(intake::stop, "order-intake-shutdown"));
+        } catch (IOException e) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "Could not start the order intake, online orders will not come in:\n" + e.getMessage(), "Intake Error", JOptionPane.WARNING_MESSAGE));
+        }
+    }
+
+    /**
+     * Stock as last saved in {@code data/stock.txt}, else the opening stock in
+     * {@code stock.txt} (or {@code -Drestaurant.stock=<file>}); null, and no
+     * stock tracking, if there is neither.
+     */
+    private Inventory loadStock() {
+        File f = STOCK_FILE.exists() ? STOCK_FILE : new File(System.getProperty("restaurant.stock", "stock.txt"));
+        if (!f.exists()) return null;
+        try {
+            return Inventory.load(f, catalog, TABLE_COUNT);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not read the stock counts, stock will not be tracked:\n" + e.getMessage(), "Stock Error", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+    }
+
+    /** Keeps what's on hand in {@code data/stock.txt}; called after every reset and recount and at exit. */
+    private static synchronized void saveStock() {
+        Inventory stock = engine == null ? null : engine.inventory();
+        if (stock == null) return;
+        try {
+            stock.save(STOCK_FILE);
+        } catch (IOException e) {
+            Logger.getLogger(RestaurantSystem.class.getName()).warning("could not save stock: " + e.getMessage());
+        }
+    }
+
+    /** The compiled pricing rules, or the standard ones if there is no rules file or it doesn't compile. */
+    private PricingEngine loadPricing() {
+        File f = new File(System.getProperty("restaurant.pricing", "pricing.txt"));
+        if (!f.exists()) return PricingEngine.standard(catalog);
+        try {
+            PricingEngine p = PricingEngine.load(f, catalog);
+            Logger.getLogger(RestaurantSystem.class.getName()).info("pricing: " + p.summary());
+            return p;
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not read the pricing rules, using plain 10% tax:\n" + e.getMessage(), "Pricing Error", JOptionPane.WARNING_MESSAGE);
+            return PricingEngine.standard(catalog);
+        }
+    }
 
-        for (int i = 0; i < cards.size(); i++) {
-            cards.get(i).spinner.setValue(order.quantities[i]);
-            cards.get(i).purchase.setSelected(order.purchases[i]);
-            cards.get(i).product.setQuantity(order.quantities[i]);
+    /**
+     * The printer for a station's tickets: {@code restaurant.kitchenPrinter.<station>},
+     * else {@code restaurant.kitchenPrinter}, else a file under {@code data/print}.
+     */
+    private static String kitchenPrinter(Kitchen.Station station) {
+        String all = System.getProperty("restaurant.kitchenPrinter", "file:data/print/kitchen.prn");
+        return System.getProperty("restaurant.kitchenPrinter." + station.name().toLowerCase(Locale.ROOT), all);
+    }
+
+    /**
+     * Picks up changes made to a table by another counter or the order
+     * intake. Changes are noted per table and applied in one EDT pass, so a
+     * burst of online orders queues one event rather than one per line.
+     */
+    private void onTableChanged(int table, long version) {
+        if (table >= TABLE_COUNT) return;
+        changedTables.accumulateAndGet(table, version, Math::max);
+        if (tableChangesQueued.compareAndSet(false, true)) SwingUtilities.invokeLater(this::applyTableChanges);
+    }
+
+    private void applyTableChanges() {
+        // cleared first: a change landing during the pass queues another one
+        tableChangesQueued.set(false);
+        int selected = tableModel.getSelectedIndex();
+        for (int table = 0; table < TABLE_COUNT; table++) {
+            long version = changedTables.getAndSet(table, 0);
+            if (version == 0) continue;
+            tableModel.setOccupied(table, engine.isOccupied(table));
+            if (table == selected && (displayedOrder == null || version > displayedOrder.getVersion())) {
+                loadTableOrderToUI(table);
+            }
         }
+    }
 
-        if (order.receiptText != null && !order.receiptText.isEmpty()) {
-            receiptArea.setText(order.receiptText);
-            double sub = 0.0;
-            for (int i = 0; i < cards.size(); i++) {
-                sub += cards.get(i).product.getTotal();
+    private String tableName(int table) {
+        return TableComboModel.name(table, DINE_IN_TABLES);
+    }
+
+    private void loadTableOrderToUI(int index) {
+        long t0 = System.nanoTime();
+        try {
+            TableOrder order = showTableView(index);
+
+            if (order.isOccupied()) {
+                receiptArea.setText(engine.receipt(order, tableName(index)));
+                showTotals(order);
+            } else {
+                txtSubTotal.setText("");
+                txtTax.setText("");
+                txtTotal.setText("");
+                receiptArea.setText(""); 
             }
-            txtSubTotal.setText(Calc.formatMoney(sub));
-            txtTax.setText(Calc.formatMoney(sub * Calc.TAX_RATE));
-            txtTotal.setText(Calc.formatMoney(sub + (sub * Calc.TAX_RATE)));
-        } else {
-            txtSubTotal.setText("");
-            txtTax.setText("");
-            txtTotal.setText("");
-            receiptArea.setText(""); 
+        } finally {
+            T_LOAD_TABLE.record(System.nanoTime() - t0);
         }
     }
 
+    /**
+     * Brings the table's view up to date (a copy only if another change
+     * happened since it was last shown) and binds the grid to it; only cards
+     * whose line differs from what they show are touched.
+     */
+    private TableOrder showTableView(int index) {
+        TableOrder view = engine.refresh(index, tableViews[index]);
+        tableViews[index] = view;
+        displayedTable = index;
+        displayedOrder = view;
+        menuGrid.showOrder(view);
+        return view;
+    }
+
     public String getCurrentDateTime() {
-        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+        return ClockText.now();
+    }
+
+    /**
+     * The scripted session of a {@code --train-cds} run: walks a few tables,
+     * searches the menu, scrolls through the cards (decoding thumbnails),
+     * previews a receipt and opens and closes the dialogs, changing no order,
+     * then exits so the JVM writes its class archive. One step per timer tick,
+     * so every step gets painted.
+     */
+    private void train() {
+        java.util.List<Runnable> steps = new ArrayList<>();
+        for (int t = 0; t < Math.min(TABLE_COUNT, 5); t++) {
+            int table = t;
+            steps.add(() -> tableCombo.setSelectedIndex(table));
+        }
+        for (String q : new String[] {"chick", "crsipy pata", "rice 25", ""}) steps.add(() -> commandBar.preview(q));
+        steps.add(() -> menuGrid.scrollToItem(catalog.size() - 1));
+        steps.add(() -> menuGrid.scrollToItem(0));
+        steps.add(this::doReceipt);
+        steps.add(this::showKitchenDialog);
+        steps.add(this::showSalesDialog);
+        if (engine.inventory() != null) steps.add(this::showStockDialog);
+        steps.add(this::closeOwnedWindows);
+        steps.add(() -> {
+            // a modal dialog blocks this step until the closer's tick disposes it
+            javax.swing.Timer closer = new javax.swing.Timer(500, e -> closeOwnedWindows());
+            closer.setRepeats(false);
+            closer.start();
+            showStaffListDialog();
+        });
+        steps.add(() -> {
+            Logger.getLogger(RestaurantSystem.class.getName()).info("training session done");
+            System.exit(0);
+        });
+        Iterator<Runnable> next = steps.iterator();
+        javax.swing.Timer timer = new javax.swing.Timer(300, e -> next.next().run());
+        // the Sales step needs the history open
+        history.thenRun(() -> SwingUtilities.invokeLater(timer::start));
+    }
+
+    private void closeOwnedWindows() {
+        for (Window w : getOwnedWindows()) w.dispose();
+    }
+
+    /**
+     * {@code --train-cds [archive]}: runs one scripted session in a child JVM
+     * that dumps every class it loaded into an AppCDS archive (default
+     * {@code data/restaurant.jsa}), so later starts map them instead of
+     * loading and verifying them again. The child runs in a scratch
+     * directory holding copies of the menu, its images, the pricing rules
+     * and the stock counts, so it opens its own empty journal, invoice
+     * sequence and history and leaves this counter's {@code data/} alone.
+     * It gets this JVM's other {@code restaurant.*} settings, apart from
+     * the intake port. Classes only get archived from jars, so train and
+     * start from the packaged jar.
+     */
+    private static int trainCds(String archive) throws IOException, InterruptedException {
+        File out = new File(archive).getAbsoluteFile();
+        Files.createDirectories(out.toPath().getParent());
+        java.util.List<String> classPath = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (new File(entry).isDirectory()) {
+                System.err.println("warning: " + entry + " is a directory; only classes from jars are archived");
+            }
+            classPath.add(new File(entry).getAbsolutePath());
+        }
+        Path scratch = Files.createTempDirectory("restaurant-training");
+        try {
+            File menu = new File(System.getProperty("restaurant.menu", "menu.txt"));
+            copyInto(scratch, menu, "menu.txt");
+            if (menu.exists()) {
+                MenuCatalog catalog = MenuCatalog.load(menu);
+                for (int i = 0; i < catalog.size(); i++) {
+                    String image = catalog.imagePath(i);
+                    if (!image.isEmpty() && !new File(image).isAbsolute()) copyInto(scratch, new File(image), image);
+                }
+            }
+            copyInto(scratch, new File(System.getProperty("restaurant.pricing", "pricing.txt")), "pricing.txt");
+            copyInto(scratch, STOCK_FILE.exists() ? STOCK_FILE : new File(System.getProperty("restaurant.stock", "stock.txt")), "stock.txt");
+
+            java.util.List<String> cmd = new ArrayList<>();
+            cmd.add(ProcessHandle.current().info().command().orElse(new File(System.getProperty("java.home"), "bin/java").getPath()));
+            cmd.add("-XX:ArchiveClassesAtExit=" + out);
+            Set<String> replaced = Set.of("restaurant.intakePort", "restaurant.menu", "restaurant.pricing", "restaurant.stock");
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("restaurant.") && !replaced.contains(name)) {
+                    cmd.add("-D" + name + "=" + System.getProperty(name));
+                }
+            }
+            cmd.add("-Drestaurant.training=true");
+            cmd.add("-cp");
+            cmd.add(String.join(File.pathSeparator, classPath));
+            cmd.add(RestaurantSystem.class.getName());
+
+            System.out.println("training in " + scratch + ": " + String.join(" ", cmd));
+            int exit = new ProcessBuilder(cmd).directory(scratch.toFile()).inheritIO().start().waitFor();
+            if (exit != 0 || !out.exists()) {
+                // the JVM dumps what it loaded even when the session broke off; that archive would be missing classes
+                Files.deleteIfExists(out.toPath());
+                System.err.println("training run failed (exit " + exit + "), no archive written");
+                return exit != 0 ? exit : 1;
+            }
+            System.out.printf("wrote %s (%d KiB); start with -XX:SharedArchiveFile=%s%n", out, out.length() / 1024, out);
+            return 0;
+        } finally {
+            try (Stream<Path> files = Files.walk(scratch)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
     }
 
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new RestaurantSystem("Haraya's Dining"));
+    /** Copies {@code f}, if it exists, to {@code name} under {@code dir}; names reaching outside {@code dir} are skipped. */
+    private static void copyInto(Path dir, File f, String name) throws IOException {
+        if (!f.isFile()) return;
+        Path target = dir.resolve(name).normalize();
+        if (!target.startsWith(dir)) return;
+        Files.createDirectories(target.getParent());
+        Files.copy(f.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * {@code -Drestaurant.counters=N} opens N counter windows sharing the same
+     * tables; {@code --train-cds [archive]} writes an AppCDS archive instead
+     * (see {@link #trainCds}).
+     */
+    public static void main(String[] args) throws Exception {
+        StartupTimeline.begin();
+        if (args.length > 0 && args[0].equals("--train-cds")) {
+            System.exit(trainCds(args.length > 1 ? args[1] : "data/restaurant.jsa"));
+        }
+        if (Boolean.getBoolean("restaurant.training")) {
+            // a session that breaks off must not look like one that finished
+            Thread.setDefaultUncaughtExceptionHandler((t, e) -> {
+                e.printStackTrace();
+                Runtime.getRuntime().halt(1);
+            });
+        }
+        int counters = Math.max(1, Integer.getInteger("restaurant.counters", 1));
+        SwingUtilities.invokeLater(() -> {
+            for (int i = 1; i <= counters; i++) {
+                new RestaurantSystem(counters == 1 ? "Haraya's Dining" : "Haraya's Dining - Counter " + i);
+            }
+        });
     }
 }
@@ -0,0 +1,80 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer queue. Each slot carries a
+ * sequence number that says whether it is ready to be written or read for a
+ * given lap, so producers and consumers only contend on their own cursor.
+ * {@link #offer} fails instead of blocking when the ring is full.
+ */
+final class RingQueue<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequence;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /** {@code capacity} is rounded up to a power of two. */
+    RingQueue(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequence = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequence.set(i, i);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        while (true) {
+            long t = tail.get();
+            int slot = (int) t & mask;
+            long seq = sequence.get(slot);
+            if (seq == t) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    items.lazySet(slot, e);
+                    sequence.set(slot, t + 1);
+                    return true;
+                }
+            } else if (seq < t) {
+                return false; // a whole lap behind: full
+            }
+            // another producer took this slot; retry with the new tail
+        }
+    }
+
+    E poll() {
+        while (true) {
+            long h = head.get();
+            int slot = (int) h & mask;
+            long seq = sequence.get(slot);
+            if (seq == h + 1) {
+                if (head.compareAndSet(h, h + 1)) {
+                    E e = items.get(slot);
+                    items.lazySet(slot, null);
+                    sequence.set(slot, h + mask + 1);
+                    return e;
+                }
+            } else if (seq < h + 1) {
+                return null; // empty
+            }
+        }
+    }
+
+    /** Approximate; exact only when no one else is using the queue. */
+    int size() {
+        long s = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(s, capacity()));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,194 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Running sales totals for the business day, fed one committed order at a
+ * time. Everything a report needs is kept as counters (per item, per waiter,
+ * per hour of day), so live figures and the end-of-day Z-report cost the same
+ * whether the day had ten orders or ten thousand.
+ *
+ * <p>An invoice that is DONE again after an amendment replaces its earlier
+ * contribution; {@link #settle} forgets the contribution once the table is
+ * cleared and the invoice can no longer change.
+ */
+class SalesAggregator {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /** What one invoice added to the counters, so an amendment can take it back out. */
+    private static final class Contribution {
+        final int[] items;
+        final int[] quantities;
+        final String waiter;
+        final int hour;
+        final long subTotalCents;
+        final long discountCents;
+        final long serviceCents;
+        final long taxCents;
+        final long totalCents;
+
+        Contribution(int[] items, int[] quantities, String waiter, int hour, long subTotalCents,
+                     long discountCents, long serviceCents, long taxCents, long totalCents) {
+            this.items = items;
+            this.quantities = quantities;
+            this.waiter = waiter;
+            this.hour = hour;
+            this.subTotalCents = subTotalCents;
+            this.discountCents = discountCents;
+            this.serviceCents = serviceCents;
+            this.taxCents = taxCents;
+            this.totalCents = totalCents;
+        }
+    }
+
+    private final List<Product> catalog;
+    private final AtomicLongArray itemQty;
+    private final AtomicLongArray itemCents;
+    private final AtomicLongArray hourOrders = new AtomicLongArray(24);
+    private final AtomicLongArray hourCents = new AtomicLongArray(24);
+    // orders, subtotal, tax, total, discount, service charge
+    private final AtomicLongArray totals = new AtomicLongArray(6);
+    private final Map<String, long[]> byWaiter = new HashMap<>();
+    private final Map<Integer, Contribution> open = new HashMap<>();
+    private LocalDate businessDay = LocalDate.now(ZONE);
+
+    SalesAggregator(List<Product> catalog) {
+        this.catalog = catalog;
+        this.itemQty = new AtomicLongArray(catalog.size());
+        this.itemCents = new AtomicLongArray(catalog.size());
+    }
+
+    /** Adds a committed order, replacing any earlier DONE of the same invoice. */
+    synchronized void record(TableOrder order, String waiter, long timeMillis) {
+        int lines = 0;
+        for (int k = 0; k < order.lineCount(); k++) {
+            if (order.isLinePurchased(k) && order.lineQuantity(k) > 0) lines++;
+        }
+        int[] items = new int[lines];
+        int[] qtys = new int[lines];
+        for (int k = 0, n = 0; k < order.lineCount(); k++) {
+            if (order.isLinePurchased(k) && order.lineQuantity(k) > 0) {
+                items[n] = order.lineItem(k);
+                qtys[n++] = order.lineQuantity(k);
+            }
+        }
+        int hour = ZonedDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZONE).getHour();
+        Contribution c = new Contribution(items, qtys, waiter == null ? "-" : waiter, hour,
+                order.getSubTotalCents(), order.getDiscountCents(), order.getServiceCents(), order.getTaxCents(), order.getTotalCents());
+
+        Contribution previous = open.put(order.getInvoiceID(), c);
+        if (previous != null) apply(previous, -1);
+        apply(c, 1);
+    }
+
+    /** The invoice's table was cleared; its contribution is final. */
+    synchronized void settle(int invoiceID) {
+        open.remove(invoiceID);
+    }
+
+    private void apply(Contribution c, int sign) {
+        for (int k = 0; k < c.items.length; k++) {
+            int i = c.items[k];
+            itemQty.addAndGet(i, sign * (long) c.quantities[k]);
+            itemCents.addAndGet(i, sign * c.quantities[k] * catalog.get(i).getPriceCents());
+        }
+        hourOrders.addAndGet(c.hour, sign);
+        hourCents.addAndGet(c.hour, sign * c.totalCents);
+        totals.addAndGet(0, sign);
+        totals.addAndGet(1, sign * c.subTotalCents);
+        totals.addAndGet(2, sign * c.taxCents);
+        totals.addAndGet(3, sign * c.totalCents);
+        totals.addAndGet(4, sign * c.discountCents);
+        totals.addAndGet(5, sign * c.serviceCents);
+        long[] w = byWaiter.computeIfAbsent(c.waiter, k -> new long[2]);
+        w[0] += sign;
+        w[1] += sign * c.totalCents;
+    }
+
+    long orderCount() { return totals.get(0); }
+    long totalCents() { return totals.get(3); }
+    long itemQuantity(int item) { return itemQty.get(item); }
+    long itemRevenueCents(int item) { return itemCents.get(item); }
+    long hourRevenueCents(int hour) { return hourCents.get(hour); }
+
+    synchronized long waiterRevenueCents(String waiter) {
+        long[] w = byWaiter.get(waiter);
+        return w == null ? 0 : w[1];
+    }
+
+    /** Live (X) report: the day so far, counters left as they are. */
+    synchronized String report() {
+        return format("X-REPORT (not reset)");
+    }
+
+    /**
+     * End-of-day Z-report: formats the day, writes it to
+     * {@code <dir>/z-<date>.txt} and starts a new business day.
+     */
+    synchronized String closeDay(File dir) throws IOException {
+        String text = format("Z-REPORT");
+        Files.createDirectories(dir.toPath());
+        Files.write(new File(dir, "z-" + businessDay + ".txt").toPath(), text.getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < itemQty.length(); i++) {
+            itemQty.set(i, 0);
+            itemCents.set(i, 0);
+        }
+        for (int h = 0; h < 24; h++) {
+            hourOrders.set(h, 0);
+            hourCents.set(h, 0);
+        }
+        for (int i = 0; i < totals.length(); i++) totals.set(i, 0);
+        byWaiter.clear();
+        // invoices still open belong to the new day if they are amended
+        open.clear();
+        businessDay = LocalDate.now(ZONE);
+        return text;
+    }
+
+    private String format(String title) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(title).append("  ").append(businessDay).append("  printed ").append(ClockText.now()).append('\n');
+        sb.append("-------------------------------------------\n");
+        sb.append(String.format("Orders:    %10d%n", totals.get(0)));
+        sb.append(String.format("Sub Total: %10s%n", Calc.formatMoney(totals.get(1))));
+        if (totals.get(4) != 0) sb.append(String.format("Discounts: %10s%n", Calc.formatMoney(-totals.get(4))));
+        if (totals.get(5) != 0) sb.append(String.format("Service:   %10s%n", Calc.formatMoney(totals.get(5))));
+        sb.append(String.format("Tax:       %10s%n", Calc.formatMoney(totals.get(2))));
+        sb.append(String.format("Total:     %10s%n", Calc.formatMoney(totals.get(3))));
+
+        sb.append("\nBy hour\n");
+        for (int h = 0; h < 24; h++) {
+            if (hourOrders.get(h) == 0) continue;
+            sb.append(String.format("  %02d:00  %5d orders  %12s%n", h, hourOrders.get(h), Calc.formatMoney(hourCents.get(h))));
+        }
+
+        sb.append("\nBy waiter\n");
+        for (Map.Entry<String, long[]> e : new TreeMap<>(byWaiter).entrySet()) {
+            if (e.getValue()[0] == 0) continue;
+            sb.append(String.format("  %-12s %5d orders  %12s%n", e.getKey(), e.getValue()[0], Calc.formatMoney(e.getValue()[1])));
+        }
+
+        sb.append("\nBy item\n");
+        List<Integer> sold = new ArrayList<>();
+        for (int i = 0; i < itemQty.length(); i++) if (itemQty.get(i) > 0) sold.add(i);
+        sold.sort((a, b) -> Long.compare(itemCents.get(b), itemCents.get(a)));
+        for (int i : sold) {
+            sb.append(String.format("  %-20s %5d  %12s%n", catalog.get(i).getName(), itemQty.get(i), Calc.formatMoney(itemCents.get(i))));
+        }
+        return sb.toString();
+    }
+}
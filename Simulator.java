@@ -0,0 +1,302 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Drives an {@link OrderEngine} from an order stream on a virtual clock, as
+ * fast as the engine allows. The stream is either synthetic (parties arrive
+ * at random, order, pay and leave) or replayed from a file written earlier
+ * with {@code --record}. Stream lines are
+ * <pre>
+ * &lt;offsetMillis&gt; &lt;table&gt; set &lt;item&gt; &lt;qty&gt; &lt;0|1&gt;
+ * &lt;offsetMillis&gt; &lt;table&gt; done &lt;waiter&gt;
+ * &lt;offsetMillis&gt; &lt;table&gt; reset
+ * </pre>
+ *
+ * <pre>java -cp classes com.mycompany.restaurantsystem.Simulator [--hours 48] [--parties-per-hour 120]
+ *     [--tables 50] [--seed 1] [--menu menu.txt] [--record file | --replay file]
+ *     [--journal dir] [--archive dir] [--invoices dir] [--kitchen]</pre>
+ */
+public class Simulator {
+
+    private static final String[] WAITERS = {"mark", "anna", "jay", "mika", "rafael"};
+    private static final long MINUTE = 60_000L;
+
+    /** One stream operation at a virtual time; {@code seq} keeps equal times in arrival order. */
+    private static final class Op implements Comparable<Op> {
+        static final int ARRIVE = 0, SET = 1, DONE = 2, RESET = 3;
+
+        final long time;
+        final long seq;
+        final int kind;
+        final int table;
+        final int item;
+        final int qty;
+        final boolean purchased;
+        final String waiter;
+
+        Op(long time, long seq, int kind, int table, int item, int qty, boolean purchased, String waiter) {
+            this.time = time;
+            this.seq = seq;
+            this.kind = kind;
+            this.table = table;
+            this.item = item;
+            this.qty = qty;
+            this.purchased = purchased;
+            this.waiter = waiter;
+        }
+
+        @Override
+        public int compareTo(Op o) {
+            return time != o.time ? Long.compare(time, o.time) : Long.compare(seq, o.seq);
+        }
+    }
+
+    private final OrderEngine engine;
+    private final long startMillis;
+    private long virtualNow;
+    private BufferedWriter recorder;
+
+    private long ops;
+    private long commits;
+    private long committedCents;
+    private long turnedAway;
+    private final BitSet invoices = new BitSet();
+    private long duplicateInvoices;
+
+    Simulator(MenuCatalog catalog, int tables, long startMillis) {
+        this.engine = new OrderEngine(catalog, tables, this::now);
+        this.startMillis = startMillis;
+        this.virtualNow = startMillis;
+    }
+
+    long now() {
+        return virtualNow;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int tables = 50;
+        double hours = 48;
+        double partiesPerHour = 120;
+        long seed = 1;
+        String menu = "menu.txt";
+        String record = null, replay = null, journal = null, archive = null, invoices = null;
+        boolean kitchen = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--tables": tables = Integer.parseInt(args[++i]); break;
+                case "--hours": hours = Double.parseDouble(args[++i]); break;
+                case "--parties-per-hour": partiesPerHour = Double.parseDouble(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--menu": menu = args[++i]; break;
+                case "--record": record = args[++i]; break;
+                case "--replay": replay = args[++i]; break;
+                case "--journal": journal = args[++i]; break;
+                case "--archive": archive = args[++i]; break;
+                case "--invoices": invoices = args[++i]; break;
+                case "--kitchen": kitchen = true; break;
+                default:
+                    System.err.println("unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        MenuCatalog catalog = MenuCatalog.load(new File(menu));
+        // a Saturday morning, so hourly buckets and receipts look like a real weekend
+        long start = LocalDateTime.of(2026, 1, 3, 10, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Simulator sim = new Simulator(catalog, tables, start);
+        OrderEngine engine = sim.engine;
+        engine.attachSales(new SalesAggregator(catalog.products()));
+        engine.attachTurnTimes(new TurnTimes(tables));
+        if (journal != null) {
+            engine.attachJournal(OrderJournal.open(new File(journal), 100, 20_000, engine.registry().replay()));
+        }
+        if (archive != null) engine.attachArchive(new ReceiptArchive(new File(archive)));
+        if (invoices != null) engine.attachInvoices(new InvoiceStore(new File(invoices)));
+        if (kitchen) engine.attachKitchen(new Kitchen(catalog, 1 << 16));
+
+        if (record != null) sim.recorder = Files.newBufferedWriter(new File(record).toPath(), StandardCharsets.UTF_8);
+        long t0 = System.nanoTime();
+        if (replay != null) {
+            sim.replay(new File(replay));
+        } else {
+            sim.synthetic(new Random(seed), (long) (hours * 60 * MINUTE), partiesPerHour);
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        if (sim.recorder != null) sim.recorder.close();
+        if (engine.archive() != null) engine.archive().close();
+        if (engine.invoices() != null) engine.invoices().close();
+
+        sim.report(System.out, seconds);
+        // every synthetic party pays once, so the sales counters must match what was committed
+        boolean ok = sim.duplicateInvoices == 0 && (replay != null || sim.committedCents == engine.sales().totalCents());
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Parties arrive as a Poisson process over {@code spanMillis}; each takes
+     * a free table (or leaves if none is free), orders a few lines over a few
+     * minutes, pays 30 to 90 minutes later and frees the table soon after.
+     */
+    void synthetic(Random rnd, long spanMillis, double partiesPerHour) {
+        PriorityQueue<Op> queue = new PriorityQueue<>();
+        ArrayDeque<Integer> free = new ArrayDeque<>();
+        for (int t = 0; t < engine.tableCount(); t++) free.add(t);
+        long seq = 0;
+        double meanGap = 60 * MINUTE / partiesPerHour;
+
+        long arrival = startMillis;
+        while (true) {
+            arrival += (long) (-Math.log(1 - rnd.nextDouble()) * meanGap);
+            if (arrival - startMillis > spanMillis) break;
+            queue.add(new Op(arrival, seq++, Op.ARRIVE, -1, 0, 0, false, null));
+        }
+
+        int items = engine.catalog().size();
+        while (!queue.isEmpty()) {
+            Op op = queue.poll();
+            virtualNow = op.time;
+            if (op.kind != Op.ARRIVE) {
+                apply(op);
+                if (op.kind == Op.RESET) free.add(op.table);
+                continue;
+            }
+            Integer table = free.poll();
+            if (table == null) {
+                turnedAway++;
+                continue;
+            }
+            long t = op.time;
+            int lines = 1 + rnd.nextInt(6);
+            for (int l = 0; l < lines; l++) {
+                t += rnd.nextInt(60_000);
+                queue.add(new Op(t, seq++, Op.SET, table, rnd.nextInt(items), 1 + rnd.nextInt(3), true, null));
+            }
+            t += 30 * MINUTE + rnd.nextInt(60) * MINUTE;
+            queue.add(new Op(t, seq++, Op.DONE, table, 0, 0, false, WAITERS[rnd.nextInt(WAITERS.length)]));
+            t += 2 * MINUTE + rnd.nextInt(4) * MINUTE;
+            queue.add(new Op(t, seq++, Op.RESET, table, 0, 0, false, null));
+        }
+    }
+
+    /** Replays a recorded stream; lines must be in time order. */
+    void replay(File f) throws IOException {
+        try (BufferedReader r = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = r.readLine()) != null) {
+                lineNo++;
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] p = line.split(" ");
+                try {
+                    long time = startMillis + Long.parseLong(p[0]);
+                    int table = Integer.parseInt(p[1]);
+                    Op op;
+                    switch (p[2]) {
+                        case "set":
+                            op = new Op(time, lineNo, Op.SET, table, Integer.parseInt(p[3]), Integer.parseInt(p[4]), p[5].equals("1"), null);
+                            break;
+                        case "done":
+                            op = new Op(time, lineNo, Op.DONE, table, 0, 0, false, p.length > 3 ? p[3] : "-");
+                            break;
+                        case "reset":
+                            op = new Op(time, lineNo, Op.RESET, table, 0, 0, false, null);
+                            break;
+                        default:
+                            throw new IOException(f + ":" + lineNo + ": unknown op '" + p[2] + "'");
+                    }
+                    if (table >= engine.tableCount()) {
+                        throw new IOException(f + ":" + lineNo + ": table " + table + " but only " + engine.tableCount() + " tables (use --tables)");
+                    }
+                    virtualNow = time;
+                    apply(op);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException(f + ":" + lineNo + ": malformed line: " + line);
+                }
+            }
+        }
+    }
+
+    private void apply(Op op) {
+        ops++;
+        switch (op.kind) {
+            case Op.SET:
+                engine.setLine(op.table, op.item, op.qty, op.purchased);
+                record(op, "set " + op.item + " " + op.qty + " " + (op.purchased ? 1 : 0));
+                break;
+            case Op.DONE:
+                // a second DONE before the reset amends the same invoice
+                boolean wasDone = engine.isOccupied(op.table);
+                OrderEngine.Commit c = engine.done(op.table, "Table " + (op.table + 1), op.waiter);
+                commits++;
+                committedCents += c.order.getTotalCents();
+                int id = c.order.getInvoiceID();
+                if (invoices.get(id) && !wasDone) duplicateInvoices++;
+                invoices.set(id);
+                record(op, "done " + op.waiter);
+                break;
+            case Op.RESET:
+                Kitchen k = engine.kitchen();
+                if (k != null) {
+                    int invoice = engine.snapshot(op.table).getInvoiceID();
+                    for (Kitchen.Station s : Kitchen.Station.values()) k.display(s).bump(invoice);
+                }
+                engine.reset(op.table);
+                record(op, "reset");
+                break;
+            default:
+                throw new IllegalStateException("op " + op.kind);
+        }
+    }
+
+    private void record(Op op, String rest) {
+        if (recorder == null) return;
+        try {
+            recorder.write((op.time - startMillis) + " " + op.table + " " + rest);
+            recorder.newLine();
+        } catch (IOException e) {
+            throw new IllegalStateException("could not write the recording", e);
+        }
+    }
+
+    void report(PrintStream out, double seconds) {
+        double virtualHours = (virtualNow - startMillis) / 3_600_000.0;
+        out.printf("%,d ops (%,d commits) over %.1f virtual hours in %.2f s: %,.0f ops/s, %,.0fx real time%n",
+                ops, commits, virtualHours, seconds, ops / seconds, virtualHours * 3600 / Math.max(seconds, 1e-9));
+        if (turnedAway > 0) out.printf("%,d parties turned away (no free table)%n", turnedAway);
+        out.printf("%,d distinct invoice numbers, %d reused%n", invoices.cardinality(), duplicateInvoices);
+        out.printf("committed %s, sales counters %s%n", Calc.formatMoney(committedCents),
+                Calc.formatMoney(engine.sales().totalCents()));
+        Kitchen k = engine.kitchen();
+        if (k != null) out.print(k.report());
+        InvoiceStore st = engine.invoices();
+        if (st != null) {
+            try {
+                long[] stored = new long[2];
+                long t0 = System.nanoTime();
+                st.scan(startMillis, virtualNow + 1, r -> {
+                    stored[0]++;
+                    stored[1] += r.totalCents;
+                });
+                out.printf("invoice store: %,d invoices, %s in %d segments, scanned in %.1f ms%n", stored[0],
+                        Calc.formatMoney(stored[1]), st.segmentCount(), (System.nanoTime() - t0) / 1e6);
+            } catch (IOException e) {
+                out.println("invoice store scan failed: " + e);
+            }
+        }
+        out.print(engine.sales().report());
+        out.print(engine.turnTimes().report(virtualNow));
+    }
+}
@@ -0,0 +1,33 @@
+package com.mycompany.restaurantsystem;
+
+import java.security.MessageDigest;
+
+class Staff {
+    private String username;
+    private String role;
+    private final int iterations;
+    private final byte[] salt;
+    private final byte[] hash;
+
+    Staff(String username, String role, int iterations, byte[] salt, byte[] hash) {
+        this.username = username;
+        this.role = role;
+        this.iterations = iterations;
+        this.salt = salt;
+        this.hash = hash;
+    }
+
+    public String getUsername() { return username; }
+    public String getRole() { return role; }
+    int getIterations() { return iterations; }
+    byte[] getSalt() { return salt.clone(); }
+    byte[] getHash() { return hash.clone(); }
+
+    public boolean checkPassword(String p) {
+        return p != null && MessageDigest.isEqual(hash, StaffDirectory.hash(p, salt, iterations));
+    }
+
+    public static Staff authenticate(String username, String password) {
+        return StaffDirectory.shared().authenticate(username, password);
+    }
+}
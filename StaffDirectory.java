@@ -0,0 +1,274 @@
+package com.mycompany.restaurantsystem;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Staff accounts keyed by lower-cased username and persisted to a small text
+ * file. Passwords are stored as salted PBKDF2 hashes whose iteration count is
+ * calibrated on first run to take about {@link #TARGET_HASH_MILLIS} on this
+ * machine. After a full verification the login is remembered for
+ * {@link #SESSION_TTL_MILLIS} as an HMAC under a per-process key, so repeated
+ * logins at shift change skip the slow hash.
+ *
+ * <p>The default accounts are only seeded when there is no file yet. A file
+ * that exists but can't be read is left as it is and nobody can log in
+ * until it is repaired; it never falls back to the well-known defaults.
+ */
+class StaffDirectory {
+
+    private static final Logger LOG = Logger.getLogger(StaffDirectory.class.getName());
+
+    static final long TARGET_HASH_MILLIS = 50;
+    static final long SESSION_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    private static final int MIN_ITERATIONS = 10_000;
+    private static final int MAX_ITERATIONS = 2_000_000;
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String HEADER = "#staff v1 iterations=";
+
+    private static final class Session {
+        final byte[] mac;
+        final long expiresAt;
+        Session(byte[] mac, long expiresAt) { this.mac = mac; this.expiresAt = expiresAt; }
+    }
+
+    private static CompletableFuture<StaffDirectory> shared;
+
+    private final Path file;
+    private final Map<String, Staff> byName = new LinkedHashMap<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec sessionKey;
+    private int iterations;
+    // why the file couldn't be read; while set, nobody logs in and nothing is saved over it
+    private volatile String loadError;
+
+    private StaffDirectory(Path file) {
+        this.file = file;
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        this.sessionKey = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    /**
+     * The directory backed by {@code data/staff.db}, opening on a background
+     * thread from the first call: a first run calibrates the hash and seeds
+     * a dozen accounts at {@link #TARGET_HASH_MILLIS} each, too slow for the
+     * EDT, which should only use it once {@code isDone()}.
+     */
+    static synchronized CompletableFuture<StaffDirectory> opening() {
+        if (shared == null) {
+            shared = CompletableFuture.supplyAsync(() -> open(new File("data/staff.db")), r -> {
+                Thread t = new Thread(r, "open-staff");
+                t.setDaemon(true);
+                t.start();
+            });
+        }
+        return shared;
+    }
+
+    /** The shared directory, waiting for it to open; not for the EDT. */
+    static StaffDirectory shared() {
+        return opening().join();
+    }
+
+    /**
+     * Loads {@code f}, or calibrates the hash cost and seeds the default
+     * accounts if it doesn't exist yet. If it exists but can't be read, the
+     * directory is empty and {@link #loadError} says why.
+     */
+    static StaffDirectory open(File f) {
+        StaffDirectory d = new StaffDirectory(f.toPath());
+        if (f.exists()) {
+            try {
+                d.load();
+            } catch (IOException | RuntimeException e) {
+                LOG.log(Level.SEVERE, "could not read " + f + "; nobody can log in until it is repaired", e);
+                d.byName.clear();
+                d.loadError = f + ": " + e.getMessage();
+            }
+            return d;
+        }
+        d.iterations = calibrate();
+        d.seed();
+        d.save();
+        return d;
+    }
+
+    /** Why the staff file couldn't be read, or null if it was. */
+    String loadError() {
+        return loadError;
+    }
+
+    int getIterations() {
+        return iterations;
+    }
+
+    Staff authenticate(String username, String password) {
+        if (loadError != null) return null;
+        String key = username.toLowerCase(Locale.ROOT);
+        Staff s;
+        synchronized (this) {
+            s = byName.get(key);
+        }
+        if (s == null) return null;
+
+        long now = System.currentTimeMillis();
+        byte[] mac = sessionMac(key, password);
+        Session session = sessions.get(key);
+        if (session != null && session.expiresAt > now && MessageDigest.isEqual(session.mac, mac)) {
+            return s;
+        }
+        if (!s.checkPassword(password)) return null;
+        sessions.put(key, new Session(mac, now + SESSION_TTL_MILLIS));
+        return s;
+    }
+
+    /**
+     * Adds an account and persists the directory; returns false if the
+     * username is taken. Refused while the file is unreadable, since saving
+     * would replace every account in it with this one.
+     */
+    boolean add(String username, String password, String role) {
+        if (loadError != null) throw new IllegalStateException("staff accounts unreadable: " + loadError);
+        String key = username.toLowerCase(Locale.ROOT);
+        Staff s = newStaff(username, password, role);
+        synchronized (this) {
+            if (byName.containsKey(key)) return false;
+            byName.put(key, s);
+            save();
+        }
+        return true;
+    }
+
+    synchronized List<Staff> list() {
+        return new ArrayList<>(byName.values());
+    }
+
+    private Staff newStaff(String username, String password, String role) {
+        byte[] salt = new byte[16];
+        random.nextBytes(salt);
+        return new Staff(username, role, iterations, salt, hash(password, salt, iterations));
+    }
+
+    private void seed() {
+        String[][] defaults = {
+            {"Laurence", "admin123", "Manager"},
+            {"Joseph", "cashier001", "Cashier Counter 1"},
+            {"Mariel", "cashier002", "Cashier Counter 2"},
+            {"Alex", "cashier003", "Cashier Counter 3"},
+            {"Andrew", "chef001", "Head Chef"},
+            {"Mark", "waiter001", "Waiter"},
+            {"Anna", "waiter002", "Waiter"},
+            {"Jay", "waiter003", "Waiter"},
+            {"Mika", "waiter004", "Waiter"},
+            {"Rafael", "waiter005", "Waiter"},
+            {"Diana", "cook001", "Cook"},
+            {"Jonas", "cook002", "Cook"},
+        };
+        for (String[] d : defaults) {
+            byName.put(d[0].toLowerCase(Locale.ROOT), newStaff(d[0], d[1], d[2]));
+        }
+    }
+
+    private void load() throws IOException {
+        Base64.Decoder b64 = Base64.getDecoder();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith(HEADER)) {
+                iterations = Integer.parseInt(line.substring(HEADER.length()).trim());
+                continue;
+            }
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split("\t");
+            if (f.length != 5) throw new IOException("malformed staff record: " + f[0]);
+            Staff s = new Staff(f[0], f[1], Integer.parseInt(f[2]), b64.decode(f[3]), b64.decode(f[4]));
+            byName.put(f[0].toLowerCase(Locale.ROOT), s);
+        }
+        if (iterations == 0) iterations = calibrate();
+    }
+
+    private void save() {
+        Base64.Encoder b64 = Base64.getEncoder();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                w.write(HEADER + iterations);
+                w.newLine();
+                for (Staff s : byName.values()) {
+                    w.write(s.getUsername() + "\t" + s.getRole() + "\t" + s.getIterations() + "\t"
+                            + b64.encodeToString(s.getSalt()) + "\t" + b64.encodeToString(s.getHash()));
+                    w.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "could not save staff directory to " + file, e);
+        }
+    }
+
+    private byte[] sessionMac(String key, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(sessionKey);
+            mac.update(key.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] hash(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, 256);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /** Picks an iteration count that takes about {@link #TARGET_HASH_MILLIS} here. */
+    static int calibrate() {
+        byte[] salt = new byte[16];
+        int probe = MIN_ITERATIONS;
+        // the first rounds run interpreted; keep the fastest once the JIT has caught up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 8; i++) {
+            long start = System.nanoTime();
+            hash("calibrate", salt, probe);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double nanosPerIteration = best / (double) probe;
+        long wanted = (long) (TimeUnit.MILLISECONDS.toNanos(TARGET_HASH_MILLIS) / nanosPerIteration);
+        int chosen = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, wanted));
+        LOG.info(String.format("password hash cost: %d iterations (%.1f ms measured per hash)",
+                chosen, chosen * nanosPerIteration / 1e6));
+        return chosen;
+    }
+}
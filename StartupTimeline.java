@@ -0,0 +1,164 @@
+package com.mycompany.restaurantsystem;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Where a boot's time goes, from JVM start to the first counter window a
+ * cashier can use. {@link #mark} closes a phase on the startup path (menu
+ * load, journal replay, menu cards, ...); {@link #event} notes when work
+ * running beside it finished (the invoice history opening in the
+ * background, the first screen of thumbnails). A window's first paint,
+ * followed by the EDT coming back to its queue, makes it interactive.
+ *
+ * <p>The time to first interactive frame goes to the
+ * {@code timeToInteractive} timer and the log. When the late events are in,
+ * {@link #finish} adds a line to {@code data/startup.log}, so boots can be
+ * compared morning to morning and with or without an AppCDS archive. With
+ * {@code -Drestaurant.startupTimeline=true} the whole phase table is logged
+ * as well.
+ */
+final class StartupTimeline {
+
+    private static final Logger LOG = Logger.getLogger(StartupTimeline.class.getName());
+    private static final File HISTORY = new File("data/startup.log");
+
+    // when main started, set by begin (class init stands in if nothing calls it);
+    // the JVM's own start comes from the runtime bean later
+    private static volatile long mainNanos = System.nanoTime();
+    private static volatile long mainMillis = System.currentTimeMillis();
+
+    /** A phase ending (or, off the startup path, an event happening) {@code at} nanos after main. */
+    private static final class Entry {
+        final String name;
+        final long at;
+        final boolean onPath;
+
+        Entry(String name, long at, boolean onPath) {
+            this.name = name;
+            this.at = at;
+            this.onPath = onPath;
+        }
+    }
+
+    private static final List<Entry> entries = new ArrayList<>();
+    private static boolean finished;
+    // EDT only
+    private static boolean painted;
+    private static boolean interactive;
+    private static final List<Runnable> afterInteractive = new ArrayList<>();
+
+    private StartupTimeline() {
+    }
+
+    /** Starts the clock; the first thing {@code main} does. */
+    static void begin() {
+        mainNanos = System.nanoTime();
+        mainMillis = System.currentTimeMillis();
+    }
+
+    /** Closes a startup-path phase: everything since the previous mark was {@code phase}. */
+    static synchronized void mark(String phase) {
+        if (!finished) entries.add(new Entry(phase, System.nanoTime() - mainNanos, true));
+    }
+
+    /** Notes that {@code what}, running off the startup path, is done. */
+    static synchronized void event(String what) {
+        if (!finished) entries.add(new Entry(what, System.nanoTime() - mainNanos, false));
+    }
+
+    /** A counter window painted; the first time, waits for the EDT to reach the next event and calls that interactive. */
+    static void painted() {
+        if (painted) return;
+        painted = true;
+        mark("first paint");
+        SwingUtilities.invokeLater(StartupTimeline::interactive);
+    }
+
+    /** Runs {@code r} on the EDT once the first window is interactive, or now if it already is. EDT only. */
+    static void whenInteractive(Runnable r) {
+        if (interactive) r.run();
+        else afterInteractive.add(r);
+    }
+
+    private static void interactive() {
+        long at = System.nanoTime() - mainNanos;
+        mark("interactive");
+        interactive = true;
+        // the runtime bean loads slowly the first time; read it only after the clock stopped
+        long nanos = jvmNanos() + at;
+        Metrics.timer("timeToInteractive").record(nanos);
+        LOG.info(String.format("first interactive frame %d ms after JVM start%s", TimeUnit.NANOSECONDS.toMillis(nanos), cds()));
+        for (Runnable r : afterInteractive) r.run();
+        afterInteractive.clear();
+    }
+
+    /**
+     * Ends the timeline: logs the phase table if asked to, and appends this
+     * boot to {@code data/startup.log}. Later marks and events are ignored.
+     */
+    static void finish() {
+        String table;
+        String line;
+        synchronized (StartupTimeline.class) {
+            if (finished) return;
+            finished = true;
+            long jvm = jvmNanos();
+            StringBuilder t = new StringBuilder(String.format("startup timeline, ms since JVM start%s%n", cds()));
+            t.append(String.format("  %-28s %7s %7s%n", "phase", "took", "at"));
+            t.append(String.format("  %-28s %7d %7d%n", "JVM start to main", ms(jvm), ms(jvm)));
+            StringBuilder h = new StringBuilder(LocalDateTime.now().withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                    .append(" jvm=").append(ms(jvm));
+            long last = 0;
+            for (Entry e : entries) {
+                if (e.onPath) {
+                    t.append(String.format("  %-28s %7d %7d%n", e.name, ms(e.at - last), ms(jvm + e.at)));
+                    last = e.at;
+                } else {
+                    t.append(String.format("  %-28s %7s %7d%n", e.name + " (beside)", "", ms(jvm + e.at)));
+                }
+                h.append(' ').append(e.name.replace(' ', '-')).append('=').append(ms(jvm + e.at));
+            }
+            table = t.toString();
+            line = h.append(cds()).append(System.lineSeparator()).toString();
+        }
+        if (Boolean.getBoolean("restaurant.startupTimeline")) LOG.info(table);
+        try {
+            Files.createDirectories(HISTORY.toPath().toAbsolutePath().getParent());
+            Files.write(HISTORY.toPath(), line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOG.warning("could not record startup time: " + e.getMessage());
+        }
+    }
+
+    /** How long the JVM ran before {@code main}: class loading, CDS mapping, static init. */
+    private static long jvmNanos() {
+        long start = ManagementFactory.getRuntimeMXBean().getStartTime();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, mainMillis - start));
+    }
+
+    /** " cds=<archive>" when started with an AppCDS archive, else "". */
+    private static String cds() {
+        RuntimeMXBean rt = ManagementFactory.getRuntimeMXBean();
+        for (String arg : rt.getInputArguments()) {
+            if (arg.startsWith("-XX:SharedArchiveFile=")) return " cds=" + arg.substring("-XX:SharedArchiveFile=".length());
+        }
+        return "";
+    }
+
+    private static long ms(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,112 @@
+package com.mycompany.restaurantsystem;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import java.util.BitSet;
+
+/**
+ * Combo box model for the table selector, backed by an occupancy bitset.
+ * Labels are built on demand and cached per row; an occupancy change only
+ * invalidates and repaints that one row, so the selector stays cheap with
+ * hundreds of tables. Tables past the dine-in ones are where orders from the
+ * {@link OrderIntake} land and are listed as "Online 1", "Online 2", ...
+ */
+class TableComboModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String OCCUPIED = " - OCCUPIED";
+    private static final String AVAILABLE = " - Available";
+    private static final String TABLE = "Table ";
+    private static final String ONLINE = "Online ";
+
+    private final int tableCount;
+    private final int dineInTables;
+    private final BitSet occupied;
+    private final String[] labels;
+    private int selected = -1;
+
+    TableComboModel(int tableCount) {
+        this(tableCount, tableCount);
+    }
+
+    /** {@code tableCount} tables of which the first {@code dineInTables} are dine-in. */
+    TableComboModel(int tableCount, int dineInTables) {
+        this.tableCount = tableCount;
+        this.dineInTables = dineInTables;
+        this.occupied = new BitSet(tableCount);
+        this.labels = new String[tableCount];
+    }
+
+    /** Updates one table's occupancy, firing a change for that row only if it flipped. */
+    void setOccupied(int table, boolean isOccupied) {
+        if (occupied.get(table) == isOccupied) return;
+        occupied.set(table, isOccupied);
+        labels[table] = null;
+        fireContentsChanged(this, table, table);
+    }
+
+    boolean isOccupied(int table) {
+        return occupied.get(table);
+    }
+
+    /** What receipts, tickets and the selector call the table: "Table 3", or "Online 2" past the dine-in tables. */
+    static String name(int table, int dineInTables) {
+        return table < dineInTables ? TABLE + (table + 1) : ONLINE + (table - dineInTables + 1);
+    }
+
+    int occupiedCount() {
+        return occupied.cardinality();
+    }
+
+    int getSelectedIndex() {
+        return selected;
+    }
+
+    void setSelectedIndex(int index) {
+        if (index == selected) return;
+        selected = index;
+        // index -1 tells JComboBox the selection changed
+        fireContentsChanged(this, -1, -1);
+    }
+
+    @Override
+    public int getSize() {
+        return tableCount;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        String label = labels[index];
+        if (label == null) {
+            label = name(index, dineInTables) + (occupied.get(index) ? OCCUPIED : AVAILABLE);
+            labels[index] = label;
+        }
+        return label;
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selected < 0 ? null : getElementAt(selected);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item == null) {
+            setSelectedIndex(-1);
+            return;
+        }
+        String s = item.toString();
+        // labels always start with "Table <n> - " or "Online <n> - "
+        boolean online = s.startsWith(ONLINE);
+        int start = online ? ONLINE.length() : TABLE.length();
+        int end = s.indexOf(' ', start);
+        try {
+            int index = Integer.parseInt(s.substring(start, end < 0 ? s.length() : end)) - 1;
+            if (online) index += dineInTables;
+            if (index >= 0 && index < tableCount) setSelectedIndex(index);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            // not one of our labels; keep the current selection
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.Arrays;
+
+/**
+ * State of one table's order. Mutated only through {@link TableRegistry},
+ * which holds the table's lock around every call and bumps the version.
+ * Lines are sparse: item IDs and quantities in parallel arrays sorted by
+ * item, with a bitset of which lines are ticked for purchase, so an order
+ * costs memory for what was ordered rather than for the whole menu. The
+ * receipt isn't kept; a DONE order remembers when and by whom it was done,
+ * which is all it takes to render it again.
+ */
+class TableOrder {
+    private static final int[] NO_LINES = new int[0];
+    private static final long[] NO_BITS = new long[0];
+
+    private final int menuItemCount;
+    private int invoiceID;
+    private boolean occupied;
+    private long doneMillis;
+    private String waiter;
+    // DONE, then changed without being DONE again: the lines and totals aren't what was settled
+    private boolean amended;
+    private long version;
+
+    // lines[0..lineCount) sorted by item; a line exists while it has a quantity or is ticked
+    private int lineCount;
+    private int[] lineItems = NO_LINES;
+    private int[] lineQtys = NO_LINES;
+    private long[] purchased = NO_BITS;
+
+    // running totals in centavos, kept in step with quantities; discount and
+    // service charge are only ever set by a PricingEngine
+    private long subTotalCents;
+    private long discountCents;
+    private long serviceCents;
+    private long taxCents;
+    private long totalCents;
+    // the senior citizen / PWD discount chosen for the table
+    private int discountKind;
+    private int discountedGuests;
+    private int guests;
+    
+    TableOrder(int menuItemCount, int invoiceID) {
+        this.menuItemCount = menuItemCount;
+        this.invoiceID = invoiceID;
+    }
+
+    TableOrder(TableOrder other) {
+        this.menuItemCount = other.menuItemCount;
+        copyFrom(other);
+    }
+
+    /** Overwrites this order with {@code other}'s state; both must be for the same menu. */
+    void copyFrom(TableOrder other) {
+        this.invoiceID = other.invoiceID;
+        this.occupied = other.occupied;
+        this.doneMillis = other.doneMillis;
+        this.waiter = other.waiter;
+        this.amended = other.amended;
+        int n = other.lineCount;
+        if (lineItems.length < n) {
+            lineItems = new int[n];
+            lineQtys = new int[n];
+            purchased = new long[(n + 63) >>> 6];
+        }
+        System.arraycopy(other.lineItems, 0, lineItems, 0, n);
+        System.arraycopy(other.lineQtys, 0, lineQtys, 0, n);
+        Arrays.fill(purchased, 0L);
+        System.arraycopy(other.purchased, 0, purchased, 0, (n + 63) >>> 6);
+        this.lineCount = n;
+        this.version = other.version;
+        this.subTotalCents = other.subTotalCents;
+        this.discountCents = other.discountCents;
+        this.serviceCents = other.serviceCents;
+        this.taxCents = other.taxCents;
+        this.totalCents = other.totalCents;
+        this.discountKind = other.discountKind;
+        this.discountedGuests = other.discountedGuests;
+        this.guests = other.guests;
+    }
+
+    /** Sets an item quantity and applies the price delta to the running totals. */
+    void setQuantity(int item, int qty, long priceCents) {
+        int k = line(item);
+        int was = k < 0 ? 0 : lineQtys[k];
+        subTotalCents += (qty - was) * priceCents;
+        if (qty != was) amended = occupied;
+        if (k < 0 && qty != 0) k = insertLine(-k - 1, item);
+        if (k >= 0) {
+            lineQtys[k] = qty;
+            if (qty == 0 && !bit(k)) removeLine(k);
+        }
+        taxCents = Calc.taxCents(subTotalCents);
+        totalCents = subTotalCents + taxCents;
+    }
+
+    void setPurchased(int item, boolean purchased) {
+        if (purchased != isPurchased(item)) amended = occupied;
+        int k = line(item);
+        if (k < 0) {
+            if (!purchased) return;
+            k = insertLine(-k - 1, item);
+        }
+        setBit(k, purchased);
+        if (!purchased && lineQtys[k] == 0) removeLine(k);
+    }
+
+    /** Stores what a {@link PricingEngine} worked out for the current lines. */
+    void setPricing(long discountCents, long serviceCents, long taxCents, long totalCents) {
+        this.discountCents = discountCents;
+        this.serviceCents = serviceCents;
+        this.taxCents = taxCents;
+        this.totalCents = totalCents;
+    }
+
+    /** {@code discounted} of the table's {@code guests} get a {@link PricingEngine} senior/PWD discount. */
+    void setDiscount(int kind, int discounted, int guests) {
+        if (kind != discountKind || discounted != discountedGuests || guests != this.guests) amended = occupied;
+        this.discountKind = kind;
+        this.discountedGuests = discounted;
+        this.guests = guests;
+    }
+
+    /** Gives a pending (ID 0) order its invoice number; done on its first DONE. */
+    void assignInvoice(int invoiceID) {
+        this.invoiceID = invoiceID;
+    }
+
+    void markDone(long timeMillis, String waiter) {
+        this.doneMillis = timeMillis;
+        this.waiter = waiter;
+        this.occupied = true;
+        this.amended = false;
+    }
+
+    void clear() {
+        // a free table holds no line storage at all
+        lineCount = 0;
+        lineItems = NO_LINES;
+        lineQtys = NO_LINES;
+        purchased = NO_BITS;
+        subTotalCents = 0;
+        discountCents = 0;
+        serviceCents = 0;
+        taxCents = 0;
+        totalCents = 0;
+        discountKind = 0;
+        discountedGuests = 0;
+        guests = 0;
+        doneMillis = 0;
+        waiter = null;
+        occupied = false;
+        amended = false;
+        // the next party gets a new number when it pays
+        invoiceID = 0;
+    }
+
+    long bumpVersion() { return ++version; }
+
+    int getInvoiceID() { return invoiceID; }
+    boolean isOccupied() { return occupied; }
+    /** When the order was last DONE; 0 if it isn't. */
+    long getDoneMillis() { return doneMillis; }
+    /** Who last marked the order DONE; null if nobody has. */
+    String getWaiter() { return waiter; }
+    /** DONE and changed since, so it differs from what was settled until it is DONE again. */
+    boolean isAmended() { return amended; }
+    /** Size of the menu the order is for; item IDs run below this. */
+    int itemCount() { return menuItemCount; }
+    int getQuantity(int item) {
+        int k = line(item);
+        return k < 0 ? 0 : lineQtys[k];
+    }
+    boolean isPurchased(int item) {
+        int k = line(item);
+        return k >= 0 && bit(k);
+    }
+    /** Lines with a quantity or a ticked Purchase box, walked by index in item order. */
+    int lineCount() { return lineCount; }
+    int lineItem(int k) { return lineItems[k]; }
+    int lineQuantity(int k) { return lineQtys[k]; }
+    boolean isLinePurchased(int k) { return bit(k); }
+    long getVersion() { return version; }
+    long getSubTotalCents() { return subTotalCents; }
+    long getDiscountCents() { return discountCents; }
+    long getServiceCents() { return serviceCents; }
+    long getTaxCents() { return taxCents; }
+    long getTotalCents() { return totalCents; }
+    int getDiscountKind() { return discountKind; }
+    int getDiscountedGuests() { return discountedGuests; }
+    int getGuests() { return guests; }
+
+    private int line(int item) {
+        return Arrays.binarySearch(lineItems, 0, lineCount, item);
+    }
+
+    private boolean bit(int k) {
+        return (purchased[k >>> 6] & (1L << k)) != 0;
+    }
+
+    private void setBit(int k, boolean on) {
+        if (on) purchased[k >>> 6] |= 1L << k;
+        else purchased[k >>> 6] &= ~(1L << k);
+    }
+
+    private int insertLine(int at, int item) {
+        if (lineCount == lineItems.length) {
+            int cap = Math.max(4, lineCount * 2);
+            lineItems = Arrays.copyOf(lineItems, cap);
+            lineQtys = Arrays.copyOf(lineQtys, cap);
+            purchased = Arrays.copyOf(purchased, (cap + 63) >>> 6);
+        }
+        System.arraycopy(lineItems, at, lineItems, at + 1, lineCount - at);
+        System.arraycopy(lineQtys, at, lineQtys, at + 1, lineCount - at);
+        for (int k = lineCount; k > at; k--) setBit(k, bit(k - 1));
+        lineItems[at] = item;
+        lineQtys[at] = 0;
+        setBit(at, false);
+        lineCount++;
+        return at;
+    }
+
+    private void removeLine(int at) {
+        lineCount--;
+        System.arraycopy(lineItems, at + 1, lineItems, at, lineCount - at);
+        System.arraycopy(lineQtys, at + 1, lineQtys, at, lineCount - at);
+        for (int k = at; k < lineCount; k++) setBit(k, bit(k + 1));
+        setBit(lineCount, false);
+    }
+}
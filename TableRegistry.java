@@ -0,0 +1,332 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Table orders shared by every cashier counter in the JVM. Each table has its
+ * own lock, so counters working different tables never contend; every
+ * mutation bumps the table's version, is journaled while the lock is held
+ * (so the journal sees per-table changes in order) and is then announced to
+ * listeners. An order gets its invoice ID from the {@link InvoiceSequence}
+ * when it is first DONE, not when the table is opened, so browsing tables
+ * doesn't burn numbers; until then its ID is 0 (pending). With a
+ * {@link PricingEngine} attached, every change reprices the order.
+ */
+class TableRegistry {
+
+    /** Notified on the mutating thread after a table changes. */
+    interface Listener {
+        void tableChanged(int table, long version);
+    }
+
+    private final TableOrder[] orders;
+    private final ReentrantLock[] locks;
+    private final long[] priceCents;
+    private final InvoiceSequence invoices;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile OrderJournal journal;
+    private volatile PricingEngine pricing;
+    private volatile LongSupplier clock;
+    // replay only
+    private int replayedTables;
+
+    /** A registry with an in-memory invoice sequence continuing after {@code lastInvoiceID}. */
+    TableRegistry(int tableCount, long[] priceCents, int lastInvoiceID) {
+        this(tableCount, priceCents, InvoiceSequence.inMemory(lastInvoiceID));
+    }
+
+    TableRegistry(int tableCount, long[] priceCents, InvoiceSequence invoices) {
+        this.orders = new TableOrder[tableCount];
+        this.locks = new ReentrantLock[tableCount];
+        for (int i = 0; i < tableCount; i++) locks[i] = new ReentrantLock();
+        this.priceCents = priceCents.clone();
+        this.invoices = invoices;
+    }
+
+    int tableCount() { return orders.length; }
+    int itemCount() { return priceCents.length; }
+    int lastInvoiceID() { return invoices.lastIssued(); }
+
+    void addListener(Listener l) { listeners.add(l); }
+    void removeListener(Listener l) { listeners.remove(l); }
+
+    void attachJournal(OrderJournal journal) { this.journal = journal; }
+
+    /** Prices orders with {@code pricing} at {@code clockMillis} time from now on, instead of sub total plus tax. */
+    void attachPricing(PricingEngine pricing, LongSupplier clockMillis) {
+        this.clock = clockMillis;
+        this.pricing = pricing;
+    }
+
+    int nextInvoiceID() {
+        return invoices.next();
+    }
+
+    /** Runs {@code f} against the table's order under its lock, creating the order if needed. */
+    <T> T read(int table, Function<TableOrder, T> f) {
+        ReentrantLock lock = locks[table];
+        lock.lock();
+        try {
+            return f.apply(orderLocked(table));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A consistent copy of the table's order, safe to read from any thread. */
+    TableOrder snapshot(int table) {
+        return read(table, TableOrder::new);
+    }
+
+    /**
+     * Brings a caller-owned copy of the table's order up to date, copying
+     * only if the table changed since {@code view} was taken. Returns the
+     * view, or a new copy if {@code view} is null.
+     */
+    TableOrder refresh(int table, TableOrder view) {
+        return read(table, o -> {
+            if (view == null || view.itemCount() != o.itemCount()) return new TableOrder(o);
+            if (view.getVersion() != o.getVersion() || view.getInvoiceID() != o.getInvoiceID()) view.copyFrom(o);
+            return view;
+        });
+    }
+
+    boolean isOccupied(int table) {
+        ReentrantLock lock = locks[table];
+        lock.lock();
+        try {
+            return orders[table] != null && orders[table].isOccupied();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Sets one menu line; returns the new version, or the current one if nothing changed. */
+    long setLine(int table, int item, int qty, boolean purchased) {
+        long version;
+        ReentrantLock lock = locks[table];
+        lock.lock();
+        try {
+            TableOrder o = orderLocked(table);
+            boolean qtyChanged = o.getQuantity(item) != qty;
+            boolean purchaseChanged = o.isPurchased(item) != purchased;
+            if (!qtyChanged && !purchaseChanged) return o.getVersion();
+            OrderJournal j = journal;
+            if (qtyChanged) {
+                o.setQuantity(item, qty, priceCents[item]);
+                if (j != null) j.quantity(table, item, qty);
+            }
+            if (purchaseChanged) {
+                o.setPurchased(item, purchased);
+                if (j != null) j.purchase(table, item, purchased);
+            }
+            if (qtyChanged) reprice(o);
+            version = o.bumpVersion();
+        } finally {
+            lock.unlock();
+        }
+        changed(table, version);
+        return version;
+    }
+
+    /** Atomically adds {@code delta} to a line's quantity, never going below zero. */
+    long adjustQuantity(int table, int item, int delta) {
+        long version;
+        ReentrantLock lock = locks[table];
+        lock.lock();
+        try {
+            TableOrder o = orderLocked(table);
+            int qty = Math.max(0, o.getQuantity(item) + delta);
+            if (qty == o.getQuantity(item)) return o.getVersion();
+            o.setQuantity(item, qty, priceCents[item]);
+            reprice(o);
+            OrderJournal j = journal;
+            if (j != null) j.quantity(table, item, qty);
+            version = o.bumpVersion();
+        } finally {
+            lock.unlock();
+        }
+        changed(table, version);
+        return version;
+    }
+
+    /**
+     * Sets the table's senior citizen / PWD discount ({@link PricingEngine#NONE}
+     * to clear it): {@code discounted} of its {@code guests} qualify.
+     */
+    long setDiscount(int table, int kind, int discounted, int guests) {
+        long version;
+        ReentrantLock lock = locks[table];
+        lock.lock();
+        try {
+            TableOrder o = orderLocked(table);
+            if (o.getDiscountKind() == kind && o.getDiscountedGuests() == discounted && o.getGuests() == guests) return o.getVersion();
+            o.setDiscount(kind, discounted, guests);
+            reprice(o);
+            OrderJournal j = journal;
+            if (j != null) j.discount(table, kind, discounted, guests);
+            version = o.bumpVersion();
+        } finally {
+            lock.unlock();
+        }
+        changed(table, version);
+        return version;
+    }
+
+    /**
+     * Marks the table occupied, done by {@code waiter} at {@code timeMillis},
+     * assigning the order's invoice ID if this is its first DONE and pricing
+     * it as of then. {@code admit} (if any) runs first under the table lock
+     * and may veto by throwing, which leaves the table as it was and uses no
+     * invoice number; {@code receipt} runs last, also under the lock, so the
+     * text it renders matches the order.
+     */
+    String done(int table, long timeMillis, String waiter, Consumer<TableOrder> admit, Function<TableOrder, String> receipt) {
+        String text;
+        long version;
+        ReentrantLock lock = locks[table];
+        lock.lock();
+        try {
+            TableOrder o = orderLocked(table);
+            if (admit != null) admit.accept(o);
+            OrderJournal j = journal;
+            if (o.getInvoiceID() == 0) {
+                o.assignInvoice(invoices.next());
+                if (j != null) j.invoice(table, o.getInvoiceID());
+            }
+            // time-based rules (happy hour) go by when the bill is settled
+            reprice(o);
+            o.markDone(timeMillis, waiter);
+            if (j != null) j.done(table, timeMillis, waiter);
+            text = receipt.apply(o);
+            version = o.bumpVersion();
+        } finally {
+            lock.unlock();
+        }
+        changed(table, version);
+        return text;
+    }
+
+    long reset(int table) {
+        return reset(table, null);
+    }
+
+    /** Clears the table, first handing {@code before} the order it is about to lose, under the table lock. */
+    long reset(int table, Consumer<TableOrder> before) {
+        long version;
+        ReentrantLock lock = locks[table];
+        lock.lock();
+        try {
+            TableOrder o = orderLocked(table);
+            if (before != null) before.accept(o);
+            o.clear();
+            OrderJournal j = journal;
+            if (j != null) j.reset(table);
+            version = o.bumpVersion();
+        } finally {
+            lock.unlock();
+        }
+        changed(table, version);
+        return version;
+    }
+
+    /**
+     * One past the highest table the replayed journal named. More than
+     * {@link #tableCount} means the journal holds orders this registry
+     * has no table for, and dropped them.
+     */
+    int replayedTableCount() { return replayedTables; }
+
+    /** Applies journal records; only used before the registry is shared. */
+    OrderJournal.Replay replay() {
+        return new OrderJournal.Replay() {
+            @Override public void open(int table, int invoiceID) {
+                replayedTables = Math.max(replayedTables, table + 1);
+                if (table >= orders.length) return;
+                orders[table] = new TableOrder(priceCents.length, invoiceID);
+                if (invoiceID != 0) invoices.ensureAbove(invoiceID);
+            }
+            @Override public void invoice(int table, int invoiceID) {
+                TableOrder o = replayed(table, 0);
+                if (o != null) o.assignInvoice(invoiceID);
+                invoices.ensureAbove(invoiceID);
+            }
+            @Override public void quantity(int table, int item, int qty) {
+                TableOrder o = replayed(table, item);
+                if (o != null) {
+                    o.setQuantity(item, qty, priceCents[item]);
+                    reprice(o);
+                }
+            }
+            @Override public void purchase(int table, int item, boolean purchased) {
+                TableOrder o = replayed(table, item);
+                if (o != null) o.setPurchased(item, purchased);
+            }
+            @Override public void done(int table, long timeMillis, String waiter) {
+                TableOrder o = replayed(table, 0);
+                if (o == null) return;
+                // priced as at settle time, like the live DONE, so its receipt still matches what was printed
+                PricingEngine p = pricing;
+                if (p != null && timeMillis != 0) p.price(o, timeMillis);
+                o.markDone(timeMillis, waiter);
+            }
+            @Override public void reset(int table) {
+                TableOrder o = replayed(table, 0);
+                if (o != null) o.clear();
+            }
+            @Override public void discount(int table, int kind, int discounted, int guests) {
+                TableOrder o = replayed(table, 0);
+                if (o != null) {
+                    o.setDiscount(kind, discounted, guests);
+                    reprice(o);
+                }
+            }
+            @Override public void invoiceCounter(int value) {
+                invoices.ensureAbove(value);
+            }
+        };
+    }
+
+    private void reprice(TableOrder o) {
+        PricingEngine p = pricing;
+        if (p != null) p.price(o, clock.getAsLong());
+    }
+
+    private TableOrder replayed(int table, int item) {
+        replayedTables = Math.max(replayedTables, table + 1);
+        if (table >= orders.length || item >= priceCents.length) return null;
+        return orders[table];
+    }
+
+    private TableOrder orderLocked(int table) {
+        TableOrder o = orders[table];
+        if (o == null) {
+            o = new TableOrder(priceCents.length, 0);
+            orders[table] = o;
+            OrderJournal j = journal;
+            if (j != null) j.open(table, o.getInvoiceID());
+        }
+        return o;
+    }
+
+    private void changed(int table, long version) {
+        for (Listener l : listeners) l.tableChanged(table, version);
+        OrderJournal j = journal;
+        if (j != null && j.needsCompaction()) compact(j);
+    }
+
+    /** Takes every table lock in index order so the snapshot is a consistent cut. */
+    private void compact(OrderJournal j) {
+        for (ReentrantLock lock : locks) lock.lock();
+        try {
+            if (j.needsCompaction()) j.compact(orders, invoices.lastIssued());
+        } finally {
+            for (ReentrantLock lock : locks) lock.unlock();
+        }
+    }
+}
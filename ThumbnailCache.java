@@ -0,0 +1,200 @@
+package com.mycompany.restaurantsystem;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decodes and scales menu images on background threads. Scaled thumbnails are
+ * kept in a bounded in-memory LRU and in an on-disk cache keyed by source path,
+ * modification time and target size, so a restart skips decoding entirely.
+ */
+class ThumbnailCache {
+
+    private static final Logger LOG = Logger.getLogger(ThumbnailCache.class.getName());
+    // per image, disk hits and full decodes alike; with FINE logging each load is also logged by name
+    private static final LatencyHistogram T_LOAD = Metrics.timer("thumbnailLoad");
+
+    private final File cacheDir;
+    private final int maxDiskEntries;
+    private final Map<String, ImageIcon> memory;
+    private final ExecutorService decoder;
+    // loads handed to the decoder whose callbacks haven't run yet; callbacks waiting for none (EDT only)
+    private final AtomicInteger pending = new AtomicInteger();
+    private final List<Runnable> onIdle = new ArrayList<>();
+
+    ThumbnailCache(File cacheDir, int maxMemoryEntries, int maxDiskEntries) {
+        this.cacheDir = cacheDir;
+        this.maxDiskEntries = maxDiskEntries;
+        this.memory = new LinkedHashMap<String, ImageIcon>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ImageIcon> eldest) {
+                return size() > maxMemoryEntries;
+            }
+        };
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger n = new AtomicInteger();
+        this.decoder = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "thumbnail-decoder-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+        decoder.execute(this::pruneDiskCache);
+    }
+
+    /**
+     * Delivers a {@code w}x{@code h} thumbnail of {@code path} to {@code onLoaded}
+     * on the EDT, or {@code null} if the image is missing, unreadable or fails
+     * to decode. Memory hits are delivered immediately on the calling thread.
+     */
+    void load(String path, int w, int h, Consumer<ImageIcon> onLoaded) {
+        String key = path + "@" + w + "x" + h;
+        ImageIcon hit;
+        synchronized (memory) {
+            hit = memory.get(key);
+        }
+        if (hit != null) {
+            onLoaded.accept(hit);
+            return;
+        }
+        pending.incrementAndGet();
+        decoder.execute(() -> {
+            ImageIcon icon = null;
+            try {
+                long start = System.nanoTime();
+                icon = decode(key, path, w, h);
+                long elapsed = System.nanoTime() - start;
+                T_LOAD.record(elapsed);
+                LOG.fine(() -> String.format("thumbnail %s loaded in %.2f ms", key, elapsed / 1e6));
+                if (icon != null) {
+                    synchronized (memory) {
+                        memory.put(key, icon);
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "could not decode " + path, e);
+            } finally {
+                // every load reports, with null if the decoder blew up, so the card and whenIdle never wait forever
+                ImageIcon loaded = icon;
+                SwingUtilities.invokeLater(() -> {
+                    try {
+                        onLoaded.accept(loaded);
+                    } finally {
+                        if (pending.decrementAndGet() == 0) runIdle();
+                    }
+                });
+            }
+        });
+    }
+
+    /** Runs {@code r} on the EDT once no thumbnail is being loaded, or now if none is. EDT only. */
+    void whenIdle(Runnable r) {
+        onIdle.add(r);
+        if (pending.get() == 0) runIdle();
+    }
+
+    private void runIdle() {
+        List<Runnable> due = new ArrayList<>(onIdle);
+        onIdle.clear();
+        for (Runnable r : due) r.run();
+    }
+
+    private ImageIcon decode(String key, String path, int w, int h) {
+        File src = new File(path);
+        if (!src.exists()) return null;
+        File cached = new File(cacheDir, digest(key + "|" + src.lastModified()) + ".png");
+        try {
+            if (cached.exists()) {
+                BufferedImage img = ImageIO.read(cached);
+                if (img != null) {
+                    cached.setLastModified(System.currentTimeMillis());
+                    return new ImageIcon(img);
+                }
+            }
+            BufferedImage original = ImageIO.read(src);
+            if (original == null) return null;
+            BufferedImage scaled = scale(original, w, h);
+            store(cached, scaled);
+            return new ImageIcon(scaled);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "could not load " + path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Steps the image down by halves before the final bilinear pass, which gives
+     * quality close to {@code SCALE_SMOOTH} at a fraction of its cost.
+     */
+    static BufferedImage scale(BufferedImage src, int w, int h) {
+        BufferedImage current = src;
+        int cw = src.getWidth();
+        int ch = src.getHeight();
+        do {
+            cw = Math.max(w, cw / 2);
+            ch = Math.max(h, ch / 2);
+            BufferedImage next = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, cw, ch, null);
+            g.dispose();
+            current = next;
+        } while (cw != w || ch != h);
+        return current;
+    }
+
+    private void store(File target, BufferedImage img) {
+        try {
+            Files.createDirectories(cacheDir.toPath());
+            File tmp = File.createTempFile("thumb", ".tmp", cacheDir);
+            ImageIO.write(img, "png", tmp);
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "could not cache thumbnail " + target, e);
+        }
+    }
+
+    private void pruneDiskCache() {
+        File[] files = cacheDir.listFiles((d, name) -> name.endsWith(".png"));
+        if (files == null || files.length <= maxDiskEntries) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - maxDiskEntries; i++) {
+            files[i].delete();
+        }
+    }
+
+    private static String digest(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(d.length * 2);
+            for (byte b : d) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.mycompany.restaurantsystem;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * How long tables stay taken. A table is seated at its first order line,
+ * occupied at its first DONE and turned when it is reset; a reset before any
+ * DONE (a cancelled order) isn't a turn. Each turn goes into
+ * {@link LatencyHistogram}s overall, per table, per waiter (who did the
+ * last DONE) and per hour seated, along with how long the table sat after
+ * its bill. Nothing is kept per turn, so memory stays fixed and p50/p90/p99
+ * come straight from the buckets. The histograms hold milliseconds.
+ *
+ * <p>Transitions are a compare-and-set or two on per-table slots, so any
+ * thread may report them.
+ */
+class TurnTimes {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final AtomicLongArray seatedAt;
+    private final AtomicLongArray occupiedAt;
+    private final AtomicReferenceArray<String> waiterOf;
+
+    private final LatencyHistogram turns = new LatencyHistogram();
+    private final LatencyHistogram afterBill = new LatencyHistogram();
+    private final LatencyHistogram[] byTable;
+    private final LatencyHistogram[] byHour = new LatencyHistogram[24];
+    private final Map<String, LatencyHistogram> byWaiter = new ConcurrentHashMap<>();
+
+    TurnTimes(int tableCount) {
+        seatedAt = new AtomicLongArray(tableCount);
+        occupiedAt = new AtomicLongArray(tableCount);
+        waiterOf = new AtomicReferenceArray<>(tableCount);
+        byTable = new LatencyHistogram[tableCount];
+        for (int t = 0; t < tableCount; t++) byTable[t] = new LatencyHistogram();
+        for (int h = 0; h < 24; h++) byHour[h] = new LatencyHistogram();
+    }
+
+    /** The table got an order line; only the first since it was last turned counts. */
+    void seated(int table, long timeMillis) {
+        if (seatedAt.get(table) == 0) seatedAt.compareAndSet(table, 0, timeMillis);
+    }
+
+    /** The table was marked DONE by {@code waiter}; an amended DONE keeps the first time. */
+    void occupied(int table, String waiter, long timeMillis) {
+        seatedAt.compareAndSet(table, 0, timeMillis);
+        occupiedAt.compareAndSet(table, 0, timeMillis);
+        waiterOf.set(table, waiter == null ? "-" : waiter);
+    }
+
+    /** The table was reset; records the turn if it had been DONE. */
+    void released(int table, long timeMillis) {
+        long occupied = occupiedAt.getAndSet(table, 0);
+        long seated = seatedAt.getAndSet(table, 0);
+        String waiter = waiterOf.getAndSet(table, null);
+        if (occupied == 0) return;
+        if (seated == 0) seated = occupied;
+        long turn = timeMillis - seated;
+        turns.record(turn);
+        afterBill.record(timeMillis - occupied);
+        byTable[table].record(turn);
+        byHour[ZonedDateTime.ofInstant(Instant.ofEpochMilli(seated), ZONE).getHour()].record(turn);
+        byWaiter.computeIfAbsent(waiter, w -> new LatencyHistogram()).record(turn);
+    }
+
+    /** How long the longest-seated table still open at {@code timeMillis} has been taken. */
+    long longestOpenMillis(long timeMillis) {
+        long longest = 0;
+        for (int t = 0; t < seatedAt.length(); t++) {
+            long s = seatedAt.get(t);
+            if (s != 0) longest = Math.max(longest, timeMillis - s);
+        }
+        return longest;
+    }
+
+    LatencyHistogram turns() { return turns; }
+    LatencyHistogram table(int table) { return byTable[table]; }
+    LatencyHistogram hour(int hour) { return byHour[hour]; }
+    LatencyHistogram waiter(String waiter) { return byWaiter.get(waiter); }
+
+    /** Turn-time percentiles overall, then by hour seated, waiter and table; empty rows are left out. */
+    String report(long nowMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-14s %6s %7s %7s %7s %7s%n", "Turn time", "turns", "p50", "p90", "p99", "max"));
+        row(sb, "all tables", turns);
+        row(sb, "after bill", afterBill);
+        sb.append(String.format("longest table open now: %s%n", minutes(longestOpenMillis(nowMillis))));
+        sb.append("by hour seated\n");
+        for (int h = 0; h < 24; h++) row(sb, String.format("  %02d:00", h), byHour[h]);
+        sb.append("by waiter\n");
+        new TreeMap<>(byWaiter).forEach((w, hist) -> row(sb, "  " + w, hist));
+        sb.append("by table\n");
+        for (int t = 0; t < byTable.length; t++) row(sb, "  Table " + (t + 1), byTable[t]);
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String label, LatencyHistogram h) {
+        if (h.count() == 0) return;
+        sb.append(String.format("%-14s %6d %7s %7s %7s %7s%n", label, h.count(), minutes(h.percentile(50)),
+                minutes(h.percentile(90)), minutes(h.percentile(99)), minutes(h.max())));
+    }
+
+    /** {@code 42m} or {@code 1h05m}. */
+    static String minutes(long millis) {
+        long m = (millis + 30_000) / 60_000;
+        return m < 60 ? m + "m" : String.format("%dh%02dm", m / 60, m % 60);
+    }
+}
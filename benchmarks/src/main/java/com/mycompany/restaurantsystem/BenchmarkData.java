@@ -0,0 +1,49 @@
+package com.mycompany.restaurantsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Synthetic menus and orders shared by the benchmarks. */
+final class BenchmarkData {
+
+    private static final String[] NAMES = {
+        "Pancit", "Crispy Pata", "Beef Bulalo", "Chicken Adobo", "Pork Sinigang",
+        "Beef Caldereta", "Fried Bangus", "Sisig Rice Meal", "Plain Rice", "Plain Rice",
+        "Strawberry Cake", "Chocolate Cake", "Fruits Cake", "Rainbow Cake",
+        "Cold Coffee", "Cappuccino", "Chocolate Coffee", "Green Tea", "Mineral Water", "Coca Cola",
+    };
+    private static final double[] PRICES = {
+        150.0, 350.0, 250.0, 100.0, 140.0, 150.0, 130.0, 125.0, 135.0, 25.0,
+        250.0, 300.0, 500.0, 100.0, 53.0, 55.0, 54.0, 52.0, 6.5, 31.5,
+    };
+
+    private BenchmarkData() {}
+
+    /** The stock 20-item menu repeated (with numbered names) up to {@code size} items. */
+    static List<Product> menu(int size) {
+        List<Product> menu = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int k = i % NAMES.length;
+            String name = i < NAMES.length ? NAMES[k] : NAMES[k] + " " + (i / NAMES.length);
+            menu.add(k < 14 ? new Food(name, PRICES[k]) : new Drink(name, PRICES[k]));
+        }
+        return menu;
+    }
+
+    static long[] prices(List<Product> menu) {
+        long[] prices = new long[menu.size()];
+        for (int i = 0; i < prices.length; i++) prices[i] = menu.get(i).getPriceCents();
+        return prices;
+    }
+
+    /** An order with {@code lines} purchased lines spread evenly over the menu. */
+    static TableOrder order(List<Product> menu, int lines, int invoiceID) {
+        TableOrder order = new TableOrder(menu.size(), invoiceID);
+        int step = Math.max(1, menu.size() / Math.max(1, lines));
+        for (int i = 0, n = 0; i < menu.size() && n < lines; i += step, n++) {
+            order.setQuantity(i, 1 + n % 4, menu.get(i).getPriceCents());
+            order.setPurchased(i, true);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,153 @@
+package com.mycompany.restaurantsystem;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open-loop load test for the {@link OrderIntake}: posts random orders at a
+ * fixed rate, whether or not earlier ones have been answered, and reports
+ * how many were accepted or turned away with 503 and the response latency.
+ * Without {@code --url} it starts its own intake on an in-memory engine with
+ * the 20-item menu, plus a cashier that clears each Online table
+ * {@code --pickup-ms} after its order is DONE; with {@code --url} it loads a
+ * running counter started with {@code -Drestaurant.intakePort} (whose
+ * Online tables only free up as the cashier resets them, so expect 503s
+ * once they fill). The first {@code --warmup} seconds run at the same rate
+ * but aren't counted. Not a JMH benchmark; run it with
+ * <pre>java -cp target/benchmarks.jar com.mycompany.restaurantsystem.IntakeLoadTest
+ *     [--rate 500] [--seconds 10] [--warmup 3] [--tables 20] [--pickup-ms 200] [--url http://127.0.0.1:8085]</pre>
+ */
+public class IntakeLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int rate = 500;
+        int seconds = 10;
+        int warmup = 3;
+        int tables = 20;
+        long pickupMillis = 200;
+        String url = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rate": rate = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+                case "--tables": tables = Integer.parseInt(args[++i]); break;
+                case "--pickup-ms": pickupMillis = Long.parseLong(args[++i]); break;
+                case "--url": url = args[++i]; break;
+                default:
+                    System.err.println("unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        List<Product> menu = BenchmarkData.menu(20);
+        OrderIntake intake = null;
+        Thread cashier = null;
+        if (url == null) {
+            MenuCatalog.Builder b = new MenuCatalog.Builder();
+            for (Product p : menu) b.add(p instanceof Drink ? "Drinks" : "Food", p, "");
+            OrderEngine engine = new OrderEngine(b.build(), tables, System::currentTimeMillis);
+            intake = OrderIntake.start(engine, 0, tables, 0, 64);
+            url = "http://127.0.0.1:" + intake.port();
+            cashier = cashier(engine, tables, pickupMillis);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        URI orders = URI.create(url + "/orders");
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder accepted = new LongAdder();
+        LongAdder busy = new LongAdder();
+        LongAdder other = new LongAdder();
+        LongAdder failed = new LongAdder();
+        // bounds the requests the client itself keeps open if the server stops answering
+        Semaphore outstanding = new Semaphore(2000);
+        Random random = new Random(1);
+
+        long skipped = (long) rate * warmup;
+        long total = (long) rate * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long start = System.nanoTime() + skipped * intervalNanos;
+        for (long n = -skipped; n < total; n++) {
+            long due = start + n * intervalNanos;
+            boolean counted = n >= 0;
+            if (n == 0) Metrics.timer("intakeOrder").reset();
+            long wait = due - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            outstanding.acquire();
+            HttpRequest req = HttpRequest.newBuilder(orders)
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(order(random, menu.size())))
+                    .build();
+            long sent = System.nanoTime();
+            client.sendAsync(req, HttpResponse.BodyHandlers.discarding()).whenComplete((resp, err) -> {
+                if (counted) {
+                    // measured from when the request was due, so a client falling behind shows up as latency
+                    latency.record(System.nanoTime() - Math.min(sent, due));
+                    if (err != null) failed.increment();
+                    else if (resp.statusCode() == 201) accepted.increment();
+                    else if (resp.statusCode() == 503) busy.increment();
+                    else other.increment();
+                }
+                outstanding.release();
+            });
+        }
+        outstanding.acquire(2000);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d orders in %.1f s (%.0f/s offered, %d/s target)%n", total, elapsed, total / elapsed, rate);
+        System.out.printf("accepted %d, busy (503) %d, other %d, failed %d%n",
+                accepted.sum(), busy.sum(), other.sum(), failed.sum());
+        System.out.println("latency " + latency.summary());
+        if (intake != null) System.out.println("server  " + Metrics.timer("intakeOrder").summary());
+        HttpResponse<String> health = client.send(HttpRequest.newBuilder(URI.create(url + "/health")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        System.out.println("health " + health.body());
+
+        if (cashier != null) cashier.interrupt();
+        if (intake != null) intake.stop();
+    }
+
+    /** One to four lines of random items, one to three of each. */
+    private static String order(Random random, int menuSize) {
+        StringBuilder sb = new StringBuilder("{\"source\":\"loadtest\",\"lines\":[");
+        int lines = 1 + random.nextInt(4);
+        for (int k = 0; k < lines; k++) {
+            if (k > 0) sb.append(',');
+            sb.append("{\"id\":").append(random.nextInt(menuSize)).append(",\"qty\":").append(1 + random.nextInt(3)).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    /** Resets each DONE table once it has been DONE for {@code pickupMillis}, as the cashier would on hand-over. */
+    private static Thread cashier(OrderEngine engine, int tables, long pickupMillis) {
+        Thread t = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                long now = System.currentTimeMillis();
+                for (int table = 0; table < tables; table++) {
+                    TableOrder o = engine.snapshot(table);
+                    if (o.isOccupied() && now - o.getDoneMillis() >= pickupMillis) engine.reset(table);
+                }
+                try {
+                    Thread.sleep(Math.max(1, Math.min(pickupMillis / 4, 20)));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "cashier");
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+}
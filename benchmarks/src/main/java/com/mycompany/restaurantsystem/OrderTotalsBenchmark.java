@@ -0,0 +1,71 @@
+package com.mycompany.restaurantsystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code computeSubTotal}/{@code computeTotal}: reading the running centavo
+ * totals, applying a spinner delta, and the old full stream over the menu
+ * for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalsBenchmark {
+
+    @Param({"20", "500", "5000"})
+    int menuSize;
+
+    List<Product> menu;
+    TableOrder order;
+    int[] quantities;
+    int item;
+
+    @Setup
+    public void setup() {
+        menu = BenchmarkData.menu(menuSize);
+        order = BenchmarkData.order(menu, Math.min(menuSize, 12), 1001);
+        quantities = new int[menuSize];
+        for (int i = 0; i < menuSize; i++) quantities[i] = order.getQuantity(i);
+    }
+
+    @Benchmark
+    public long computeTotal() {
+        return order.getSubTotalCents() + order.getTaxCents() + order.getTotalCents();
+    }
+
+    @Benchmark
+    public long spinnerDelta() {
+        item = (item + 7) % menuSize;
+        int q = (order.getQuantity(item) + 1) & 3;
+        order.setQuantity(item, q, menu.get(item).getPriceCents());
+        return order.getTotalCents();
+    }
+
+    /** The pre-journal implementation: stream every card and recompute three times. */
+    @Benchmark
+    public double legacyStreamTotal() {
+        double sub = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            double s = 0;
+            for (int i = 0; i < menuSize; i++) s += menu.get(i).getPrice() * quantities[i];
+            sub += s;
+        }
+        return sub + sub * Calc.TAX_RATE;
+    }
+}
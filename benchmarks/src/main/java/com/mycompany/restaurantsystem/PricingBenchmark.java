@@ -0,0 +1,84 @@
+package com.mycompany.restaurantsystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PricingEngine#price} on a 12-line order: the standard rules (plain
+ * 10% tax) against a rule set with VAT classes, a service charge, two happy
+ * hours, two combos and a senior citizen discount on the table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    private static final String RULES = String.join("\n",
+            "vat        | *                    | 12%",
+            "vat        | item:Mineral Water   | exempt",
+            "service    | 5%",
+            "happy-hour | drink                | 20% | 00:00-24:00",
+            "happy-hour | category:Desserts    | 10% | Sat,Sun 00:00-24:00",
+            "combo      | Sisig and Coffee     | 160.00 | Sisig Rice Meal + Cold Coffee",
+            "combo      | Adobo for Two        | 230.00 | 2x Chicken Adobo + 2x Plain Rice@25.00",
+            "senior     | 20%",
+            "");
+
+    @Param({"20", "500"})
+    int menuSize;
+
+    @Param({"standard", "full"})
+    String rules;
+
+    PricingEngine pricing;
+    TableOrder order;
+    long now;
+
+    @Setup
+    public void setup() throws IOException {
+        List<Product> menu = BenchmarkData.menu(menuSize);
+        MenuCatalog.Builder builder = new MenuCatalog.Builder();
+        for (int i = 0; i < menu.size(); i++) {
+            // the stock menu's categories: ten mains, four desserts, six drinks
+            int k = i % 20;
+            builder.add(k < 10 ? "Main Dishes" : k < 14 ? "Desserts" : "Drinks", menu.get(i), "");
+        }
+        MenuCatalog catalog = builder.build();
+        if (rules.equals("standard")) {
+            pricing = PricingEngine.standard(catalog);
+        } else {
+            File f = File.createTempFile("pricing", ".txt");
+            f.deleteOnExit();
+            Files.write(f.toPath(), RULES.getBytes(StandardCharsets.UTF_8));
+            pricing = PricingEngine.load(f, catalog);
+        }
+        order = BenchmarkData.order(menu, Math.min(menuSize, 12), 1001);
+        order.setDiscount(PricingEngine.SENIOR, 1, 4);
+        now = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public long price() {
+        pricing.price(order, now);
+        return order.getTotalCents();
+    }
+}
@@ -0,0 +1,114 @@
+package com.mycompany.restaurantsystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code buildReceiptString}: receipts per second through {@link ReceiptRenderer}
+ * to each output target, against the original {@code String.format} builder.
+ * Setup fails if the two ever produce different text.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiptRenderBenchmark {
+
+    @Param({"20", "500", "5000"})
+    int menuSize;
+
+    @Param({"8"})
+    int lines;
+
+    List<Product> menu;
+    TableOrder order;
+    ReceiptRenderer renderer;
+    StringBuilder sb = new StringBuilder(4096);
+    ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+
+    @Setup
+    public void setup() {
+        menu = BenchmarkData.menu(menuSize);
+        order = BenchmarkData.order(menu, lines, 1001);
+        renderer = new ReceiptRenderer(menu);
+        long now = System.currentTimeMillis();
+        String expected = legacy(menu, order, "Table 3", "mark", now);
+        String actual = renderer.render(order, "Table 3", "mark", now).toString();
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("renderer output differs from legacy format:\n" + expected + "\n---\n" + actual);
+        }
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return legacy(menu, order, "Table 3", "mark", System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public String renderToString() {
+        return renderer.render(order, "Table 3", "mark", System.currentTimeMillis()).toString();
+    }
+
+    @Benchmark
+    public int renderToStringBuilder() {
+        sb.setLength(0);
+        renderer.render(order, "Table 3", "mark", System.currentTimeMillis()).writeTo(sb);
+        return sb.length();
+    }
+
+    @Benchmark
+    public int renderToByteBuffer() {
+        bytes.clear();
+        renderer.render(order, "Table 3", "mark", System.currentTimeMillis()).writeTo(bytes);
+        return bytes.position();
+    }
+
+    /** The pre-renderer implementation of {@code buildReceiptString}, kept as the reference output. */
+    static String legacy(List<Product> catalog, TableOrder order, String tableLabel, String waiter, long timeMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("        HARAYA'S DINING\n");
+        sb.append("  \"Your Filipino Comfort Food Destination.\"\n");
+        sb.append("-------------------------------------------\n");
+        sb.append("Invoice ID: ").append(order.getInvoiceID()).append("\n");
+        sb.append("Date: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(timeMillis))).append("\n");
+        sb.append("-------------------------------------------\n");
+        if (tableLabel != null) {
+            sb.append("Table: ").append(tableLabel).append("\n");
+            sb.append("Waiter: ").append(waiter).append("\n");
+            sb.append("-------------------------------------------\n");
+        }
+        sb.append(String.format("%-20s %5s %10s\n", "Item", "Qty", "Amount"));
+        sb.append("-------------------------------------------\n");
+        for (int i = 0; i < catalog.size(); i++) {
+            Product p = catalog.get(i);
+            int q = order.getQuantity(i);
+            if (order.isPurchased(i) && q > 0) {
+                sb.append(String.format("%-20s %5d %10s\n", p.getName(), q, Calc.formatMoney(p.getPrice() * q)));
+            }
+        }
+        double sub = Calc.fromCents(order.getSubTotalCents());
+        sb.append("-------------------------------------------\n");
+        sb.append(String.format("%-20s %15s\n", "Sub Total:", Calc.formatMoney(sub)));
+        sb.append(String.format("%-20s %15s\n", "Tax:", Calc.formatMoney(sub * Calc.TAX_RATE)));
+        sb.append(String.format("%-20s %15s\n", "Total:", Calc.formatMoney(sub + sub * Calc.TAX_RATE)));
+        sb.append("\nThank you! Come again.\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package com.mycompany.restaurantsystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Staff.authenticate}: a re-login served by the session cache, a full
+ * salted hash verification at the calibrated cost, and an unknown username.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaffAuthBenchmark {
+
+    File dir;
+    StaffDirectory directory;
+    Staff manager;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("staff-bench").toFile();
+        directory = StaffDirectory.open(new File(dir, "staff.db"));
+        manager = directory.authenticate("Laurence", "admin123");
+        if (manager == null) throw new IllegalStateException("seeded account did not authenticate");
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public Staff sessionCacheHit() {
+        return directory.authenticate("Laurence", "admin123");
+    }
+
+    @Benchmark
+    public boolean fullHashVerify() {
+        return manager.checkPassword("admin123");
+    }
+
+    @Benchmark
+    public Staff unknownUser() {
+        return directory.authenticate("nobody", "admin123");
+    }
+}
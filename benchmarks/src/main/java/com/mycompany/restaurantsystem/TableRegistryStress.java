@@ -0,0 +1,179 @@
+package com.mycompany.restaurantsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Hammers a journaled {@link TableRegistry} from many threads at once and
+ * checks that nothing was lost or mixed up. The first half of the tables
+ * ("counting" tables) only ever get {@code +1}s, discounts and DONEs, so
+ * their quantities must add up to the increments applied; the rest get
+ * every mutator ({@code setLine}, {@code adjustQuantity}, {@code setDiscount},
+ * {@code done}, {@code reset}) in random order. The journal compacts every
+ * few thousand records, so snapshots that take every table lock run in the
+ * middle of it all.
+ *
+ * <p>Afterwards: running subtotals must match the lines, each table's
+ * version must match the changes its listeners were told about, no invoice
+ * ID may belong to two orders, and a fresh registry replayed from the
+ * journal must hold exactly the same orders. Exits with status 1 on any
+ * mismatch. Not a JMH benchmark; run it with
+ * <pre>java -cp target/benchmarks.jar com.mycompany.restaurantsystem.TableRegistryStress
+ *     [threads 16] [opsPerThread 100000] [tables 8] [compactEvery 2000]</pre>
+ */
+public class TableRegistryStress {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int tables = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int compactEvery = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+        int items = 20;
+        int counting = Math.max(1, tables / 2);
+
+        long[] prices = new long[items];
+        for (int i = 0; i < items; i++) prices[i] = 650 + 500L * i;
+        Path dir = Files.createTempDirectory("registry-stress");
+        TableRegistry registry = new TableRegistry(tables, prices, 1000);
+        OrderJournal journal = OrderJournal.open(dir.toFile(), 5, compactEvery, registry.replay());
+        registry.attachJournal(journal);
+
+        AtomicLong[][] applied = new AtomicLong[tables][items];
+        for (AtomicLong[] row : applied) for (int i = 0; i < items; i++) row[i] = new AtomicLong();
+        LongAdder[] notified = new LongAdder[tables];
+        for (int t = 0; t < tables; t++) notified[t] = new LongAdder();
+        registry.addListener((table, version) -> notified[table].increment());
+        Set<Integer> invoices = ConcurrentHashMap.newKeySet();
+        AtomicLong duplicateInvoices = new AtomicLong();
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            String waiter = "waiter-" + w;
+            workers[w] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int n = 0; n < ops; n++) {
+                    int t = rnd.nextInt(tables);
+                    int item = rnd.nextInt(items);
+                    int op = rnd.nextInt(100);
+                    if (t < counting) {
+                        if (op < 90) {
+                            registry.adjustQuantity(t, item, 1);
+                            applied[t][item].incrementAndGet();
+                        } else if (op < 95) {
+                            registry.setDiscount(t, rnd.nextInt(3), 1, 1 + rnd.nextInt(4));
+                        } else {
+                            registry.done(t, System.currentTimeMillis(), waiter, null, o -> "");
+                        }
+                    } else if (op < 40) {
+                        registry.setLine(t, item, rnd.nextInt(6), rnd.nextBoolean());
+                    } else if (op < 75) {
+                        registry.adjustQuantity(t, item, rnd.nextBoolean() ? 1 : -1);
+                    } else if (op < 85) {
+                        registry.setDiscount(t, rnd.nextInt(3), rnd.nextInt(3), 2 + rnd.nextInt(3));
+                    } else if (op < 95) {
+                        registry.done(t, System.currentTimeMillis(), waiter, null, o -> "");
+                    } else {
+                        // an order being cleared is finished with its invoice ID for good
+                        registry.reset(t, o -> {
+                            if (o.getInvoiceID() != 0 && !invoices.add(o.getInvoiceID())) duplicateInvoices.incrementAndGet();
+                        });
+                    }
+                }
+            }, "stress-" + w);
+            workers[w].start();
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        journal.close();
+        boolean compacted = Files.exists(dir.resolve("orders.snapshot"));
+
+        TableRegistry replayed = new TableRegistry(tables, prices, 1000);
+        OrderJournal.open(dir.toFile(), 5, Integer.MAX_VALUE, replayed.replay()).close();
+
+        int failures = 0;
+        for (int t = 0; t < tables; t++) {
+            TableOrder o = registry.snapshot(t);
+            if (o.getInvoiceID() != 0 && !invoices.add(o.getInvoiceID())) duplicateInvoices.incrementAndGet();
+            long expectedSub = 0;
+            for (int i = 0; i < items; i++) {
+                if (t < counting && o.getQuantity(i) != applied[t][i].get()) {
+                    System.err.printf("table %d item %d: quantity %d, expected %d%n", t, i, o.getQuantity(i), applied[t][i].get());
+                    failures++;
+                }
+                expectedSub += o.getQuantity(i) * prices[i];
+            }
+            if (o.getSubTotalCents() != expectedSub) {
+                System.err.printf("table %d: subtotal %d, lines add up to %d%n", t, o.getSubTotalCents(), expectedSub);
+                failures++;
+            }
+            if (o.getVersion() != notified[t].sum()) {
+                System.err.printf("table %d: version %d, %d changes announced%n", t, o.getVersion(), notified[t].sum());
+                failures++;
+            }
+            String diff = difference(o, replayed.snapshot(t));
+            if (diff != null) {
+                System.err.printf("table %d: replayed journal differs in %s%n", t, diff);
+                failures++;
+            }
+            if (replayed.lastInvoiceID() < o.getInvoiceID()) {
+                System.err.printf("table %d: invoice %d is past the replayed sequence at %d%n", t, o.getInvoiceID(), replayed.lastInvoiceID());
+                failures++;
+            }
+        }
+        if (duplicateInvoices.get() > 0) {
+            System.err.println(duplicateInvoices.get() + " duplicate invoice IDs");
+            failures++;
+        }
+        if (!compacted) {
+            System.err.println("the journal never compacted; lower compactEvery");
+            failures++;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            System.err.println("could not remove " + dir + ": " + e.getMessage());
+        }
+
+        System.out.printf("%d threads x %d ops on %d tables: %,.0f updates/s, %d invoice IDs, %s%n",
+                threads, ops, tables, threads * (double) ops / seconds, invoices.size(),
+                failures == 0 ? "no lost updates, journal replays to the same orders" : failures + " FAILURES");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /** The first field in which the two orders differ, or null if they hold the same order. */
+    private static String difference(TableOrder a, TableOrder b) {
+        if (a.getInvoiceID() != b.getInvoiceID()) return "invoice " + a.getInvoiceID() + " vs " + b.getInvoiceID();
+        if (a.isOccupied() != b.isOccupied()) return "occupied";
+        if (a.isAmended() != b.isAmended()) return "amended since DONE";
+        if (a.getDoneMillis() != b.getDoneMillis()) return "done time";
+        if (a.getWaiter() == null ? b.getWaiter() != null : !a.getWaiter().equals(b.getWaiter())) return "waiter";
+        if (a.getDiscountKind() != b.getDiscountKind() || a.getDiscountedGuests() != b.getDiscountedGuests()
+                || a.getGuests() != b.getGuests()) return "discount";
+        if (a.lineCount() != b.lineCount()) return "line count " + a.lineCount() + " vs " + b.lineCount();
+        for (int k = 0; k < a.lineCount(); k++) {
+            if (a.lineItem(k) != b.lineItem(k) || a.lineQuantity(k) != b.lineQuantity(k)
+                    || a.isLinePurchased(k) != b.isLinePurchased(k)) return "line " + k;
+        }
+        if (a.getSubTotalCents() != b.getSubTotalCents()) return "subtotal";
+        return null;
+    }
+}
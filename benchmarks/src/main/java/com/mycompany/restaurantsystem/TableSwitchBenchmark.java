@@ -0,0 +1,99 @@
+package com.mycompany.restaurantsystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TableOrder} load/save: what {@code loadTableOrderToUI} used to do
+ * when the table combo changed (consistent copy plus a pass over every card),
+ * what it does now (refresh the table's own view, copying only if it changed
+ * since it was last shown), and what the old {@code doDone} copy loop did
+ * (write every line back).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableSwitchBenchmark {
+
+    @Param({"20", "500", "5000"})
+    int menuSize;
+
+    @Param({"10", "100", "500"})
+    int tableCount;
+
+    List<Product> menu;
+    TableRegistry registry;
+    TableOrder[] views;
+    int[] cardQuantities;
+    boolean[] cardPurchases;
+    int table;
+    int flip;
+
+    @Setup
+    public void setup() {
+        menu = BenchmarkData.menu(menuSize);
+        registry = new TableRegistry(tableCount, BenchmarkData.prices(menu), 1000);
+        for (int t = 0; t < tableCount; t++) {
+            for (int i = t % 7; i < menuSize; i += 13) registry.setLine(t, i, 1 + i % 3, true);
+        }
+        views = new TableOrder[tableCount];
+        cardQuantities = new int[menuSize];
+        cardPurchases = new boolean[menuSize];
+    }
+
+    @Benchmark
+    public long loadTable() {
+        table = (table + 1) % tableCount;
+        TableOrder order = registry.snapshot(table);
+        for (int i = 0; i < menuSize; i++) {
+            cardQuantities[i] = order.getQuantity(i);
+            cardPurchases[i] = order.isPurchased(i);
+        }
+        return order.getTotalCents();
+    }
+
+    /** Switching between tables nobody else is editing: the views are current, so nothing is copied. */
+    @Benchmark
+    public long refreshView() {
+        table = (table + 1) % tableCount;
+        TableOrder view = registry.refresh(table, views[table]);
+        views[table] = view;
+        return view.getTotalCents();
+    }
+
+    /** Same, but another counter touched the table in between, so the view is re-copied in place. */
+    @Benchmark
+    public long refreshChangedView() {
+        table = (table + 1) % tableCount;
+        registry.adjustQuantity(table, 0, 1);
+        TableOrder view = registry.refresh(table, views[table]);
+        views[table] = view;
+        return view.getTotalCents();
+    }
+
+    @Benchmark
+    public long saveTable() {
+        table = (table + 1) % tableCount;
+        flip ^= 1;
+        long version = 0;
+        for (int i = 0; i < menuSize; i++) {
+            version = registry.setLine(table, i, (i & 1) ^ flip, true);
+        }
+        return version;
+    }
+}
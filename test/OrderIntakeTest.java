@@ -0,0 +1,86 @@
+package com.mycompany.restaurantsystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A short run of the benchmarks' {@code IntakeLoadTest} without a cashier:
+ * once the Online tables are full every further order must be turned away
+ * with 503 and {@code Retry-After} rather than queued or dropped, and a
+ * table the cashier clears must take orders again.
+ */
+class OrderIntakeTest {
+
+    private static final int DINE_IN = 2;
+    private static final int ONLINE = 3;
+
+    private OrderEngine engine;
+    private OrderIntake intake;
+    private HttpClient client;
+    private URI orders;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MenuCatalog.Builder b = new MenuCatalog.Builder();
+        b.add("Main Dishes", new Food("Chicken Adobo", 185.0), "");
+        b.add("Drinks", new Drink("Iced Coffee", 95.5), "");
+        engine = new OrderEngine(b.build(), DINE_IN + ONLINE, System::currentTimeMillis);
+        intake = OrderIntake.start(engine, DINE_IN, ONLINE, 0, 8);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        orders = URI.create("http://127.0.0.1:" + intake.port() + "/orders");
+    }
+
+    @AfterEach
+    void tearDown() {
+        intake.stop();
+    }
+
+    @Test
+    void fullTablesAnswer503WithRetryAfter() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> burst = new ArrayList<>();
+        for (int n = 0; n < 4 * ONLINE; n++) burst.add(client.sendAsync(post(), HttpResponse.BodyHandlers.ofString()));
+        int accepted = 0;
+        for (CompletableFuture<HttpResponse<String>> f : burst) {
+            HttpResponse<String> resp = f.join();
+            if (resp.statusCode() == 201) {
+                accepted++;
+            } else {
+                assertEquals(503, resp.statusCode(), resp.body());
+                assertEquals("1", resp.headers().firstValue("Retry-After").orElse(null), "Retry-After on " + resp.body());
+            }
+        }
+        assertEquals(ONLINE, accepted, "one order per Online table");
+
+        HttpResponse<String> busy = client.send(post(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(503, busy.statusCode());
+        assertEquals("1", busy.headers().firstValue("Retry-After").orElse(null));
+
+        // the cashier hands one over; its table takes the next order
+        engine.reset(DINE_IN);
+        assertEquals(201, client.send(post(), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private HttpRequest post() {
+        return HttpRequest.newBuilder(orders)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"source\":\"test\",\"lines\":[{\"id\":0,\"qty\":1},{\"id\":1,\"qty\":2}]}"))
+                .build();
+    }
+}
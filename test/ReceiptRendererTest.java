@@ -0,0 +1,143 @@
+package com.mycompany.restaurantsystem;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ReceiptRenderer} against the {@code String.format} builder it
+ * replaced, extended to the lines added since (discounts, service charge,
+ * PENDING invoices): the text must match character for character.
+ */
+class ReceiptRendererTest {
+
+    private static final long AT = 1_760_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private MenuCatalog catalog;
+    private OrderEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MenuCatalog.Builder b = new MenuCatalog.Builder();
+        b.add("Main Dishes", new Food("Chicken Adobo", 185.0), "");
+        b.add("Main Dishes", new Food("Crispy Pata Family Platter", 1250.0), "");
+        b.add("Sides", new Food("Plain Rice", 25.0), "");
+        b.add("Drinks", new Drink("Iced Coffee", 95.5), "");
+        catalog = b.build();
+        File rules = dir.resolve("pricing.txt").toFile();
+        Files.writeString(rules.toPath(), "vat | * | 10%\nservice | 5%\nsenior | 20%\npwd | 20%\n");
+        engine = new OrderEngine(catalog, 4, InvoiceSequence.inMemory(1000), PricingEngine.load(rules, catalog), () -> AT);
+    }
+
+    @Test
+    void plainOrderMatchesTheFormatStrings() {
+        OrderEngine plain = new OrderEngine(catalog, 1, () -> AT);
+        plain.setLine(0, 0, 2, true);
+        plain.setLine(0, 2, 3, true);
+        plain.setLine(0, 3, 1, false);
+        plain.done(0, "Table 1", "mark");
+        assertSame(plain.snapshot(0), "Table 1", "mark");
+    }
+
+    @Test
+    void pendingInvoiceWithoutTableBlock() {
+        engine.setLine(1, 1, 1, true);
+        TableOrder o = engine.snapshot(1);
+        assertEquals(0, o.getInvoiceID());
+        String text = assertSame(o, null, null);
+        assertTrue(text.contains("Invoice ID: PENDING\n"), text);
+    }
+
+    @Test
+    void discountAndServiceChargeLines() {
+        engine.setLine(2, 0, 4, true);
+        engine.setLine(2, 1, 1, true);
+        engine.setLine(2, 3, 2, true);
+        engine.setDiscount(2, PricingEngine.SENIOR, 1, 3);
+        engine.done(2, "Online 1", "anna");
+        TableOrder o = engine.snapshot(2);
+        assertTrue(o.getDiscountCents() > 0 && o.getServiceCents() > 0);
+        String text = assertSame(o, "Online 1", "anna");
+        assertTrue(text.contains("Discount (SC 1/3):"), text);
+        assertTrue(text.contains("Service Charge:"), text);
+    }
+
+    @Test
+    void negativeAmountsKeepTheirSign() {
+        // the discount is printed negated and right-aligned like %15s
+        engine.setLine(3, 2, 1, true);
+        engine.setDiscount(3, PricingEngine.PWD, 1, 1);
+        engine.done(3, "Table 4", "jay");
+        TableOrder o = engine.snapshot(3);
+        String text = assertSame(o, "Table 4", "jay");
+        assertTrue(text.contains(String.format("%15s", "-" + Calc.formatMoney(Calc.fromCents(o.getDiscountCents())))), text);
+    }
+
+    /** Renders {@code o} both ways, asserts they match and returns the text. */
+    private String assertSame(TableOrder o, String tableLabel, String waiter) {
+        String expected = reference(catalog.products(), o, tableLabel, waiter, AT);
+        String actual = new ReceiptRenderer(catalog.products()).render(o, tableLabel, waiter, AT).toString();
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    /**
+     * The pre-renderer {@code buildReceiptString}, with the lines added since
+     * written the same way: every amount through {@code %.2f} and padded by
+     * the original format strings.
+     */
+    private static String reference(List<Product> products, TableOrder order, String tableLabel, String waiter, long timeMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("        HARAYA'S DINING\n");
+        sb.append("  \"Your Filipino Comfort Food Destination.\"\n");
+        sb.append("-------------------------------------------\n");
+        sb.append("Invoice ID: ").append(order.getInvoiceID() == 0 ? "PENDING" : String.valueOf(order.getInvoiceID())).append("\n");
+        sb.append("Date: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(timeMillis))).append("\n");
+        sb.append("-------------------------------------------\n");
+        if (tableLabel != null) {
+            sb.append("Table: ").append(tableLabel).append("\n");
+            sb.append("Waiter: ").append(waiter).append("\n");
+            sb.append("-------------------------------------------\n");
+        }
+        sb.append(String.format("%-20s %5s %10s\n", "Item", "Qty", "Amount"));
+        sb.append("-------------------------------------------\n");
+        for (int i = 0; i < products.size(); i++) {
+            Product p = products.get(i);
+            int q = order.getQuantity(i);
+            if (order.isPurchased(i) && q > 0) {
+                sb.append(String.format("%-20s %5d %10s\n", p.getName(), q, Calc.formatMoney(p.getPrice() * q)));
+            }
+        }
+        sb.append("-------------------------------------------\n");
+        sb.append(String.format("%-20s %15s\n", "Sub Total:", money(order.getSubTotalCents())));
+        if (order.getDiscountCents() != 0) {
+            String label = order.getDiscountKind() == PricingEngine.NONE ? "Discount:"
+                    : String.format("Discount (%s %d/%d):", order.getDiscountKind() == PricingEngine.SENIOR ? "SC" : "PWD",
+                            order.getDiscountedGuests(), order.getGuests());
+            sb.append(String.format("%-20s %15s\n", label, money(-order.getDiscountCents())));
+        }
+        if (order.getServiceCents() != 0) sb.append(String.format("%-20s %15s\n", "Service Charge:", money(order.getServiceCents())));
+        sb.append(String.format("%-20s %15s\n", "Tax:", money(order.getTaxCents())));
+        sb.append(String.format("%-20s %15s\n", "Total:", money(order.getTotalCents())));
+        sb.append("\nThank you! Come again.\n");
+        return sb.toString();
+    }
+
+    private static String money(long cents) {
+        return Calc.formatMoney(Calc.fromCents(cents));
+    }
+}
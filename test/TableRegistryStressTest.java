@@ -0,0 +1,141 @@
+package com.mycompany.restaurantsystem;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A short run of the benchmarks' {@code TableRegistryStress}: a few threads
+ * mutate a journaled {@link TableRegistry} that compacts every few hundred
+ * records. The counting tables only get {@code +1}s, discounts and DONEs, so
+ * no increment may go missing; afterwards subtotals, versions, invoice IDs
+ * and a registry replayed from the journal must all agree with what was
+ * done.
+ */
+class TableRegistryStressTest {
+
+    private static final int THREADS = 4;
+    private static final int OPS = 5_000;
+    private static final int TABLES = 4;
+    private static final int ITEMS = 12;
+    private static final int COUNTING = TABLES / 2;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void noLostUpdatesAndTheJournalReplaysToTheSameOrders() throws Exception {
+        long[] prices = new long[ITEMS];
+        for (int i = 0; i < ITEMS; i++) prices[i] = 650 + 500L * i;
+        TableRegistry registry = new TableRegistry(TABLES, prices, 1000);
+        OrderJournal journal = OrderJournal.open(dir.toFile(), 5, 500, registry.replay());
+        registry.attachJournal(journal);
+
+        AtomicLong[][] applied = new AtomicLong[TABLES][ITEMS];
+        for (AtomicLong[] row : applied) for (int i = 0; i < ITEMS; i++) row[i] = new AtomicLong();
+        LongAdder[] notified = new LongAdder[TABLES];
+        for (int t = 0; t < TABLES; t++) notified[t] = new LongAdder();
+        registry.addListener((table, version) -> notified[table].increment());
+        Set<Integer> invoices = ConcurrentHashMap.newKeySet();
+        List<Integer> duplicates = new ArrayList<>();
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[THREADS];
+        for (int w = 0; w < THREADS; w++) {
+            String waiter = "waiter-" + w;
+            workers[w] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int n = 0; n < OPS; n++) {
+                    int t = rnd.nextInt(TABLES);
+                    int item = rnd.nextInt(ITEMS);
+                    int op = rnd.nextInt(100);
+                    if (t < COUNTING) {
+                        if (op < 90) {
+                            registry.adjustQuantity(t, item, 1);
+                            applied[t][item].incrementAndGet();
+                        } else if (op < 95) {
+                            registry.setDiscount(t, rnd.nextInt(3), 1, 1 + rnd.nextInt(4));
+                        } else {
+                            registry.done(t, System.currentTimeMillis(), waiter, null, o -> "");
+                        }
+                    } else if (op < 40) {
+                        registry.setLine(t, item, rnd.nextInt(6), rnd.nextBoolean());
+                    } else if (op < 75) {
+                        registry.adjustQuantity(t, item, rnd.nextBoolean() ? 1 : -1);
+                    } else if (op < 85) {
+                        registry.setDiscount(t, rnd.nextInt(3), rnd.nextInt(3), 2 + rnd.nextInt(3));
+                    } else if (op < 95) {
+                        registry.done(t, System.currentTimeMillis(), waiter, null, o -> "");
+                    } else {
+                        registry.reset(t, o -> {
+                            if (o.getInvoiceID() != 0 && !invoices.add(o.getInvoiceID())) {
+                                synchronized (duplicates) {
+                                    duplicates.add(o.getInvoiceID());
+                                }
+                            }
+                        });
+                    }
+                }
+            }, "stress-" + w);
+            workers[w].start();
+        }
+        start.countDown();
+        for (Thread w : workers) w.join();
+        journal.close();
+        assertTrue(Files.exists(dir.resolve("orders.snapshot")), "the journal never compacted");
+
+        TableRegistry replayed = new TableRegistry(TABLES, prices, 1000);
+        OrderJournal.open(dir.toFile(), 5, Integer.MAX_VALUE, replayed.replay()).close();
+
+        for (int t = 0; t < TABLES; t++) {
+            TableOrder o = registry.snapshot(t);
+            if (o.getInvoiceID() != 0 && !invoices.add(o.getInvoiceID())) duplicates.add(o.getInvoiceID());
+            long lines = 0;
+            for (int i = 0; i < ITEMS; i++) {
+                if (t < COUNTING) assertEquals(applied[t][i].get(), o.getQuantity(i), "table " + t + " item " + i);
+                lines += o.getQuantity(i) * prices[i];
+            }
+            assertEquals(lines, o.getSubTotalCents(), "table " + t + " subtotal");
+            assertEquals(notified[t].sum(), o.getVersion(), "table " + t + " changes announced");
+            assertEquals(null, difference(o, replayed.snapshot(t)), "table " + t + " replayed from the journal");
+            assertTrue(replayed.lastInvoiceID() >= o.getInvoiceID(), "table " + t + " invoice past the replayed sequence");
+        }
+        assertEquals(List.of(), duplicates, "invoice IDs given to two orders");
+    }
+
+    /** The first field in which the two orders differ, or null if they hold the same order. */
+    private static String difference(TableOrder a, TableOrder b) {
+        if (a.getInvoiceID() != b.getInvoiceID()) return "invoice " + a.getInvoiceID() + " vs " + b.getInvoiceID();
+        if (a.isOccupied() != b.isOccupied()) return "occupied";
+        if (a.isAmended() != b.isAmended()) return "amended since DONE";
+        if (a.getDoneMillis() != b.getDoneMillis()) return "done time";
+        if (a.getWaiter() == null ? b.getWaiter() != null : !a.getWaiter().equals(b.getWaiter())) return "waiter";
+        if (a.getDiscountKind() != b.getDiscountKind() || a.getDiscountedGuests() != b.getDiscountedGuests()
+                || a.getGuests() != b.getGuests()) return "discount";
+        if (a.lineCount() != b.lineCount()) return "line count " + a.lineCount() + " vs " + b.lineCount();
+        for (int k = 0; k < a.lineCount(); k++) {
+            if (a.lineItem(k) != b.lineItem(k) || a.lineQuantity(k) != b.lineQuantity(k)
+                    || a.isLinePurchased(k) != b.isLinePurchased(k)) return "line " + k;
+        }
+        if (a.getSubTotalCents() != b.getSubTotalCents()) return "subtotal";
+        return null;
+    }
+}